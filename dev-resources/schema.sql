@@ -8,13 +8,95 @@ CREATE TABLE book (
     price DECIMAL(10,2),
     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT uk_isbn UNIQUE (isbn) 
 );
 
+-- DDL：建立書本異動事件的 outbox，與書本寫入在同一個交易中新增，由 relay 批次取出後發送並刪除
+CREATE TABLE book_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(16) NOT NULL,
+    book_id INTEGER NOT NULL,
+    isbn VARCHAR(13),
+    occurred_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- DDL：建立書本異動紀錄，每本書只保留最後一次異動，供增量同步以 (txid, book_id) 游標讀取；刪除的書本保留為 tombstone
+CREATE TABLE book_change (
+    book_id INTEGER PRIMARY KEY,
+    txid BIGINT NOT NULL,
+    deleted BOOLEAN NOT NULL DEFAULT false,
+    changed_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 以 statement-level 觸發程序維護異動紀錄，JPA、COPY 匯入與直接執行的 SQL 都會被記錄 (TRUNCATE 除外)
+CREATE OR REPLACE FUNCTION book_record_changes() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO book_change (book_id, txid, deleted, changed_at)
+        SELECT id, pg_current_xact_id()::text::bigint, true, CURRENT_TIMESTAMP FROM old_rows
+        ON CONFLICT (book_id) DO UPDATE
+        SET txid = EXCLUDED.txid, deleted = true, changed_at = EXCLUDED.changed_at;
+    ELSE
+        INSERT INTO book_change (book_id, txid, deleted, changed_at)
+        SELECT id, pg_current_xact_id()::text::bigint, false, CURRENT_TIMESTAMP FROM new_rows
+        ON CONFLICT (book_id) DO UPDATE
+        SET txid = EXCLUDED.txid, deleted = false, changed_at = EXCLUDED.changed_at;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+CREATE TRIGGER book_change_insert AFTER INSERT ON book
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION book_record_changes();
+CREATE TRIGGER book_change_update AFTER UPDATE ON book
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION book_record_changes();
+CREATE TRIGGER book_change_delete AFTER DELETE ON book
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION book_record_changes();
+
+-- DDL：建立書本統計，每個作者與出版年份各一筆 (出版年份為空的書本 group_key 為空字串)，由觸發程序以差異更新
+CREATE TABLE book_stats (
+    dimension VARCHAR(16) NOT NULL,
+    group_key VARCHAR(100) NOT NULL,
+    book_count BIGINT NOT NULL DEFAULT 0,
+    priced_count BIGINT NOT NULL DEFAULT 0,
+    price_sum NUMERIC NOT NULL DEFAULT 0,
+    min_price DECIMAL(10,2),
+    max_price DECIMAL(10,2),
+    CONSTRAINT book_stats_pkey PRIMARY KEY (dimension, group_key)
+);
+
+-- 觸發程序 book_maintain_stats() 的完整內容見 db/changelog/history/20261017-book-stats.yaml：
+-- 筆數與價格總和以差異更新，移除的價格是最小或最大值時才重新計算該組，TRUNCATE 時清空統計
+CREATE TRIGGER book_stats_insert AFTER INSERT ON book
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION book_maintain_stats();
+CREATE TRIGGER book_stats_update AFTER UPDATE ON book
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION book_maintain_stats();
+CREATE TRIGGER book_stats_delete AFTER DELETE ON book
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION book_maintain_stats();
+CREATE TRIGGER book_stats_truncate AFTER TRUNCATE ON book
+    FOR EACH STATEMENT EXECUTE FUNCTION book_maintain_stats();
+
+-- 全文檢索：由書名 (權重 A) 與作者 (權重 B) 自動產生的 tsvector，搭配 pg_trgm 支援部分字串與模糊比對
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+ALTER TABLE book ADD COLUMN search_vector tsvector GENERATED ALWAYS AS (
+    setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+    setweight(to_tsvector('simple', coalesce(author, '')), 'B')
+) STORED;
+
+-- 書本 ID 序列每次配置 50 個，對應 Hibernate pooled optimizer 的 allocationSize
+ALTER SEQUENCE book_id_seq INCREMENT BY 50;
+
 -- DDL：建立索引
 -- CREATE INDEX：建立索引，用於優化查詢效能
-CREATE INDEX idx_author ON book (author);
-CREATE INDEX idx_publish_year ON book (publish_year);
+CREATE INDEX idx_book_author_id ON book (author, id);
+CREATE INDEX idx_book_author_pattern ON book (author varchar_pattern_ops, id);
+CREATE INDEX idx_book_publish_year_id ON book (publish_year, id);
+CREATE INDEX idx_book_price_id ON book (price, id);
+CREATE INDEX idx_book_search_vector ON book USING gin (search_vector);
+CREATE INDEX idx_book_title_trgm ON book USING gin (title gin_trgm_ops);
+CREATE INDEX idx_book_author_trgm ON book USING gin (author gin_trgm_ops);
+CREATE INDEX idx_book_change_cursor ON book_change (txid, book_id);
+CREATE INDEX idx_book_stats_count ON book_stats (dimension, book_count DESC, group_key);
 
 -- 為資料表和欄位添加註解
 COMMENT ON TABLE book IS '書本資料表，用於儲存書本的基本資訊';
@@ -26,7 +108,19 @@ COMMENT ON COLUMN book.publish_year IS '出版年份，可為空';
 COMMENT ON COLUMN book.price IS '價格，可為空，最多 10 位數，小數點後 2 位';
 COMMENT ON COLUMN book.created_at IS '建立時間，自動填入當前時間';
 COMMENT ON COLUMN book.updated_at IS '更新時間，自動填入當前時間';
+COMMENT ON COLUMN book.version IS '樂觀鎖版本，每次更新遞增';
+COMMENT ON COLUMN book.search_vector IS '全文檢索向量，由書名與作者自動產生';
 
 -- 為索引添加註解
-COMMENT ON INDEX idx_author IS '作者索引：加速依作者名稱查詢和排序';
-COMMENT ON INDEX idx_publish_year IS '出版年份索引：加速依出版年份查詢和排序';
+COMMENT ON INDEX idx_book_author_id IS '作者索引：加速依作者排序及 keyset 分頁';
+COMMENT ON INDEX idx_book_author_pattern IS '作者前綴索引：加速 LIKE ''prefix%'' 查詢，不受定序影響';
+COMMENT ON INDEX idx_book_publish_year_id IS '出版年份索引：加速依出版年份查詢、排序及 keyset 分頁';
+COMMENT ON INDEX idx_book_price_id IS '價格索引：加速依價格查詢、排序及 keyset 分頁';
+COMMENT ON INDEX idx_book_search_vector IS '全文檢索索引：加速書名與作者的關鍵字查詢';
+COMMENT ON INDEX idx_book_title_trgm IS '書名三元組索引：加速部分字串 (ILIKE) 與模糊比對';
+COMMENT ON INDEX idx_book_author_trgm IS '作者三元組索引：加速部分字串 (ILIKE) 與模糊比對';
+COMMENT ON INDEX idx_book_change_cursor IS '增量同步游標索引：依 (txid, book_id) keyset 讀取異動';
+COMMENT ON INDEX idx_book_stats_count IS '書本統計索引：依書本數量由多到少取出前 N 個作者';
+COMMENT ON TABLE book_outbox IS '書本異動事件的 outbox，發送完成後即刪除';
+COMMENT ON TABLE book_change IS '書本異動紀錄，每本書一筆，由 book 資料表的觸發程序維護';
+COMMENT ON TABLE book_stats IS '書本統計，每個作者與出版年份各一筆，由 book 資料表的觸發程序維護';
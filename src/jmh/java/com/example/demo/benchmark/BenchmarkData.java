@@ -0,0 +1,64 @@
+package com.example.demo.benchmark;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import com.example.demo.interfaces.dto.BookDto;
+import com.example.demo.interfaces.dto.BookRequest;
+import com.example.demo.models.Book;
+import com.example.demo.models.BookRow;
+
+/**
+ * 基準測試共用的測試資料
+ */
+final class BenchmarkData {
+
+    private static final OffsetDateTime TIMESTAMP = OffsetDateTime.of(2025, 6, 14, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    private BenchmarkData() {
+    }
+
+    static Book book(int id) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Spring Boot 實戰 第 " + id + " 版");
+        book.setAuthor("張三");
+        book.setIsbn(String.format("%013d", id));
+        book.setPublishYear(2000 + id % 25);
+        book.setPrice(new BigDecimal("599.00"));
+        book.setCreatedAt(TIMESTAMP);
+        book.setUpdatedAt(TIMESTAMP);
+        return book;
+    }
+
+    static BookRow bookRow(int id) {
+        return new BookRow(id, "Spring Boot 實戰 第 " + id + " 版", "張三", String.format("%013d", id), 2000 + id % 25,
+                new BigDecimal("599.00"), TIMESTAMP, TIMESTAMP);
+    }
+
+    static BookRequest bookRequest(int id) {
+        return new BookRequest()
+                .title("Spring Boot 實戰 第 " + id + " 版")
+                .author("張三")
+                .isbn(String.format("%013d", id))
+                .publishYear(2000 + id % 25)
+                .price(new BigDecimal("599.00"));
+    }
+
+    static List<BookDto> bookDtos(int size) {
+        return IntStream.rangeClosed(1, size)
+                .mapToObj(id -> new BookDto()
+                        .id(id)
+                        .title("Spring Boot 實戰 第 " + id + " 版")
+                        .author("張三")
+                        .isbn(String.format("%013d", id))
+                        .publishYear(2000 + id % 25)
+                        .price(new BigDecimal("599.00"))
+                        .createdAt(TIMESTAMP)
+                        .updatedAt(TIMESTAMP))
+                .toList();
+    }
+}
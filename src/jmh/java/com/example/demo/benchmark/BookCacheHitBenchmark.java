@@ -0,0 +1,131 @@
+package com.example.demo.benchmark;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.cache.Cache;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import com.example.demo.applications.BookCatalogVersion;
+import com.example.demo.applications.BookExistenceFilter;
+import com.example.demo.applications.BookService;
+import com.example.demo.config.CacheConfig;
+import com.example.demo.config.TwoLevelCacheProperties;
+import com.example.demo.infrastructure.cache.TwoLevelCacheManager;
+import com.example.demo.infrastructure.repositories.BookBulkRepository;
+import com.example.demo.infrastructure.repositories.BookOutboxRepository;
+import com.example.demo.infrastructure.repositories.BookRepository;
+import com.example.demo.infrastructure.repositories.BookRowRepository;
+import com.example.demo.models.Book;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+
+/**
+ * BookService.getBookById 在快取命中時的成本
+ * 透過與正式環境相同的 Spring AOP 代理 (@Transactional、@Cacheable) 呼叫，
+ * 並以直接查詢 L1 快取作為對照，兩者的差距即為代理機制的成本
+ * 觀測改由呼叫端以 FastPathObservation 處理，其成本請見 {@link BookObservationBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookCacheHitBenchmark {
+
+    private static final int BOOK_ID = 1;
+
+    private AnnotationConfigApplicationContext context;
+    private BookService bookService;
+    private Cache cache;
+
+    @Setup
+    public void setUp() {
+        BookRepository bookRepository = mock(BookRepository.class);
+        when(bookRepository.findById(BOOK_ID)).thenReturn(Optional.of(BenchmarkData.book(BOOK_ID)));
+        BookExistenceFilter bookExistenceFilter = mock(BookExistenceFilter.class);
+        when(bookExistenceFilter.mightContainId(any())).thenReturn(true);
+
+        context = new AnnotationConfigApplicationContext();
+        context.registerBean("bookRepository", BookRepository.class, () -> bookRepository);
+        context.registerBean("bookExistenceFilter", BookExistenceFilter.class, () -> bookExistenceFilter);
+        context.registerBean(BookBulkRepository.class, () -> mock(BookBulkRepository.class));
+        context.registerBean(BookRowRepository.class, () -> mock(BookRowRepository.class));
+        context.registerBean(BookOutboxRepository.class, () -> mock(BookOutboxRepository.class));
+        context.registerBean(BookCatalogVersion.class, () -> mock(BookCatalogVersion.class));
+        context.registerBean(EntityManager.class, () -> mock(EntityManager.class));
+        context.register(BenchmarkConfig.class);
+        context.registerBean(BookService.class);
+        context.refresh();
+
+        bookService = context.getBean(BookService.class);
+        cache = context.getBean(TwoLevelCacheManager.class).getCache(CacheConfig.BOOKS_CACHE);
+        // 先載入一次，之後的呼叫都命中 L1
+        bookService.getBookById(BOOK_ID);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Book> getBookByIdThroughProxy() {
+        return bookService.getBookById(BOOK_ID);
+    }
+
+    @Benchmark
+    public Object localCacheLookup() {
+        return cache.get("book_" + BOOK_ID);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @EnableCaching
+    @EnableTransactionManagement
+    static class BenchmarkConfig {
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new NoOpTransactionManager();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        /**
+         * Redis 以 mock 取代，快取命中時只會讀取 L1，不會呼叫到 Redis
+         */
+        @Bean
+        TwoLevelCacheManager cacheManager(MeterRegistry meterRegistry) {
+            TwoLevelCacheProperties properties = new TwoLevelCacheProperties();
+            properties.getCaches().put(CacheConfig.BOOKS_CACHE, new TwoLevelCacheProperties.Spec());
+            @SuppressWarnings("unchecked")
+            RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+            TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisTemplate,
+                    mock(StringRedisTemplate.class), properties, meterRegistry);
+            cacheManager.setTransactionAware(true);
+            return cacheManager;
+        }
+    }
+}
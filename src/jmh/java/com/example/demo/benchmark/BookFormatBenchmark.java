@@ -0,0 +1,130 @@
+package com.example.demo.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.demo.interfaces.mapper.BookMapperImpl;
+import com.example.demo.interfaces.rest.BookJsonWriter;
+import com.example.demo.interfaces.rest.BookProtobufWriter;
+import com.example.demo.interfaces.rest.BookRowList;
+import com.example.demo.models.BookRow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.CodedOutputStream;
+
+/**
+ * 以各種回應格式編碼書本列表的時間與大小，與實際回應 GET /books 的寫法相同
+ * - json、cbor、smile：資料列以 {@link BookJsonWriter} 寫入對應的 generator
+ * - json-gzip：同 json，再以預設壓縮等級 gzip (與 server.compression 相同)
+ * - protobuf：資料列逐筆轉換為 BookDto 後以 {@link BookProtobufWriter} 編碼
+ *
+ * 編碼時間由 JMH 量測，編碼後的位元組數以 {@link PayloadSize} 的輔助計數器 (encode:bytes) 與時間一起出現在結果中
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BookFormatBenchmark {
+
+    @Param({ "10000" })
+    public int size;
+
+    @Param({ "json", "json-gzip", "cbor", "smile", "protobuf" })
+    public String format;
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper cborMapper;
+    private ObjectMapper smileMapper;
+    private BookRowList books;
+    private long payloadBytes;
+
+    @Setup
+    public void setUp() throws IOException {
+        jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+        cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        smileMapper = Jackson2ObjectMapperBuilder.smile().build();
+        List<BookRow> rows = IntStream.rangeClosed(1, size).mapToObj(BenchmarkData::bookRow).toList();
+        books = new BookRowList(rows, new BookMapperImpl());
+
+        CountingOutputStream counter = new CountingOutputStream();
+        write(counter);
+        payloadBytes = counter.count;
+    }
+
+    @Benchmark
+    public void encode(PayloadSize payloadSize) throws IOException {
+        write(OutputStream.nullOutputStream());
+    }
+
+    /**
+     * 編碼後的位元組數
+     * EVENTS 計數器不依時間正規化，每個 iteration 開始時設為單次編碼的大小 (而不是累加)，各 iteration 的結果即為 payload 大小
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void setUp(BookFormatBenchmark benchmark) {
+            bytes = benchmark.payloadBytes;
+        }
+    }
+
+    private void write(OutputStream out) throws IOException {
+        switch (format) {
+            case "json" -> writeRows(jsonMapper, out);
+            case "json-gzip" -> {
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8 * 1024)) {
+                    writeRows(jsonMapper, gzip);
+                }
+            }
+            case "cbor" -> writeRows(cborMapper, out);
+            case "smile" -> writeRows(smileMapper, out);
+            case "protobuf" -> {
+                CodedOutputStream output = CodedOutputStream.newInstance(out, 8 * 1024);
+                BookProtobufWriter.writeList(output, books);
+                output.flush();
+            }
+            default -> throw new IllegalArgumentException("未知的格式: " + format);
+        }
+    }
+
+    private void writeRows(ObjectMapper mapper, OutputStream out) throws IOException {
+        try (JsonGenerator generator = mapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            BookJsonWriter.writeArray(generator, books.rows());
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.benchmark;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.demo.interfaces.dto.BookDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Jackson 序列化 List&lt;BookDto&gt; 的成本，ObjectMapper 使用與 Spring Boot 相同的預設設定
+ * 分別量測寫成 byte[] (需配置完整緩衝) 與直接寫到輸出串流 (與 HTTP 回應相同) 兩種方式
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookJsonSerializationBenchmark {
+
+    @Param({ "1000", "100000" })
+    public int size;
+
+    private ObjectWriter writer;
+    private List<BookDto> books;
+
+    @Setup
+    public void setUp() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writerFor(new TypeReference<List<BookDto>>() {
+        });
+        books = BenchmarkData.bookDtos(size);
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws Exception {
+        return writer.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public void writeToStream() throws Exception {
+        writer.writeValue(OutputStream.nullOutputStream(), books);
+    }
+}
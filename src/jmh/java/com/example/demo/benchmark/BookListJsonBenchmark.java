@@ -0,0 +1,75 @@
+package com.example.demo.benchmark;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.example.demo.interfaces.dto.BookDto;
+import com.example.demo.interfaces.mapper.BookMapper;
+import com.example.demo.interfaces.mapper.BookMapperImpl;
+import com.example.demo.interfaces.rest.BookJsonWriter;
+import com.example.demo.models.Book;
+import com.example.demo.models.BookRow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * GET /books 回應一頁書本的序列化成本，搭配 gc profiler 比較每次操作配置的位元組數 (gc.alloc.rate.norm)
+ * 1. entitiesThroughDtos：原本的作法，實體轉成 List&lt;BookDto&gt; 後以 ObjectMapper 反射序列化
+ * 2. rowsThroughJsonGenerator：資料列以 {@link BookJsonWriter} 直接寫出，不建立 DTO 與中間列表
+ *
+ * 兩者都不包含資料庫查詢；實際請求中原本的作法還需要 Hibernate 建立實體與持久化上下文的紀錄
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookListJsonBenchmark {
+
+    @Param({ "100", "1000" })
+    public int size;
+
+    private BookMapper bookMapper;
+    private ObjectMapper objectMapper;
+    private ObjectWriter writer;
+    private List<Book> books;
+    private List<BookRow> rows;
+
+    @Setup
+    public void setUp() {
+        bookMapper = new BookMapperImpl();
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        writer = objectMapper.writerFor(new TypeReference<List<BookDto>>() {
+        });
+        books = IntStream.rangeClosed(1, size).mapToObj(BenchmarkData::book).toList();
+        rows = IntStream.rangeClosed(1, size).mapToObj(BenchmarkData::bookRow).toList();
+    }
+
+    @Benchmark
+    public void entitiesThroughDtos() throws Exception {
+        List<BookDto> dtos = books.stream()
+                .map(bookMapper::toDto)
+                .collect(Collectors.toList());
+        writer.writeValue(OutputStream.nullOutputStream(), dtos);
+    }
+
+    @Benchmark
+    public void rowsThroughJsonGenerator() throws Exception {
+        try (JsonGenerator generator = objectMapper.createGenerator(OutputStream.nullOutputStream())) {
+            BookJsonWriter.writeArray(generator, rows);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.demo.interfaces.dto.BookDto;
+import com.example.demo.interfaces.dto.BookRequest;
+import com.example.demo.interfaces.mapper.BookMapper;
+import com.example.demo.interfaces.mapper.BookMapperImpl;
+import com.example.demo.models.Book;
+
+/**
+ * MapStruct 轉換成本：每個請求至少會經過一次 toDto 或 toEntity
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookMapperBenchmark {
+
+    private BookMapper bookMapper;
+    private Book book;
+    private BookRequest bookRequest;
+
+    @Setup
+    public void setUp() {
+        bookMapper = new BookMapperImpl();
+        book = BenchmarkData.book(1);
+        bookRequest = BenchmarkData.bookRequest(1);
+    }
+
+    @Benchmark
+    public BookDto toDto() {
+        return bookMapper.toDto(book);
+    }
+
+    @Benchmark
+    public Book toEntity() {
+        return bookMapper.toEntity(bookRequest);
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.benchmark;
+
+import java.io.OutputStream;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import com.example.demo.infrastructure.observation.FastPathObservation;
+import com.example.demo.models.Book;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.annotation.Observed;
+import io.micrometer.observation.aop.ObservedAspect;
+
+/**
+ * GET /books/{id} 每個請求的觀測成本 (快取命中時，不含查詢本身)
+ *
+ * - before：原本的作法，兩筆 INFO 日誌 (請求與 baggage) 加上經過 ObservedAspect 代理的 @Observed
+ * - fastPathUnsampled：快速路徑，未被取樣的請求不記錄日誌，只記錄預先建立的 Timer
+ * - fastPathSampled：快速路徑，被取樣的請求記錄一筆日誌並建立完整的 Observation (KeyValues 預先建立)
+ * - baseline：直接取得書本，作為對照
+ *
+ * 日誌以 logback PatternLayoutEncoder 格式化後寫入 null output stream，包含格式化的成本但不含磁碟 I/O；
+ * ObservationRegistry 只註冊 DefaultMeterObservationHandler，未包含 tracing handler 與 baggage，
+ * 因此 before 與 fastPathSampled 在正式環境的成本會更高，fastPathUnsampled 則不受影響
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BookObservationBenchmark {
+
+    private static final int BOOK_ID = 1;
+
+    private LoggerContext loggerContext;
+    private Logger log;
+    private BookLookup observedLookup;
+    private BookLookup lookup;
+    private FastPathObservation unsampled;
+    private FastPathObservation sampled;
+
+    @Setup
+    public void setUp() {
+        loggerContext = new LoggerContext();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern("%d{ISO8601} %-5level [%thread] %logger{36} - %msg%n");
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(loggerContext);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        log = loggerContext.getLogger(BookObservationBenchmark.class);
+        log.setLevel(Level.INFO);
+        log.addAppender(appender);
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+
+        lookup = new BookLookup();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(lookup);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(new ObservedAspect(observationRegistry));
+        observedLookup = proxyFactory.getProxy();
+
+        // 與 ObservabilityConfig.bookDetailsObservation 相同的名稱與標籤
+        KeyValues keyValues = KeyValues.of("operation", "get_by_id", "cache_enabled", "true",
+                "class", BookLookup.class.getName(), "method", "getBookById");
+        unsampled = new FastPathObservation("book.details.view", "書本詳情查看", keyValues, observationRegistry,
+                meterRegistry, () -> false, true);
+        sampled = new FastPathObservation("book.details.view", "書本詳情查看", keyValues, observationRegistry,
+                meterRegistry, () -> true, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        loggerContext.stop();
+    }
+
+    @Benchmark
+    public Optional<Book> before() {
+        log.info("獲取書本，ID: {}", BOOK_ID);
+        log.info("Baggage 'book-id' 已設定為: {}", BOOK_ID);
+        return observedLookup.getBookById(BOOK_ID);
+    }
+
+    @Benchmark
+    public Optional<Book> fastPathUnsampled() {
+        return fastPath(unsampled);
+    }
+
+    @Benchmark
+    public Optional<Book> fastPathSampled() {
+        return fastPath(sampled);
+    }
+
+    @Benchmark
+    public Optional<Book> baseline() {
+        return lookup.getBookById(BOOK_ID);
+    }
+
+    private Optional<Book> fastPath(FastPathObservation observation) {
+        if (observation.isSampled()) {
+            log.info("獲取書本，ID: {}", BOOK_ID);
+        }
+        return observation.observe(() -> lookup.getBookById(BOOK_ID));
+    }
+
+    /**
+     * 代表命中快取的 BookService.getBookById
+     */
+    public static class BookLookup {
+
+        private final Optional<Book> book = Optional.of(BenchmarkData.book(BOOK_ID));
+
+        @Observed(name = "book.details.view", contextualName = "書本詳情查看", lowCardinalityKeyValues = {
+                "operation", "get_by_id", "cache_enabled", "true" })
+        public Optional<Book> getBookById(Integer id) {
+            return book;
+        }
+    }
+}
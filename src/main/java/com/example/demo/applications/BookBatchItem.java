@@ -0,0 +1,24 @@
+package com.example.demo.applications;
+
+import com.example.demo.models.Book;
+
+/**
+ * 批次寫入書本時單筆的處理結果
+ *
+ * @param index  該筆在請求中的位置
+ * @param status 處理結果
+ * @param book   新增、更新或造成衝突的既有書本；DUPLICATE 時為請求中的原始資料
+ */
+public record BookBatchItem(int index, Status status, Book book) {
+
+    public enum Status {
+        /** 新增成功 */
+        CREATED,
+        /** ISBN 已存在，已更新既有書本 */
+        UPDATED,
+        /** ISBN 已存在且未要求 upsert，未寫入 */
+        CONFLICT,
+        /** 同一批次中已有相同 ISBN，未寫入 */
+        DUPLICATE
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.applications;
+
+import java.util.Collection;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.models.Book;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 大量寫入書本後的快取失效處理
+ * 異動筆數少時逐筆清除快取並記錄到 Bloom filter；筆數過多時改為清空整個書本快取，
+ * 避免逐筆發送大量 Redis 清除指令與 pub/sub 通知
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookCacheInvalidator {
+
+    /**
+     * 異動筆數超過此值就直接清空整個書本快取，而不是逐筆清除
+     */
+    public static final int EVICT_ALL_THRESHOLD = 1000;
+
+    private final CacheManager cacheManager;
+    private final BookExistenceFilter bookExistenceFilter;
+
+    /**
+     * 清除指定書本的快取 (包含新 ID 的負向快取項目)，並記錄到 Bloom filter
+     * 在交易中呼叫時，快取清除會延後到交易提交後執行
+     *
+     * @param books 新增或更新的書本，只需要 ID 與 ISBN
+     */
+    public void booksWritten(Collection<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+        evict(books.stream().map(Book::getId).toList());
+        bookExistenceFilter.addAll(books);
+    }
+
+    /**
+     * 清除指定 ID 的書本快取，筆數超過 {@value #EVICT_ALL_THRESHOLD} 時改為清空整個書本快取
+     * 在交易中呼叫時，快取清除會延後到交易提交後執行
+     */
+    public void evict(Collection<Integer> ids) {
+        Cache cache = cacheManager.getCache(CacheConfig.BOOKS_CACHE);
+        if (cache == null || ids.isEmpty()) {
+            return;
+        }
+        if (ids.size() > EVICT_ALL_THRESHOLD) {
+            cache.clear();
+        } else {
+            ids.forEach(id -> cache.evict("book_" + id));
+        }
+    }
+
+    /**
+     * 整批目錄重新載入後清空整個書本快取，並讓所有節點重建 Bloom filter
+     * 必須在交易提交後呼叫，重建時才讀得到新資料
+     */
+    public void catalogReloaded() {
+        log.info("書本目錄大量異動，清空書本快取並重建 Bloom filter");
+        Cache cache = cacheManager.getCache(CacheConfig.BOOKS_CACHE);
+        if (cache != null) {
+            cache.clear();
+        }
+        bookExistenceFilter.rebuildAll();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.demo.applications;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.config.CacheWarmUpProperties;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 書本快取預熱
+ * 新節點啟動時 L1 是空的，在接收流量前先載入 {@link BookPopularity} 記錄的熱門書本，避免部署後資料庫的查詢量暴增
+ *
+ * 1. 依熱門程度取出前 topN 本書，分成多個批次並行處理，同時處理的批次數以 parallelism 限制
+ * 2. 每批以 {@link BookService#getBooksByIds} 載入：L2 命中的書本以單一 MGET 回填 L1，
+ *    未命中的書本以單一 IN 查詢從主資料庫載入後寫入快取
+ * 3. 完成、逾時或失敗後都會結束預熱，readiness 只在預熱進行中回報 OUT_OF_SERVICE
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookCacheWarmer {
+
+    private final CacheWarmUpProperties properties;
+    private final BookPopularity bookPopularity;
+    private final BookService bookService;
+
+    private volatile State state = State.PENDING;
+    private volatile Result result;
+
+    /**
+     * 預熱狀態
+     */
+    public enum State {
+        PENDING, WARMING, COMPLETED, TIMED_OUT, FAILED, DISABLED;
+
+        /**
+         * 是否已結束預熱，可以接收流量
+         */
+        public boolean isFinished() {
+            return this != PENDING && this != WARMING;
+        }
+    }
+
+    /**
+     * 預熱結果
+     *
+     * @param requested 熱門書本數量
+     * @param loaded    已載入快取的數量，不包含已刪除的書本
+     * @param duration  花費時間
+     */
+    public record Result(int requested, long loaded, Duration duration) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!properties.isEnabled()) {
+            state = State.DISABLED;
+            return;
+        }
+        state = State.WARMING;
+        Thread.ofVirtual().name("book-cache-warm-up").start(this::run);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Result getResult() {
+        return result;
+    }
+
+    private void run() {
+        long started = System.nanoTime();
+        LongAdder loaded = new LongAdder();
+        List<Integer> ids = List.of();
+        State finalState;
+        try {
+            ids = bookPopularity.topIds(properties.getTopN());
+            ExecutorService executor = Executors.newFixedThreadPool(properties.getParallelism(),
+                    Thread.ofVirtual().name("book-cache-warm-up-", 0).factory());
+            for (int from = 0; from < ids.size(); from += properties.getBatchSize()) {
+                List<Integer> batch = ids.subList(from, Math.min(from + properties.getBatchSize(), ids.size()));
+                executor.execute(() -> warmBatch(batch, loaded));
+            }
+            executor.shutdown();
+            if (executor.awaitTermination(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                finalState = State.COMPLETED;
+            } else {
+                executor.shutdownNow();
+                finalState = State.TIMED_OUT;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            finalState = State.FAILED;
+        } catch (RuntimeException ex) {
+            log.warn("書本快取預熱失敗，直接開始接收流量", ex);
+            finalState = State.FAILED;
+        }
+        result = new Result(ids.size(), loaded.sum(), Duration.ofNanos(System.nanoTime() - started));
+        state = finalState;
+        log.info("書本快取預熱結束，狀態: {}, 結果: {}", finalState, result);
+    }
+
+    private void warmBatch(List<Integer> ids, LongAdder loaded) {
+        try {
+            loaded.add(bookService.getBooksByIds(ids).size());
+        } catch (RuntimeException ex) {
+            log.warn("書本快取預熱批次失敗，略過 {} 本書", ids.size(), ex);
+        }
+    }
+}
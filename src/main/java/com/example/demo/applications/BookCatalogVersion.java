@@ -0,0 +1,97 @@
+package com.example.demo.applications;
+
+import java.nio.charset.StandardCharsets;
+import java.util.OptionalLong;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 書本目錄版本
+ * 所有節點共用 Redis 中的一個遞增計數器，書本有任何異動就遞增，列表端點以此產生 ETag，
+ * 目錄沒有變動時直接回應 304，不需要查詢資料庫也不需要序列化
+ *
+ * 計數器不存在時 (例如 Redis 重新啟動) 以目前時間的微秒數為起點，避免版本號回到先前用過的值
+ * Redis 無法使用時回傳空值，呼叫端應略過條件式請求的處理
+ *
+ * 交易提交後的遞增只是盡力而為，讓同一個用戶端立即看到新版本；
+ * 每筆異動也會寫入 outbox，由 BookOutboxRelay 在發布事件的同一個 pipeline 中再遞增一次，
+ * 提交後的遞增遺失時 (例如 Redis 短暫無法連線) 仍會在 relay 重試成功後反映到版本上
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookCatalogVersion {
+
+    static final String KEY = "demo:books:catalog-version";
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 目前的目錄版本
+     */
+    public OptionalLong current() {
+        try {
+            String version = stringRedisTemplate.opsForValue().get(KEY);
+            if (version == null) {
+                stringRedisTemplate.opsForValue().setIfAbsent(KEY, String.valueOf(seed()));
+                version = stringRedisTemplate.opsForValue().get(KEY);
+            }
+            return version == null ? OptionalLong.empty() : OptionalLong.of(Long.parseLong(version));
+        } catch (RuntimeException ex) {
+            log.warn("無法讀取書本目錄版本，略過條件式請求", ex);
+            return OptionalLong.empty();
+        }
+    }
+
+    /**
+     * 遞增目錄版本
+     * 在交易中呼叫時延後到交易提交後才遞增，避免其他請求在資料提交前就以新版本快取到舊資料
+     */
+    public void increment() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doIncrement();
+                }
+            });
+        } else {
+            doIncrement();
+        }
+    }
+
+    /**
+     * 在呼叫端的 pipeline 中遞增目錄版本，指令失敗時由呼叫端重試
+     */
+    void increment(RedisConnection connection) {
+        byte[] key = KEY.getBytes(StandardCharsets.UTF_8);
+        connection.stringCommands().setNX(key, String.valueOf(seed()).getBytes(StandardCharsets.UTF_8));
+        connection.stringCommands().incr(key);
+    }
+
+    private void doIncrement() {
+        try {
+            stringRedisTemplate.opsForValue().setIfAbsent(KEY, String.valueOf(seed()));
+            stringRedisTemplate.opsForValue().increment(KEY);
+        } catch (RuntimeException ex) {
+            // 遞增失敗時刪除計數器，下次讀取會以新的起點重建，避免用戶端持續收到過期的 304
+            log.warn("書本目錄版本遞增失敗，嘗試重設版本", ex);
+            try {
+                stringRedisTemplate.delete(KEY);
+            } catch (RuntimeException deleteEx) {
+                log.warn("書本目錄版本重設失敗", deleteEx);
+            }
+        }
+    }
+
+    private static long seed() {
+        return System.currentTimeMillis() * 1000;
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.demo.applications;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.config.ChangeFeedProperties;
+import com.example.demo.models.BookChange;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 書本異動的即時推送
+ * 不論有多少訂閱者，每個節點只有一個輪詢查詢資料庫，再分送給各訂閱者
+ *
+ * 1. 有訂閱者時，排程依 pollInterval 讀取上次位置之後的異動；沒有訂閱者時不查詢資料庫
+ * 2. 異動放入每個訂閱者各自的有界佇列，輪詢不會因為任何一個用戶端變慢而等待
+ * 3. 每個訂閱者由一個 virtual thread 依序送出，寫入被用戶端的 TCP 視窗擋住時只阻塞該執行緒
+ * 4. 佇列已滿時不中斷連線也不再累積，標記為落後，由該訂閱者從最後送出的游標向資料庫補讀，追上後再回到佇列
+ *
+ * 訂閱時帶入游標會先補讀游標之後的異動，因此斷線重連 (Last-Event-ID) 不會遺漏；
+ * 補讀與佇列可能有重疊，送出前以游標排除已送出的異動
+ *
+ * 指標：
+ * - book.changes.subscribers：目前的訂閱者數量
+ * - book.changes.overflows：佇列已滿而改為補讀的次數
+ */
+@Slf4j
+@Component
+public class BookChangeBroadcaster {
+
+    private final BookChangeFeed bookChangeFeed;
+    private final ChangeFeedProperties properties;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter overflows;
+
+    /**
+     * 輪詢已讀取到的位置，沒有訂閱者時為 null，下一位訂閱者加入時從當下的位置開始
+     */
+    private BookChangeCursor head;
+
+    /**
+     * 推送異動的目的地，由介面層實作 (例如 SSE 連線)
+     */
+    public interface Sink {
+
+        /**
+         * 送出一筆異動
+         *
+         * @param cursor 包含此筆異動的游標，用戶端重新連線時帶入
+         */
+        void send(BookChange change, String cursor) throws IOException;
+
+        /**
+         * 沒有異動時定期呼叫，維持連線並偵測已中斷的用戶端
+         */
+        void heartbeat() throws IOException;
+
+        /**
+         * 補讀失敗等無法繼續推送時呼叫，用戶端應重新連線
+         */
+        void error(Throwable error);
+    }
+
+    /**
+     * 訂閱，連線結束時呼叫 close 取消
+     */
+    public interface Subscription {
+
+        void close();
+    }
+
+    public BookChangeBroadcaster(BookChangeFeed bookChangeFeed, ChangeFeedProperties properties,
+            MeterRegistry meterRegistry) {
+        this.bookChangeFeed = bookChangeFeed;
+        this.properties = properties;
+        Gauge.builder("book.changes.subscribers", subscribers, Set::size)
+                .description("目前訂閱書本異動的用戶端數量")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("book.changes.overflows")
+                .description("訂閱者佇列已滿而改由資料庫補讀的次數")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 訂閱書本異動
+     *
+     * @param since 從此游標之後開始推送，null 時只推送訂閱之後的異動
+     * @param sink  推送異動的目的地
+     * @throws ResponseStatusException 游標格式錯誤時回傳 400，訂閱者已達上限時回傳 503
+     */
+    public Subscription subscribe(@Nullable String since, Sink sink) {
+        BookChangeCursor from = since == null ? null : BookChangeCursor.decode(since);
+        Subscriber subscriber;
+        synchronized (this) {
+            if (subscribers.size() >= properties.getMaxSubscribers()) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "訂閱人數已達上限，請稍後再試");
+            }
+            if (head == null) {
+                head = bookChangeFeed.currentCursor();
+            }
+            subscriber = new Subscriber(sink, from == null ? head : from);
+            subscribers.add(subscriber);
+        }
+        log.info("新增書本異動訂閱者，since: {}, 目前訂閱者: {}", since, subscribers.size());
+        subscriber.start();
+        return subscriber;
+    }
+
+    /**
+     * 讀取上次位置之後的異動並分送給所有訂閱者，直到追上資料庫目前的位置
+     */
+    @Scheduled(fixedDelayString = "${app.change-feed.poll-interval:500ms}")
+    public void poll() {
+        BookChangeCursor after;
+        synchronized (this) {
+            if (subscribers.isEmpty()) {
+                head = null;
+                return;
+            }
+            after = head;
+        }
+        try {
+            BookChangePage page;
+            do {
+                page = bookChangeFeed.getChanges(after, properties.getPageSize());
+                for (BookChange change : page.changes()) {
+                    subscribers.forEach(subscriber -> subscriber.offer(change));
+                }
+                after = page.nextCursor();
+                synchronized (this) {
+                    head = after;
+                }
+            } while (page.hasMore());
+        } catch (RuntimeException ex) {
+            log.warn("讀取書本異動失敗，將於下次檢查時重試", ex);
+        }
+    }
+
+    /**
+     * 單一訂閱者：有界佇列加上負責送出的 virtual thread
+     */
+    private class Subscriber implements Subscription {
+
+        private final Sink sink;
+        private final BlockingQueue<BookChange> buffer;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile BookChangeCursor lastSent;
+        private volatile boolean lagging = true;
+        private volatile Thread thread;
+
+        Subscriber(Sink sink, BookChangeCursor from) {
+            this.sink = sink;
+            this.buffer = new ArrayBlockingQueue<>(properties.getBufferSize());
+            this.lastSent = from;
+        }
+
+        void start() {
+            thread = Thread.ofVirtual().name("book-changes-subscriber").start(this::run);
+        }
+
+        /**
+         * 由輪詢呼叫，不會阻塞；佇列已滿時標記為落後，之後的異動由補讀取得
+         */
+        void offer(BookChange change) {
+            if (lagging || closed.get()) {
+                return;
+            }
+            if (!buffer.offer(change)) {
+                lagging = true;
+                overflows.increment();
+                log.debug("書本異動訂閱者佇列已滿，改由資料庫補讀，游標: {}", lastSent);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscribers.remove(this);
+            if (thread != null) {
+                thread.interrupt();
+            }
+            log.info("移除書本異動訂閱者，目前訂閱者: {}", subscribers.size());
+        }
+
+        private void run() {
+            long heartbeatMillis = properties.getHeartbeatInterval().toMillis();
+            try {
+                while (!closed.get()) {
+                    if (lagging) {
+                        catchUp();
+                        continue;
+                    }
+                    BookChange change = buffer.poll(heartbeatMillis, TimeUnit.MILLISECONDS);
+                    if (change == null) {
+                        sink.heartbeat();
+                    } else {
+                        deliver(change);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                // 訂閱已取消
+            } catch (IOException ex) {
+                log.debug("書本異動訂閱者連線已中斷", ex);
+            } catch (RuntimeException ex) {
+                if (!closed.get()) {
+                    log.warn("推送書本異動失敗，結束訂閱", ex);
+                    sink.error(ex);
+                }
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * 先清空佇列再從最後送出的位置補讀：清空後輪詢放入的異動都在補讀的範圍之後或與其重疊，不會遺漏
+         */
+        private void catchUp() throws IOException {
+            lagging = false;
+            buffer.clear();
+            BookChangePage page;
+            do {
+                page = bookChangeFeed.getChanges(lastSent, properties.getPageSize());
+                for (BookChange change : page.changes()) {
+                    deliver(change);
+                }
+            } while (page.hasMore() && !closed.get());
+        }
+
+        private void deliver(BookChange change) throws IOException {
+            BookChangeCursor cursor = BookChangeCursor.of(change);
+            if (cursor.compareTo(lastSent) <= 0) {
+                return;
+            }
+            sink.send(change, cursor.encode());
+            lastSent = cursor;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.applications;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.models.BookChange;
+
+/**
+ * 增量同步的游標
+ * 記錄用戶端最後取得的異動在 (txid, book_id) 排序上的位置，編碼為 URL-safe Base64 字串：{txid},{書本 ID}
+ *
+ * @param txid   最後取得的異動的交易 ID
+ * @param bookId 最後取得的異動的書本 ID
+ */
+public record BookChangeCursor(long txid, int bookId) implements Comparable<BookChangeCursor> {
+
+    /**
+     * 所有異動之前的位置，從這裡開始讀取即為完整同步
+     */
+    public static final BookChangeCursor START = new BookChangeCursor(0, 0);
+
+    private static final String DELIMITER = ",";
+
+    public static BookChangeCursor of(BookChange change) {
+        return new BookChangeCursor(change.txid(), change.bookId());
+    }
+
+    public String encode() {
+        String raw = txid + DELIMITER + bookId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游標
+     *
+     * @throws ResponseStatusException 游標格式錯誤時回傳 400
+     */
+    public static BookChangeCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(DELIMITER, 2);
+            return new BookChangeCursor(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "游標格式錯誤", e);
+        }
+    }
+
+    @Override
+    public int compareTo(BookChangeCursor other) {
+        int byTxid = Long.compare(txid, other.txid);
+        return byTxid != 0 ? byTxid : Integer.compare(bookId, other.bookId);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.demo.applications;
+
+import java.util.List;
+
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.infrastructure.repositories.BookChangeRepository;
+import com.example.demo.models.BookChange;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 書本增量同步
+ * 下游服務保存上一次回應的游標，之後只讀取游標之後異動的書本，同步成本與異動數量成正比，而不是整個目錄
+ *
+ * - 第一次同步不帶游標，依異動順序讀取所有書本 (包含已刪除書本的 tombstone)
+ * - 同一本書在兩次同步之間多次修改只會回傳最後的狀態一次
+ * - 已刪除的書本以 deleted = true 回傳，用戶端據此刪除本地的副本
+ *
+ * 每次讀取都是單一查詢，直接使用主資料庫，不會因複寫延遲而回傳較舊的游標位置
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookChangeFeed {
+
+    /**
+     * 每頁筆數上限
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final BookChangeRepository bookChangeRepository;
+
+    /**
+     * 讀取游標之後的異動
+     *
+     * @param since 上一次回應的游標，null 時從頭開始讀取
+     * @param limit 最多回傳筆數
+     * @throws org.springframework.web.server.ResponseStatusException 游標格式錯誤時回傳 400
+     */
+    public BookChangePage getChanges(@Nullable String since, int limit) {
+        return getChanges(since == null ? BookChangeCursor.START : BookChangeCursor.decode(since), limit);
+    }
+
+    /**
+     * 讀取游標之後的異動，多查一筆用來判斷是否還有尚未讀取的異動
+     */
+    public BookChangePage getChanges(BookChangeCursor after, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        List<BookChange> changes = bookChangeRepository.findAfter(after.txid(), after.bookId(), pageSize + 1);
+        boolean hasMore = changes.size() > pageSize;
+        if (hasMore) {
+            changes = changes.subList(0, pageSize);
+        }
+        BookChangeCursor nextCursor = changes.isEmpty() ? after : BookChangeCursor.of(changes.getLast());
+        log.debug("讀取書本異動，after: {}, 筆數: {}, hasMore: {}", after, changes.size(), hasMore);
+        return new BookChangePage(changes, nextCursor, hasMore);
+    }
+
+    /**
+     * 目前最後一筆可讀取的異動位置，從這裡開始讀取只會取得之後的異動
+     */
+    public BookChangeCursor currentCursor() {
+        BookChange latest = bookChangeRepository.findLatest();
+        return latest == null ? BookChangeCursor.START : BookChangeCursor.of(latest);
+    }
+}
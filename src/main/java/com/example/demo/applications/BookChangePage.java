@@ -0,0 +1,15 @@
+package com.example.demo.applications;
+
+import java.util.List;
+
+import com.example.demo.models.BookChange;
+
+/**
+ * 書本異動的單頁結果
+ *
+ * @param changes    本頁異動，依 (txid, book_id) 遞增排序
+ * @param nextCursor 下一次讀取的游標；沒有異動時與本次的游標相同，用戶端保存後下次同步時帶入即可
+ * @param hasMore    是否還有尚未讀取的異動
+ */
+public record BookChangePage(List<BookChange> changes, BookChangeCursor nextCursor, boolean hasMore) {
+}
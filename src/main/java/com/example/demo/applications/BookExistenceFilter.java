@@ -0,0 +1,179 @@
+package com.example.demo.applications;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.config.BloomFilterProperties;
+import com.example.demo.infrastructure.cache.BloomFilter;
+import com.example.demo.infrastructure.repositories.BookRepository;
+import com.example.demo.infrastructure.repositories.BookRepository.BookIdentity;
+import com.example.demo.models.Book;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 書本存在性過濾器
+ * 以 Bloom filter 記錄所有已知的書本 ID 與 ISBN，讓「一定不存在」的查詢不必經過快取與資料庫
+ *
+ * 1. 啟動完成後在背景以資料庫游標載入所有書本的 ID 與 ISBN，載入完成前一律視為「可能存在」
+ * 2. 新增書本時除了加入本地過濾器，也透過 Redis pub/sub 通知其他節點；批次新增每 1000 筆合併為一則通知
+ * 3. 刪除的書本不會從過濾器移除，只會落到負向快取，重新啟動或大量匯入後才會重建
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookExistenceFilter implements MessageListener {
+
+    private static final String DELIMITER = "|";
+    private static final String ENTRY_SEPARATOR = "\n";
+    private static final String REBUILD = "REBUILD";
+    private static final int ENTRIES_PER_MESSAGE = 1000;
+
+    private final BloomFilterProperties properties;
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer cacheInvalidationListenerContainer;
+
+    private volatile boolean ready;
+    private volatile BloomFilter ids;
+    private volatile BloomFilter isbns;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        cacheInvalidationListenerContainer.addMessageListener(this, new ChannelTopic(properties.getChannel()));
+        Thread.ofVirtual().name("book-bloom-filter-loader").start(this::rebuild);
+    }
+
+    /**
+     * 從資料庫重建過濾器
+     * 先換上空的過濾器再開始載入，載入期間收到的新增通知也會寫入新的過濾器，不會遺漏
+     */
+    public synchronized void rebuild() {
+        ready = false;
+        BloomFilter newIds = new BloomFilter(properties.getExpectedInsertions(), properties.getFalsePositiveProbability());
+        BloomFilter newIsbns = new BloomFilter(properties.getExpectedInsertions(), properties.getFalsePositiveProbability());
+        ids = newIds;
+        isbns = newIsbns;
+        try {
+            LongAdder loaded = new LongAdder();
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<BookIdentity> books = bookRepository.streamAllIdentities()) {
+                    books.forEach(book -> {
+                        newIds.put(BloomFilter.hash(book.getId()));
+                        newIsbns.put(BloomFilter.hash(book.getIsbn()));
+                        loaded.increment();
+                    });
+                }
+            });
+            ready = true;
+            log.info("書本 Bloom filter 載入完成，共 {} 筆", loaded.sum());
+        } catch (RuntimeException ex) {
+            log.warn("書本 Bloom filter 載入失敗，所有查詢將直接走快取與資料庫", ex);
+        }
+    }
+
+    /**
+     * 指定 ID 的書本是否可能存在，未啟用或尚未載入完成時一律回傳 true
+     */
+    public boolean mightContainId(@Nullable Integer id) {
+        return !ready || id == null || ids.mightContain(BloomFilter.hash(id));
+    }
+
+    /**
+     * 指定 ISBN 的書本是否可能存在，未啟用或尚未載入完成時一律回傳 true
+     */
+    public boolean mightContainIsbn(@Nullable String isbn) {
+        return !ready || isbn == null || isbns.mightContain(BloomFilter.hash(isbn));
+    }
+
+    /**
+     * 批次記錄新增的書本，每 {@value #ENTRIES_PER_MESSAGE} 筆合併成一則通知發送給其他節點
+     */
+    public void addAll(Collection<Book> books) {
+        if (!properties.isEnabled() || books.isEmpty()) {
+            return;
+        }
+        books.forEach(book -> addLocal(book.getId(), book.getIsbn()));
+        List<Book> entries = List.copyOf(books);
+        for (int from = 0; from < entries.size(); from += ENTRIES_PER_MESSAGE) {
+            publish(entries.subList(from, Math.min(from + ENTRIES_PER_MESSAGE, entries.size())).stream()
+                    .map(book -> book.getId() + DELIMITER + book.getIsbn())
+                    .collect(Collectors.joining(ENTRY_SEPARATOR)));
+        }
+    }
+
+    /**
+     * 通知所有節點 (包含自己) 從資料庫重建過濾器，用於大量匯入之後
+     * 通知發送失敗時至少重建本地的過濾器
+     */
+    public void rebuildAll() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(properties.getChannel(), REBUILD);
+        } catch (RuntimeException ex) {
+            log.warn("Bloom filter 重建通知發送失敗，只重建本地過濾器", ex);
+            Thread.ofVirtual().name("book-bloom-filter-loader").start(this::rebuild);
+        }
+    }
+
+    private void publish(String message) {
+        try {
+            stringRedisTemplate.convertAndSend(properties.getChannel(), message);
+        } catch (RuntimeException ex) {
+            log.warn("Bloom filter 新增通知發送失敗，其他節點在重建前可能誤判書本不存在", ex);
+        }
+    }
+
+    /**
+     * 通知格式：每行一筆 {ID}|{ISBN}，或是 REBUILD 表示需要重建
+     */
+    @Override
+    public void onMessage(Message message, @Nullable byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (REBUILD.equals(body)) {
+            Thread.ofVirtual().name("book-bloom-filter-loader").start(this::rebuild);
+            return;
+        }
+        for (String entry : body.split(ENTRY_SEPARATOR)) {
+            String[] parts = entry.split("\\|", 2);
+            if (parts.length == 2) {
+                addLocal(Integer.valueOf(parts[0]), parts[1]);
+            }
+        }
+    }
+
+    /**
+     * 只記錄到本節點的過濾器，不通知其他節點
+     * 寫入端在請求中呼叫，讓同一節點之後的查詢立即看得到新書本；其他節點由 outbox relay 呼叫 {@link #addAll} 同步
+     */
+    public void addLocal(Integer id, String isbn) {
+        BloomFilter currentIds = ids;
+        BloomFilter currentIsbns = isbns;
+        if (currentIds != null && currentIsbns != null) {
+            currentIds.put(BloomFilter.hash(id));
+            currentIsbns.put(BloomFilter.hash(isbn));
+        }
+    }
+}
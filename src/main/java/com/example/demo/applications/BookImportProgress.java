@@ -0,0 +1,112 @@
+package com.example.demo.applications;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.demo.infrastructure.repositories.BookBulkRepository.Format;
+
+/**
+ * 書本匯入工作的執行進度
+ * 由背景執行緒更新、API 執行緒讀取，所有欄位皆可安全地跨執行緒存取
+ */
+public class BookImportProgress {
+
+    public enum Status {
+        /** 已接受上傳，等待執行 */
+        QUEUED,
+        /** 以 COPY 寫入暫存表中 */
+        STAGING,
+        /** 合併至書本資料表中 */
+        MERGING,
+        /** 匯入完成 */
+        COMPLETED,
+        /** 匯入失敗，已全部回滾 */
+        FAILED
+    }
+
+    private final UUID jobId = UUID.randomUUID();
+    private final Format format;
+    private final AtomicLong rowsStaged = new AtomicLong();
+    private volatile long rowsMerged;
+    private volatile Status status = Status.QUEUED;
+    private volatile OffsetDateTime startedAt;
+    private volatile OffsetDateTime finishedAt;
+    private volatile String error;
+
+    BookImportProgress(Format format) {
+        this.format = format;
+    }
+
+    void start() {
+        startedAt = OffsetDateTime.now();
+        status = Status.STAGING;
+    }
+
+    void addRowsStaged(long rows) {
+        rowsStaged.addAndGet(rows);
+    }
+
+    void merging(long stagedRows) {
+        rowsStaged.set(stagedRows);
+        status = Status.MERGING;
+    }
+
+    void completed(long mergedRows) {
+        rowsMerged = mergedRows;
+        finishedAt = OffsetDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    void failed(String reason) {
+        error = reason;
+        finishedAt = OffsetDateTime.now();
+        status = Status.FAILED;
+    }
+
+    public UUID getJobId() {
+        return jobId;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getRowsStaged() {
+        return rowsStaged.get();
+    }
+
+    public long getRowsMerged() {
+        return rowsMerged;
+    }
+
+    public OffsetDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public OffsetDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * 從開始執行到目前 (或完成時) 的平均每秒寫入暫存表列數
+     */
+    public double getRowsPerSecond() {
+        OffsetDateTime start = startedAt;
+        if (start == null) {
+            return 0;
+        }
+        OffsetDateTime end = finishedAt != null ? finishedAt : OffsetDateTime.now();
+        long millis = Math.max(1, Duration.between(start, end).toMillis());
+        return rowsStaged.get() * 1000.0 / millis;
+    }
+}
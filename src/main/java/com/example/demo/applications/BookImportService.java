@@ -0,0 +1,112 @@
+package com.example.demo.applications;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.infrastructure.repositories.BookBulkRepository;
+import com.example.demo.infrastructure.repositories.BookBulkRepository.Format;
+import com.example.demo.models.Book;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 書本大量匯入服務
+ * 上傳內容先暫存在磁碟，再於 taskExecutor 上以 COPY 寫入暫存表並合併至書本資料表；
+ * 整個匯入在單一交易中完成，失敗時全部回滾；合併時同時寫入 outbox 事件，
+ * 匯入的書本與一般寫入一樣會發布到 Redis stream，並由 relay 同步到所有節點的 Bloom filter
+ *
+ * 工作進度只保存在本節點記憶體中，完成後保留 24 小時
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookImportService {
+
+    private static final Duration JOB_RETENTION = Duration.ofHours(24);
+
+    private final BookBulkRepository bookBulkRepository;
+    private final BookCacheInvalidator bookCacheInvalidator;
+    private final BookCatalogVersion bookCatalogVersion;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor taskExecutor;
+
+    private final Cache<UUID, BookImportProgress> jobs = Caffeine.newBuilder()
+            .maximumSize(1_000)
+            .expireAfterWrite(JOB_RETENTION)
+            .build();
+
+    /**
+     * 建立匯入工作並排入背景執行
+     *
+     * @param file   已上傳完成的匯入檔案，工作結束後會被刪除
+     * @param format 匯入檔案格式
+     * @return 工作進度
+     */
+    public BookImportProgress submit(Path file, Format format) {
+        BookImportProgress progress = new BookImportProgress(format);
+        jobs.put(progress.getJobId(), progress);
+        log.info("建立書本匯入工作，jobId: {}, format: {}", progress.getJobId(), format);
+        taskExecutor.execute(() -> runImport(progress, file));
+        return progress;
+    }
+
+    public Optional<BookImportProgress> getProgress(UUID jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId));
+    }
+
+    private void runImport(BookImportProgress progress, Path file) {
+        progress.start();
+        List<Book> touched = new ArrayList<>();
+        try (InputStream input = Files.newInputStream(file)) {
+            Long merged = transactionTemplate.execute(status -> {
+                long staged = bookBulkRepository.copyIntoStaging(input, progress.getFormat(),
+                        progress::addRowsStaged);
+                progress.merging(staged);
+                return bookBulkRepository.mergeStaging(progress.getFormat(), (isbn, id) -> {
+                    if (touched.size() <= BookCacheInvalidator.EVICT_ALL_THRESHOLD) {
+                        Book book = new Book();
+                        book.setId(id);
+                        book.setIsbn(isbn);
+                        touched.add(book);
+                    }
+                });
+            });
+            long mergedRows = merged == null ? 0 : merged;
+            if (mergedRows > BookCacheInvalidator.EVICT_ALL_THRESHOLD) {
+                bookCacheInvalidator.catalogReloaded();
+            } else {
+                bookCacheInvalidator.booksWritten(touched);
+            }
+            if (mergedRows > 0) {
+                bookCatalogVersion.increment();
+            }
+            progress.completed(mergedRows);
+            log.info("書本匯入完成，jobId: {}, 暫存 {} 列, 新增或更新 {} 筆, 平均每秒 {} 列", progress.getJobId(),
+                    progress.getRowsStaged(), mergedRows, Math.round(progress.getRowsPerSecond()));
+        } catch (IOException | RuntimeException ex) {
+            log.error("書本匯入失敗，jobId: {}", progress.getJobId(), ex);
+            progress.failed(NestedExceptionUtils.getMostSpecificCause(ex).getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ex) {
+                log.warn("刪除匯入暫存檔失敗: {}", file, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.applications;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.config.OutboxProperties;
+import com.example.demo.infrastructure.repositories.BookOutboxRepository;
+import com.example.demo.models.Book;
+import com.example.demo.models.BookChangeEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 書本異動事件 relay
+ * 定期從 outbox 批次取出事件，處理寫入後不需要同步完成的副作用：
+ * 1. 以單一 pipeline 將事件發布到 Redis stream，供其他服務訂閱，並在同一個 pipeline 中遞增目錄版本
+ * 2. 清除異動書本的快取，並將新增與更新的書本同步到所有節點的 Bloom filter
+ *
+ * 取出、發送與刪除在同一個交易中完成，發送失敗時交易回滾，事件留在 outbox 等待下次重試 (at-least-once)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class BookOutboxRelay {
+
+    private final BookOutboxRepository bookOutboxRepository;
+    private final BookCacheInvalidator bookCacheInvalidator;
+    private final BookExistenceFilter bookExistenceFilter;
+    private final BookCatalogVersion bookCatalogVersion;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties properties;
+    private final Counter relayedEvents;
+    private final Counter failedBatches;
+
+    public BookOutboxRelay(BookOutboxRepository bookOutboxRepository, BookCacheInvalidator bookCacheInvalidator,
+            BookExistenceFilter bookExistenceFilter, BookCatalogVersion bookCatalogVersion,
+            StringRedisTemplate stringRedisTemplate, TransactionTemplate transactionTemplate,
+            OutboxProperties properties, MeterRegistry meterRegistry) {
+        this.bookOutboxRepository = bookOutboxRepository;
+        this.bookCacheInvalidator = bookCacheInvalidator;
+        this.bookExistenceFilter = bookExistenceFilter;
+        this.bookCatalogVersion = bookCatalogVersion;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.relayedEvents = Counter.builder("book.outbox.relayed")
+                .description("已發送的書本異動事件數量")
+                .register(meterRegistry);
+        this.failedBatches = Counter.builder("book.outbox.failures")
+                .description("發送失敗、等待重試的批次數量")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 連續處理整批事件，直到 outbox 清空或達到單次檢查的批次上限
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval:200ms}")
+    public void relay() {
+        for (int batch = 0; batch < properties.getMaxBatchesPerPoll(); batch++) {
+            int relayed;
+            try {
+                relayed = Objects.requireNonNullElse(transactionTemplate.execute(status -> relayBatch()), 0);
+            } catch (RuntimeException ex) {
+                failedBatches.increment();
+                log.warn("書本異動事件發送失敗，將於下次檢查時重試", ex);
+                return;
+            }
+            if (relayed < properties.getBatchSize()) {
+                return;
+            }
+        }
+    }
+
+    private int relayBatch() {
+        List<BookChangeEvent> events = bookOutboxRepository.drain(properties.getBatchSize());
+        if (events.isEmpty()) {
+            return 0;
+        }
+        publish(events);
+        // 在交易中清除快取時，交易感知的快取管理器會延後到事件確定刪除後才執行
+        bookCacheInvalidator.evict(events.stream().map(BookChangeEvent::bookId).distinct().toList());
+        bookExistenceFilter.addAll(events.stream()
+                .filter(event -> event.type() != BookChangeEvent.Type.DELETED)
+                .map(BookOutboxRelay::toBook)
+                .toList());
+        relayedEvents.increment(events.size());
+        log.debug("已發送書本異動事件 {} 筆，最後事件 ID: {}", events.size(), events.getLast().id());
+        return events.size();
+    }
+
+    /**
+     * 以 XADD MAXLEN ~ 發布事件，整批事件共用一次網路往返；任一指令失敗都會拋出例外
+     * 目錄版本在同一個 pipeline 中遞增，失敗時隨事件一起重試，不會因為提交後的遞增遺失而讓列表持續回應 304
+     */
+    private void publish(List<BookChangeEvent> events) {
+        byte[] stream = properties.getStream().getBytes(StandardCharsets.UTF_8);
+        XAddOptions options = XAddOptions.maxlen(properties.getStreamMaxLength()).approximateTrimming(true);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (BookChangeEvent event : events) {
+                connection.streamCommands().xAdd(StreamRecords.rawBytes(toFields(event)).withStreamKey(stream),
+                        options);
+            }
+            bookCatalogVersion.increment(connection);
+            return null;
+        });
+    }
+
+    private static Map<byte[], byte[]> toFields(BookChangeEvent event) {
+        Map<byte[], byte[]> fields = new LinkedHashMap<>();
+        fields.put(bytes("eventId"), bytes(String.valueOf(event.id())));
+        fields.put(bytes("type"), bytes(event.type().name()));
+        fields.put(bytes("bookId"), bytes(String.valueOf(event.bookId())));
+        fields.put(bytes("isbn"), bytes(Objects.toString(event.isbn(), "")));
+        fields.put(bytes("occurredAt"), bytes(event.occurredAt().toString()));
+        return fields;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Book toBook(BookChangeEvent event) {
+        Book book = new Book();
+        book.setId(event.bookId());
+        book.setIsbn(event.isbn());
+        return book;
+    }
+}
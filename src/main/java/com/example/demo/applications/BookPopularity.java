@@ -0,0 +1,107 @@
+package com.example.demo.applications;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.config.CacheWarmUpProperties;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 書本熱門程度
+ * 以 Redis sorted set 記錄各書本的查詢次數，所有節點共用，供新啟動的節點預熱快取
+ *
+ * 1. 每次查詢只在本地的計數表累加，定期以單一 pipeline 將累計的次數 ZINCRBY 到 Redis
+ * 2. sorted set 只保留分數最高的 maxTracked 本書，大小固定，不會隨目錄成長
+ * 3. 每隔 decayInterval 由其中一個節點將所有分數乘上 decayFactor，過去的熱門書本會逐漸被近期的取代
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookPopularity {
+
+    private final CacheWarmUpProperties properties;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private volatile Map<Integer, LongAdder> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 記錄一次查詢，只寫入本地計數表；計數表的書本數量達到 maxTracked 後不再加入新的書本
+     */
+    public void record(Integer id) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Map<Integer, LongAdder> counts = pending;
+        LongAdder count = counts.get(id);
+        if (count == null) {
+            if (counts.size() >= properties.getMaxTracked()) {
+                return;
+            }
+            count = counts.computeIfAbsent(id, key -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    /**
+     * 將本地累計的次數寫入 Redis
+     * 換上新的計數表後才寫入，交換瞬間仍寫入舊表的少量次數會被忽略；Redis 發生錯誤時捨棄這一輪的次數
+     */
+    @Scheduled(fixedDelayString = "${app.cache-warm-up.flush-interval:5s}")
+    public void flush() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Map<Integer, LongAdder> counts = pending;
+        if (counts.isEmpty()) {
+            return;
+        }
+        pending = new ConcurrentHashMap<>();
+        byte[] key = properties.getPopularityKey().getBytes(StandardCharsets.UTF_8);
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                counts.forEach((id, count) -> connection.zSetCommands().zIncrBy(key, count.sum(),
+                        String.valueOf(id).getBytes(StandardCharsets.UTF_8)));
+                // 依分數遞增排序，移除排名在 maxTracked 之後的書本
+                connection.zSetCommands().zRemRange(key, 0, -(properties.getMaxTracked() + 1L));
+                return null;
+            });
+            decayIfDue();
+        } catch (RuntimeException ex) {
+            log.warn("書本熱門程度寫入 Redis 失敗，捨棄本輪 {} 本書的查詢次數", counts.size(), ex);
+        }
+    }
+
+    /**
+     * 取得最熱門的書本 ID，依熱門程度遞減排序
+     */
+    public List<Integer> topIds(int limit) {
+        Set<String> ids = stringRedisTemplate.opsForZSet().reverseRange(properties.getPopularityKey(), 0, limit - 1);
+        return ids == null ? List.of() : ids.stream().map(Integer::valueOf).toList();
+    }
+
+    /**
+     * 以 SET NX 搶到本輪衰減權的節點，以 ZUNIONSTORE WEIGHTS 就地將所有分數乘上 decayFactor
+     */
+    private void decayIfDue() {
+        String key = properties.getPopularityKey();
+        Boolean acquired = stringRedisTemplate.opsForValue().setIfAbsent(key + ":decay", "1",
+                properties.getDecayInterval());
+        if (Boolean.TRUE.equals(acquired)) {
+            stringRedisTemplate.opsForZSet().unionAndStore(key, List.of(), key, Aggregate.SUM,
+                    Weights.of(properties.getDecayFactor()));
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.demo.applications;
+
+import java.util.List;
+
+import com.example.demo.models.BookRow;
+
+/**
+ * 書本列表的單頁結果
+ *
+ * @param rows    本頁書本
+ * @param hasNext 是否還有下一頁
+ */
+public record BookRowPage(List<BookRow> rows, boolean hasNext) {
+}
@@ -0,0 +1,33 @@
+package com.example.demo.applications;
+
+import java.math.BigDecimal;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.lang.Nullable;
+
+import com.example.demo.infrastructure.repositories.BookSpecifications.SortField;
+
+/**
+ * 書本搜尋條件
+ *
+ * @param authorPrefix    作者名稱前綴
+ * @param publishYearFrom 出版年份下限 (含)
+ * @param publishYearTo   出版年份上限 (含)
+ * @param minPrice        價格下限 (含)
+ * @param maxPrice        價格上限 (含)
+ * @param sort            排序欄位
+ * @param direction       排序方向
+ * @param limit           每頁筆數
+ * @param cursor          上一頁回傳的游標，null 表示第一頁
+ */
+public record BookSearchCriteria(
+        @Nullable String authorPrefix,
+        @Nullable Integer publishYearFrom,
+        @Nullable Integer publishYearTo,
+        @Nullable BigDecimal minPrice,
+        @Nullable BigDecimal maxPrice,
+        SortField sort,
+        Sort.Direction direction,
+        int limit,
+        @Nullable String cursor) {
+}
@@ -0,0 +1,56 @@
+package com.example.demo.applications;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.infrastructure.repositories.BookSpecifications.SortField;
+import com.example.demo.models.Book;
+
+/**
+ * 書本搜尋的 keyset 游標
+ * 記錄上一頁最後一筆在排序欄位上的值與 ID，編碼為 URL-safe Base64 字串：{排序欄位},{方向},{ID}[,{值}]，
+ * 值為空時省略，作者名稱可能含有逗號所以放在最後
+ *
+ * @param sort      產生游標時的排序欄位
+ * @param ascending 產生游標時是否為遞增排序
+ * @param id        上一頁最後一筆的 ID
+ * @param value     上一頁最後一筆在排序欄位上的值
+ */
+record BookSearchCursor(SortField sort, boolean ascending, Integer id, @Nullable Comparable<?> value) {
+
+    private static final String DELIMITER = ",";
+
+    static BookSearchCursor of(SortField sort, boolean ascending, Book last) {
+        return new BookSearchCursor(sort, ascending, last.getId(), sort.valueOf(last));
+    }
+
+    String encode() {
+        String raw = String.join(DELIMITER, sort.name(), ascending ? "A" : "D", String.valueOf(id));
+        if (value != null) {
+            raw += DELIMITER + (value instanceof BigDecimal price ? price.toPlainString() : value);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游標
+     *
+     * @throws ResponseStatusException 游標格式錯誤時回傳 400
+     */
+    static BookSearchCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(DELIMITER, 4);
+            SortField sort = SortField.valueOf(parts[0]);
+            return new BookSearchCursor(sort, "A".equals(parts[1]), Integer.valueOf(parts[2]),
+                    parts.length == 4 ? sort.parse(parts[3]) : null);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "游標格式錯誤", e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.applications;
+
+import java.util.List;
+
+import org.springframework.lang.Nullable;
+
+import com.example.demo.models.Book;
+
+/**
+ * 書本搜尋的單頁結果
+ *
+ * @param books      本頁書本
+ * @param nextCursor 下一頁的游標，沒有下一頁時為 null
+ */
+public record BookSearchPage(List<Book> books, @Nullable String nextCursor) {
+}
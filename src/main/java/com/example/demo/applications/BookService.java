@@ -1,27 +1,64 @@
 package com.example.demo.applications;
 
+import java.io.OutputStream;
 import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
+import org.springframework.cache.Cache.ValueWrapper;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import com.example.demo.applications.BookBatchItem.Status;
 import com.example.demo.config.CacheConfig;
+import com.example.demo.infrastructure.cache.TwoLevelCache;
+import com.example.demo.infrastructure.cache.TwoLevelCacheManager;
+import com.example.demo.infrastructure.repositories.BookBulkRepository;
+import com.example.demo.infrastructure.repositories.BookBulkRepository.Format;
+import com.example.demo.infrastructure.repositories.BookOutboxRepository;
 import com.example.demo.infrastructure.repositories.BookRepository;
+import com.example.demo.infrastructure.repositories.BookRowRepository;
+import com.example.demo.infrastructure.repositories.BookSpecifications;
 import com.example.demo.models.Book;
+import com.example.demo.models.BookChangeEvent;
+import com.example.demo.models.BookRow;
 
 import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * 書本服務類別
  * 提供書本相關的業務邏輯操作
+ *
+ * 新增、更新與刪除都會在同一個交易中寫入 outbox 事件，Redis stream 發布、跨節點 Bloom filter 同步
+ * 與批次寫入的快取清除由 {@link BookOutboxRelay} 非同步處理，請求執行緒不需等待這些網路操作
  */
 @Slf4j
 @Service
@@ -29,92 +66,470 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class BookService {
 
+    /**
+     * 分頁查詢單頁最大筆數
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * 全文檢索最多可查詢的頁數，更深的頁次以 OFFSET 掃描的成本過高
+     */
+    public static final int MAX_TEXT_SEARCH_PAGE = 50;
+
+    /**
+     * pg_trgm 以三個字元為一組建立索引，較短的查詢字串無法使用三元組索引
+     */
+    private static final int TRIGRAM_MIN_LENGTH = 3;
+
+    /**
+     * to_tsquery 語法中的特殊字元，組成查詢前需移除
+     */
+    private static final Pattern TSQUERY_SPECIAL_CHARACTERS = Pattern.compile("['\\\\:&|!()<>*]");
+
+    /**
+     * ISBN 唯一約束名稱，違反時回應 409
+     */
+    private static final String ISBN_UNIQUE_CONSTRAINT = "uk_isbn";
+
+    /**
+     * 未指定版本的部分更新遇到並行修改時最多嘗試的次數
+     */
+    private static final int PATCH_MAX_ATTEMPTS = 3;
+
     private final BookRepository bookRepository;
+    private final BookBulkRepository bookBulkRepository;
+    private final BookRowRepository bookRowRepository;
+    private final EntityManager entityManager;
+    private final BookExistenceFilter bookExistenceFilter;
+    private final BookOutboxRepository bookOutboxRepository;
+    private final BookCatalogVersion bookCatalogVersion;
+    private final TwoLevelCacheManager cacheManager;
 
     /**
-     * 獲取所有書本
-     * 不使用快取，每次都從資料庫查詢
+     * 以 keyset 分頁方式獲取書本
+     * 不使用快取，每次都從資料庫查詢；多查一筆用來判斷是否還有下一頁
+     * 以 JDBC 投影直接取得資料列，不建立 Hibernate 實體
+     * 啟用唯讀副本時，此查詢仍使用主資料庫 (非唯讀交易)：回應以目錄版本作為 ETag，
+     * 若從延遲中的副本載入，舊資料會被標上新版本，之後的條件式請求都會誤判為 304
+     *
+     * @param after 游標，只回傳 ID 大於此值的書本，null 表示從頭開始
+     * @param limit 每頁筆數，會被限制在 1 到 {@link #MAX_PAGE_SIZE} 之間
      */
+    @Transactional
     @Observed(name = "book.catalog.browse", contextualName = "書本目錄瀏覽", lowCardinalityKeyValues = { "operation",
-            "list_all", "source", "database" })
-    public List<Book> getAllBooks() {
-        log.info("從資料庫獲取所有書本");
-        return bookRepository.findAll();
+            "list_page", "source", "database" })
+    public BookRowPage getBooks(Integer after, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        log.info("從資料庫分頁獲取書本，after: {}, limit: {}", after, pageSize);
+        List<BookRow> rows = bookRowRepository.findPage(after == null ? 0 : after, pageSize + 1);
+        boolean hasNext = rows.size() > pageSize;
+        return new BookRowPage(hasNext ? rows.subList(0, pageSize) : rows, hasNext);
+    }
+
+    /**
+     * 搜尋書本
+     * 以 Specification 組合查詢條件，依排序欄位與 ID 進行 keyset 分頁；多查一筆用來判斷是否還有下一頁
+     *
+     * @param criteria 搜尋條件，每頁筆數會被限制在 1 到 {@link #MAX_PAGE_SIZE} 之間
+     * @throws ResponseStatusException 游標無效或與排序方式不一致時回傳 400
+     */
+    @Observed(name = "book.catalog.search", contextualName = "書本搜尋", lowCardinalityKeyValues = { "operation",
+            "search", "source", "database" })
+    public BookSearchPage searchBooks(BookSearchCriteria criteria) {
+        int pageSize = Math.clamp(criteria.limit(), 1, MAX_PAGE_SIZE);
+        boolean ascending = criteria.direction().isAscending();
+        log.info("搜尋書本，條件: {}", criteria);
+
+        Specification<Book> filters = Specification.allOf(
+                BookSpecifications.authorStartsWith(criteria.authorPrefix()),
+                BookSpecifications.publishYearBetween(criteria.publishYearFrom(), criteria.publishYearTo()),
+                BookSpecifications.priceBetween(criteria.minPrice(), criteria.maxPrice()));
+        Specification<Book> spec = filters;
+        Specification<Book> following = null;
+        if (criteria.cursor() != null) {
+            BookSearchCursor cursor = BookSearchCursor.decode(criteria.cursor());
+            if (cursor.sort() != criteria.sort() || cursor.ascending() != ascending) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "游標與排序方式不一致");
+            }
+            spec = filters.and(BookSpecifications.after(criteria.sort(), criteria.direction(), cursor.value(),
+                    cursor.id()));
+            following = BookSpecifications.followingSegment(criteria.sort(), criteria.direction(), cursor.value());
+        }
+
+        Sort sort = BookSpecifications.sortBy(criteria.sort(), criteria.direction());
+        List<Book> books = bookRepository.findBy(spec, query -> query.sortBy(sort).limit(pageSize + 1).all());
+        if (books.size() <= pageSize && following != null) {
+            // 游標所在的空值或非空值區段不足一頁時，從下一個區段的開頭補齊，兩次查詢都是索引範圍掃描
+            int remaining = pageSize + 1 - books.size();
+            books = new ArrayList<>(books);
+            books.addAll(bookRepository.findBy(filters.and(following),
+                    query -> query.sortBy(sort).limit(remaining).all()));
+        }
+        if (books.size() <= pageSize) {
+            return new BookSearchPage(books, null);
+        }
+        List<Book> content = books.subList(0, pageSize);
+        Book last = content.get(pageSize - 1);
+        return new BookSearchPage(content, BookSearchCursor.of(criteria.sort(), ascending, last).encode());
+    }
+
+    /**
+     * 全文檢索書名與作者
+     * 查詢字串會依空白拆成關鍵字，每個關鍵字都以前綴比對；至少 3 個字元時另外以 pg_trgm 比對部分字串與拼字錯誤
+     *
+     * @Cacheable - 以正規化後的查詢字串與頁碼作為鍵值，熱門查詢直接由快取回應；
+     * sync = true 讓同一查詢同時只有一個請求會查詢資料庫
+     *
+     * @param query 查詢字串
+     * @param page  頁碼，從 0 開始
+     * @param size  每頁筆數
+     */
+    @Cacheable(cacheNames = CacheConfig.BOOK_SEARCH_CACHE,
+            key = "#query.strip().toLowerCase() + '|' + #page + '|' + #size", sync = true)
+    @Observed(name = "book.catalog.fulltext", contextualName = "書本全文檢索", lowCardinalityKeyValues = { "operation",
+            "fulltext_search", "cache_enabled", "true" })
+    public Slice<Book> searchBooksByText(String query, int page, int size) {
+        String text = query.strip();
+        Pageable pageable = PageRequest.of(page, size);
+        String tsquery = Arrays.stream(text.split("\\s+"))
+                .map(term -> TSQUERY_SPECIAL_CHARACTERS.matcher(term).replaceAll(""))
+                .filter(term -> !term.isEmpty())
+                .map(term -> "'" + term + "':*")
+                .collect(Collectors.joining(" & "));
+        if (tsquery.isEmpty()) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+        log.info("從資料庫全文檢索書本，query: {}, page: {}, size: {}", text, page, size);
+        List<Book> books = text.codePointCount(0, text.length()) < TRIGRAM_MIN_LENGTH
+                ? bookRepository.searchByKeywords(tsquery, size + 1, pageable.getOffset())
+                : bookRepository.searchByText(tsquery, text, "%" + escapeLike(text) + "%", size + 1,
+                        pageable.getOffset());
+        boolean hasNext = books.size() > size;
+        return new SliceImpl<>(new ArrayList<>(hasNext ? books.subList(0, size) : books), pageable, hasNext);
+    }
+
+    /**
+     * 串流所有書本
+     * 透過資料庫游標逐筆交給 consumer 處理，不建立 Hibernate 實體，記憶體用量維持固定
+     *
+     * @param consumer 每本書本的處理邏輯，會在交易內依 ID 遞增順序被呼叫
+     */
+    @Observed(name = "book.catalog.stream", contextualName = "書本目錄串流", lowCardinalityKeyValues = { "operation",
+            "stream_all", "source", "database" })
+    public void streamAllBooks(Consumer<BookRow> consumer) {
+        log.info("以資料庫游標串流所有書本");
+        bookRowRepository.streamAll(consumer);
+    }
+
+    /**
+     * 匯出所有書本
+     * 以 COPY TO STDOUT 由資料庫直接串流到輸出，不建立 Hibernate 實體，記憶體用量與資料量無關
+     *
+     * @param format 匯出格式
+     * @param output 輸出目標，由呼叫端負責關閉
+     * @return 匯出的資料列數
+     */
+    @Observed(name = "book.catalog.export", contextualName = "書本目錄匯出", lowCardinalityKeyValues = { "operation",
+            "export_all", "source", "database" })
+    public long exportBooks(Format format, OutputStream output) {
+        log.info("以 COPY 匯出所有書本，format: {}", format);
+        return bookBulkRepository.copyOut(format, output);
     }
 
     /**
      * 根據 ID 獲取書本
      * 
      * @Cacheable - 使用書本 ID 作為快取鍵值
+     * sync = true 讓快取以 single-flight 方式載入：同一本書同時只有一個請求會查詢資料庫，
+     * 其他請求等待同一個結果，避免更新後快取被清除時大量請求同時打到資料庫
+     * 回傳 Optional.empty() 時會以負向快取項目保存，重複查詢不存在的 ID 不會再打到資料庫
+     * condition - Bloom filter 判定一定不存在的 ID 完全跳過快取，也不查詢資料庫
+     *
+     * 啟用唯讀副本時，此查詢仍使用主資料庫 (非唯讀交易)：結果會被快取到下一次異動，
+     * 若從延遲中的副本載入，舊資料或「查無此書」會在快取清除後又被寫回快取
+     *
+     * 此方法是最熱門的讀取路徑，不使用 @Observed，由呼叫端以 FastPathObservation (book.details.view) 觀測
      */
-    @Cacheable(cacheNames = CacheConfig.BOOKS_CACHE, key = "'book_' + #id")
-    @Observed(name = "book.details.view", contextualName = "書本詳情查看", lowCardinalityKeyValues = { "operation",
-            "get_by_id", "cache_enabled", "true" })
-    public Book getBookById(Integer id) {
+    @Transactional
+    @Cacheable(cacheNames = CacheConfig.BOOKS_CACHE, key = "'book_' + #id", sync = true,
+            condition = "@bookExistenceFilter.mightContainId(#id)")
+    public Optional<Book> getBookById(Integer id) {
+        if (!bookExistenceFilter.mightContainId(id)) {
+            return Optional.empty();
+        }
         log.info("從資料庫獲取書本 ID: {}", id);
-        return bookRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到指定的書本"));
+        return bookRepository.findById(id);
+    }
+
+    /**
+     * 一次獲取多本書本，與逐筆呼叫 {@link #getBookById} 共用同一份快取
+     * 每一層只有一次往返：L1 批次查詢 → 未命中的以單一 MGET 查詢 L2 → 仍未命中的以單一 IN 查詢資料庫，
+     * 資料庫的結果 (包含查無此書) 再以單一 pipeline 寫回快取
+     *
+     * 與 getBookById 相同使用主資料庫；Bloom filter 判定一定不存在的 ID 不查詢快取與資料庫
+     *
+     * @param ids 書本 ID，重複的 ID 只查詢一次，最多 {@link #MAX_PAGE_SIZE} 個
+     * @return 以 ID 對應的書本，不存在的 ID 不會出現在結果中
+     * @throws ResponseStatusException ID 數量超過上限時回傳 400
+     */
+    @Transactional
+    @Observed(name = "book.details.batch", contextualName = "書本批次查看", lowCardinalityKeyValues = { "operation",
+            "get_by_ids", "cache_enabled", "true" })
+    public Map<Integer, Book> getBooksByIds(Collection<Integer> ids) {
+        if (ids.size() > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "一次最多查詢 " + MAX_PAGE_SIZE + " 本書");
+        }
+        List<Integer> candidates = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(bookExistenceFilter::mightContainId)
+                .toList();
+        TwoLevelCache cache = cacheManager.getTwoLevelCache(CacheConfig.BOOKS_CACHE);
+        Map<Object, ValueWrapper> cached = cache.getAll(candidates.stream().map(BookService::cacheKey).toList());
+        Map<Integer, Book> books = new HashMap<>();
+        List<Integer> misses = new ArrayList<>();
+        for (Integer id : candidates) {
+            ValueWrapper wrapper = cached.get(cacheKey(id));
+            if (wrapper == null) {
+                misses.add(id);
+            } else if (wrapper.get() instanceof Book book) {
+                books.put(id, book);
+            }
+        }
+        if (misses.isEmpty()) {
+            return books;
+        }
+        log.info("從資料庫批次獲取書本，筆數: {}", misses.size());
+        Map<Object, Object> loaded = new HashMap<>();
+        misses.forEach(id -> loaded.put(cacheKey(id), null));
+        for (Book book : bookRepository.findAllById(misses)) {
+            books.put(book.getId(), book);
+            loaded.put(cacheKey(book.getId()), book);
+        }
+        cache.putAll(loaded);
+        return books;
+    }
+
+    /**
+     * 書本快取的鍵值，與 {@link #getBookById} 的 @Cacheable 鍵值相同
+     */
+    private static String cacheKey(Integer id) {
+        return "book_" + id;
     }
 
     /**
      * 新增書本
-     * 不需要清除快取，因為不快取 all_books
+     * Bloom filter 判定 ISBN 一定不存在時省略 existsByIsbn 查詢，交由 uk_isbn 唯一約束把關
+     *
+     * @CacheEvict - 清除新書本 ID 的負向快取項目，避免先前查詢不存在時留下的結果遮蔽新資料
      */
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "'book_' + #result.id")
     @Observed(name = "book.inventory.add", contextualName = "書本庫存新增", lowCardinalityKeyValues = { "operation", "create",
             "business_impact", "high" })
     public Book createBook(Book book) {
         log.info("新增書本: {}", book.getTitle());
-        if (bookRepository.existsByIsbn(book.getIsbn())) {
+        if (bookExistenceFilter.mightContainIsbn(book.getIsbn()) && bookRepository.existsByIsbn(book.getIsbn())) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ISBN 已存在");
         }
-        book.setCreatedAt(OffsetDateTime.now());
-        book.setUpdatedAt(OffsetDateTime.now());
-        return bookRepository.save(book);
+        OffsetDateTime now = now();
+        book.setCreatedAt(now);
+        book.setUpdatedAt(now);
+        Book savedBook;
+        try {
+            savedBook = bookRepository.saveAndFlush(book);
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ISBN 已存在", e);
+        }
+        bookExistenceFilter.addLocal(savedBook.getId(), savedBook.getIsbn());
+        bookOutboxRepository.append(BookChangeEvent.Type.CREATED, List.of(savedBook));
+        bookCatalogVersion.increment();
+        return savedBook;
+    }
+
+    /**
+     * 批次新增或更新書本
+     * 1. 以單一 IN 查詢找出已存在的 ISBN，不逐筆呼叫 existsByIsbn
+     * 2. ID 由序列以 pooled optimizer 預先配置，新增的書本在交易提交時以 JDBC batch 寫入
+     * 3. 同一批次中重複的 ISBN 只處理第一筆，其餘回報 DUPLICATE
+     * 4. 異動的書本寫入 outbox，由 relay 清除快取 (包含新 ID 的負向快取項目) 並同步到其他節點
+     * 寫入時 ISBN 被其他請求搶先新增，或要更新的書本已被其他請求修改時，整批回滾並回應 409
+     *
+     * @param books  要寫入的書本
+     * @param upsert ISBN 已存在時是否更新既有書本，false 時回報 CONFLICT
+     * @return 依輸入順序排列的個別處理結果
+     */
+    @Transactional
+    @Observed(name = "book.inventory.batch", contextualName = "書本批次寫入", lowCardinalityKeyValues = { "operation",
+            "batch_upsert", "business_impact", "high" })
+    public List<BookBatchItem> saveBooks(List<Book> books, boolean upsert) {
+        log.info("批次寫入書本，筆數: {}, upsert: {}", books.size(), upsert);
+        Set<String> isbns = books.stream().map(Book::getIsbn).collect(Collectors.toSet());
+        Map<String, Book> existingBooks = bookRepository.findByIsbnIn(isbns).stream()
+                .collect(Collectors.toMap(Book::getIsbn, Function.identity()));
+
+        OffsetDateTime now = now();
+        Set<String> seen = new HashSet<>();
+        List<BookBatchItem> results = new ArrayList<>(books.size());
+        List<Book> created = new ArrayList<>();
+        List<Book> updated = new ArrayList<>();
+        for (int index = 0; index < books.size(); index++) {
+            Book book = books.get(index);
+            if (!seen.add(book.getIsbn())) {
+                results.add(new BookBatchItem(index, Status.DUPLICATE, book));
+                continue;
+            }
+            Book existingBook = existingBooks.get(book.getIsbn());
+            if (existingBook == null) {
+                book.setCreatedAt(now);
+                book.setUpdatedAt(now);
+                created.add(book);
+                results.add(new BookBatchItem(index, Status.CREATED, book));
+            } else if (upsert) {
+                existingBook.setTitle(book.getTitle());
+                existingBook.setAuthor(book.getAuthor());
+                existingBook.setPublishYear(book.getPublishYear());
+                existingBook.setPrice(book.getPrice());
+                existingBook.setUpdatedAt(now);
+                updated.add(existingBook);
+                results.add(new BookBatchItem(index, Status.UPDATED, existingBook));
+            } else {
+                results.add(new BookBatchItem(index, Status.CONFLICT, existingBook));
+            }
+        }
+
+        try {
+            bookRepository.saveAll(created);
+            bookRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "ISBN 已被其他請求寫入，請重試", e);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            // 要更新的書本在查詢之後被其他請求修改 (@Version 不一致)
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "書本已被其他請求修改，請重試", e);
+        }
+        created.forEach(book -> bookExistenceFilter.addLocal(book.getId(), book.getIsbn()));
+        bookOutboxRepository.append(BookChangeEvent.Type.CREATED, created);
+        bookOutboxRepository.append(BookChangeEvent.Type.UPDATED, updated);
+        if (!created.isEmpty() || !updated.isEmpty()) {
+            bookCatalogVersion.increment();
+        }
+        return results;
     }
 
     /**
      * 更新書本
-     * 
+     * 以單一 UPDATE ... RETURNING 完成更新並寫入 outbox 事件，不需先查詢再儲存；
+     * ISBN 重複不再事先檢查，交由 uk_isbn 唯一約束把關並回應 409
+     *
      * @CacheEvict - 只清除被更新的特定書本快取
+     *
+     * @param expectedVersions 可接受的目前版本 (If-Match)，不符合時回應 412；null 表示不檢查
      */
     @Transactional
     @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "'book_' + #id")
     @Observed(name = "book.inventory.update", contextualName = "書本資訊更新", lowCardinalityKeyValues = { "operation",
             "update", "cache_evict", "single", "business_impact", "medium" })
-    public Book updateBook(Integer id, Book book) {
+    public Book updateBook(Integer id, Book book, Collection<Long> expectedVersions) {
         log.info("更新書本 ID: {}", id);
-        Book existingBook = bookRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到指定的書本"));
+        Optional<Book> updated;
+        try {
+            updated = expectedVersions == null
+                    ? bookRepository.updateById(id, book)
+                    : bookRepository.updateByIdAndVersionIn(id, book, expectedVersions);
+        } catch (DataIntegrityViolationException e) {
+            throw isbnConflict(e);
+        }
+        Book updatedBook = updated.orElseThrow(() -> expectedVersions != null && bookRepository.existsById(id)
+                ? new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "書本已被修改，請重新取得後再更新")
+                : new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到指定的書本"));
+        bookExistenceFilter.addLocal(id, updatedBook.getIsbn());
+        bookCatalogVersion.increment();
+        return updatedBook;
+    }
 
-        if (!existingBook.getIsbn().equals(book.getIsbn()) &&
-                bookRepository.existsByIsbn(book.getIsbn())) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ISBN 已存在");
+    /**
+     * 部分更新書本
+     * 讀取目前的書本後套用變更，再以讀到的版本做條件式更新；期間被其他請求修改時：
+     * 有指定 expectedVersions 回應 412，未指定則以最新的資料重新套用，最多重試 {@link #PATCH_MAX_ATTEMPTS} 次
+     *
+     * @CacheEvict - 只清除被更新的特定書本快取
+     *
+     * @param expectedVersions 可接受的目前版本 (If-Match)，不符合時回應 412；null 表示不檢查
+     * @param patch            套用在目前書本上的變更
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "'book_' + #id")
+    @Observed(name = "book.inventory.patch", contextualName = "書本資訊部分更新", lowCardinalityKeyValues = {
+            "operation", "patch", "cache_evict", "single", "business_impact", "medium" })
+    public Book patchBook(Integer id, Collection<Long> expectedVersions, Consumer<Book> patch) {
+        log.info("部分更新書本 ID: {}", id);
+        for (int attempt = 1; attempt <= PATCH_MAX_ATTEMPTS; attempt++) {
+            Book book = bookRepository.findById(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到指定的書本"));
+            if (expectedVersions != null && !expectedVersions.contains(book.getVersion())) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "書本已被修改，請重新取得後再更新");
+            }
+            // 脫離持久化內容，避免修改被自動 flush 成不帶版本條件的 UPDATE
+            entityManager.detach(book);
+            patch.accept(book);
+            Optional<Book> updated;
+            try {
+                updated = bookRepository.updateByIdAndVersionIn(id, book, List.of(book.getVersion()));
+            } catch (DataIntegrityViolationException e) {
+                throw isbnConflict(e);
+            }
+            if (updated.isPresent()) {
+                bookExistenceFilter.addLocal(id, updated.get().getIsbn());
+                bookCatalogVersion.increment();
+                return updated.get();
+            }
+            if (expectedVersions != null) {
+                throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "書本已被修改，請重新取得後再更新");
+            }
+            log.debug("書本 ID: {} 部分更新時版本已變更，第 {} 次重試", id, attempt);
         }
+        throw new ResponseStatusException(HttpStatus.CONFLICT, "書本正被頻繁修改，請稍後再試");
+    }
 
-        existingBook.setTitle(book.getTitle());
-        existingBook.setAuthor(book.getAuthor());
-        existingBook.setIsbn(book.getIsbn());
-        existingBook.setPrice(book.getPrice());
-        existingBook.setUpdatedAt(OffsetDateTime.now());
-        return bookRepository.save(existingBook);
+    /**
+     * 將 uk_isbn 唯一約束違反轉換為 409，其他資料完整性錯誤維持原樣
+     */
+    private static RuntimeException isbnConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        if (message != null && message.contains(ISBN_UNIQUE_CONSTRAINT)) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, "ISBN 已存在", e);
+        }
+        return e;
     }
 
     /**
      * 刪除書本
-     * 
+     * 在請求的交易中完成，書本不存在時直接回應 404；刪除事件寫入 outbox，由 relay 通知其他服務
+     *
      * @CacheEvict - 只清除被刪除的特定書本快取
      */
-    @Async
     @Transactional
     @CacheEvict(cacheNames = CacheConfig.BOOKS_CACHE, key = "'book_' + #id")
     @Observed(name = "book.inventory.remove", contextualName = "書本庫存移除", lowCardinalityKeyValues = { "operation",
-            "delete", "async", "true", "business_impact", "high" })
+            "delete", "business_impact", "high" })
     public void deleteBook(Integer id) {
         log.info("刪除書本 ID: {}", id);
-        if (!bookRepository.existsById(id)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到指定的書本");
-        }
-        bookRepository.deleteById(id);
+        Book book = bookRepository.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到指定的書本"));
+        bookRepository.delete(book);
+        bookOutboxRepository.append(BookChangeEvent.Type.DELETED, List.of(book));
+        bookCatalogVersion.increment();
+    }
+
+    /**
+     * 目前時間，截斷到 PostgreSQL timestamptz 的微秒精度
+     * 讓剛寫入的實體與之後從資料庫讀回的實體有相同的 updatedAt，以此產生的 ETag 才會一致
+     */
+    private static OffsetDateTime now() {
+        return OffsetDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 }
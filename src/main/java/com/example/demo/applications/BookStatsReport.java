@@ -0,0 +1,17 @@
+package com.example.demo.applications;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.example.demo.infrastructure.repositories.BookStatsRepository.Dimension;
+import com.example.demo.models.BookStats;
+
+/**
+ * 書本統計報表
+ *
+ * @param groupBy 統計維度
+ * @param totals  整個目錄的統計
+ * @param groups  各組的統計
+ */
+public record BookStatsReport(Dimension groupBy, BookStats totals, List<BookStats> groups) implements Serializable {
+}
@@ -0,0 +1,55 @@
+package com.example.demo.applications;
+
+import java.util.List;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.config.CacheConfig;
+import com.example.demo.infrastructure.repositories.BookStatsRepository;
+import com.example.demo.infrastructure.repositories.BookStatsRepository.Dimension;
+import com.example.demo.models.BookStats;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 書本統計服務
+ * 統計由資料庫觸發程序在每次寫入時以差異更新 (包含批次寫入與 COPY 匯入)，查詢只讀取彙總後的資料列；
+ * 結果再以目錄版本 ({@link BookCatalogVersion}) 作為快取鍵值的一部分，版本改變前直接由快取回應
+ *
+ * 不使用唯讀交易：統計以目錄版本快取到下一次異動，若從延遲中的副本載入，舊的統計會以新版本被快取
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookStatsService {
+
+    /**
+     * 單次查詢最多回傳的組數
+     */
+    public static final int MAX_GROUPS = 1000;
+
+    private final BookStatsRepository bookStatsRepository;
+
+    /**
+     * 取得書本統計
+     *
+     * @Cacheable - 以統計維度、筆數與目錄版本作為鍵值，書本異動後版本改變，舊的結果不會再被使用而由 TTL 淘汰；
+     * 無法取得目錄版本 (Redis 無法使用) 時不使用快取
+     *
+     * @param groupBy        統計維度
+     * @param limit          最多回傳的組數
+     * @param catalogVersion 目前的目錄版本，無法取得時為 null
+     */
+    @Cacheable(cacheNames = CacheConfig.BOOK_STATS_CACHE,
+            key = "#groupBy + '|' + #limit + '|' + #catalogVersion", condition = "#catalogVersion != null",
+            sync = true)
+    public BookStatsReport getStats(Dimension groupBy, int limit, @Nullable Long catalogVersion) {
+        int size = Math.clamp(limit, 1, MAX_GROUPS);
+        log.info("從資料庫獲取書本統計，groupBy: {}, limit: {}, 目錄版本: {}", groupBy, size, catalogVersion);
+        List<BookStats> groups = bookStatsRepository.findGroups(groupBy, size);
+        return new BookStatsReport(groupBy, bookStatsRepository.findTotals(), groups);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 書本 Bloom filter 配置屬性
+ * 對應 application.yml 中 app.bloom-filter 區段
+ */
+@Data
+@ConfigurationProperties(prefix = "app.bloom-filter")
+public class BloomFilterProperties {
+
+    /**
+     * 是否啟用 Bloom filter 預先檢查
+     * 其他節點要等 outbox relay 同步新增的書本後才會加入過濾器，在此之前查詢新書本 ID 會回應 404
+     */
+    private boolean enabled = false;
+
+    /**
+     * 預期的書本數量
+     */
+    private long expectedInsertions = 1_000_000;
+
+    /**
+     * 可接受的誤判率
+     */
+    private double falsePositiveProbability = 0.01;
+
+    /**
+     * 跨節點同步新增書本使用的 Redis pub/sub 頻道
+     */
+    private String channel = "demo:books:bloom-filter";
+}
@@ -0,0 +1,74 @@
+package com.example.demo.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.example.demo.infrastructure.jdbc.BulkheadDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 資料庫連線 bulkhead 配置類別
+ * 將自動配置的 DataSource 包裝為 {@link BulkheadDataSource}，JPA、JdbcTemplate 與 Liquibase 都會經過同一個 bulkhead
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(BulkheadProperties.class)
+@ConditionalOnProperty(prefix = "app.bulkhead", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class BulkheadConfig {
+
+    /**
+     * 必須宣告為 static，BeanPostProcessor 才能在其他 Bean 建立前註冊
+     */
+    @Bean
+    static BeanPostProcessor bulkheadDataSourcePostProcessor(ObjectProvider<BulkheadProperties> properties,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BulkheadDataSourcePostProcessor(properties, meterRegistry);
+    }
+
+    /**
+     * 在其他 DataSource 包裝 (例如唯讀副本路由) 之前執行，bulkhead 只包住實際的連線池
+     */
+    @RequiredArgsConstructor
+    static class BulkheadDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+
+        static final int ORDER = Ordered.LOWEST_PRECEDENCE - 100;
+
+        private final ObjectProvider<BulkheadProperties> properties;
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource) || bean instanceof BulkheadDataSource) {
+                return bean;
+            }
+            BulkheadProperties bulkhead = properties.getObject();
+            int maxConcurrentCalls = bulkhead.getMaxConcurrentCalls();
+            if (maxConcurrentCalls <= 0 && dataSource instanceof HikariDataSource hikari) {
+                maxConcurrentCalls = hikari.getMaximumPoolSize();
+            }
+            if (maxConcurrentCalls <= 0) {
+                return bean;
+            }
+            log.info("資料庫連線 bulkhead 已啟用，DataSource: {}, 同時借出上限: {}, 等待上限: {}", beanName,
+                    maxConcurrentCalls, bulkhead.getMaxWait());
+            return new BulkheadDataSource(dataSource, maxConcurrentCalls, bulkhead.getMaxWait(),
+                    bulkhead.getRetryAfter(), meterRegistry.getObject());
+        }
+
+        @Override
+        public int getOrder() {
+            return ORDER;
+        }
+    }
+}
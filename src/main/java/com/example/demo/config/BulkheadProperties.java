@@ -0,0 +1,36 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 資料庫連線 bulkhead 配置屬性
+ * 對應 application.yml 中 app.bulkhead 區段
+ */
+@Data
+@ConfigurationProperties(prefix = "app.bulkhead")
+public class BulkheadProperties {
+
+    /**
+     * 是否啟用資料庫連線 bulkhead
+     */
+    private boolean enabled = true;
+
+    /**
+     * 同時借出的連線上限，0 表示與 Hikari 連線池的 maximum-pool-size 相同
+     */
+    private int maxConcurrentCalls = 0;
+
+    /**
+     * 等待連線許可的上限，超過即拒絕並回應 503；應遠小於 Hikari 的 connection-timeout
+     */
+    private Duration maxWait = Duration.ofMillis(200);
+
+    /**
+     * 拒絕時透過 Retry-After 標頭建議用戶端等待的時間
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
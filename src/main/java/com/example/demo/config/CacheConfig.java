@@ -1,23 +1,88 @@
 package com.example.demo.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import com.example.demo.infrastructure.cache.TwoLevelCacheManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
 
 /**
  * 快取配置類別
  * 使用 @EnableCaching 啟用 Spring 的快取功能
- * 
- * 注意：
- * 1. Spring Boot 會自動配置預設的 ConcurrentMapCacheManager
- * 2. 在生產環境中，建議在 application.yml 中配置 Redis 等分散式快取
+ *
+ * 採用兩層快取架構：
+ * 1. L1：JVM 內的 Caffeine 近端快取，有容量上限與 TTL，命中時不需要網路往返
+ * 2. L2：Redis 共用快取，讓多個 Pod 共享已載入的資料
+ * 3. 清除時透過 Redis pub/sub 通知其他 Pod 清除各自的 L1
+ * 4. 快取管理器為交易感知模式，@CacheEvict 會在交易提交後才執行，避免讀到未提交前的舊資料
  */
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties({ TwoLevelCacheProperties.class, BloomFilterProperties.class })
 public class CacheConfig {
-    
+
     /**
      * 書本快取的名稱常量
      * 用於在 @Cacheable 和 @CacheEvict 註解中引用
      */
     public static final String BOOKS_CACHE = "books";
-} 
\ No newline at end of file
+
+    /**
+     * 全文檢索結果快取的名稱常量
+     * 書本異動時不會清除，只依較短的存活時間過期
+     */
+    public static final String BOOK_SEARCH_CACHE = "book-search";
+
+    /**
+     * 書本統計快取的名稱常量
+     * 鍵值包含目錄版本，書本異動後自然改用新的鍵值
+     */
+    public static final String BOOK_STATS_CACHE = "book-stats";
+
+    /**
+     * L2 快取專用的 RedisTemplate
+     * 鍵值使用字串，內容使用 JDK 序列化，並指定應用程式的 ClassLoader 以相容 devtools 重新載入
+     */
+    @Bean
+    public RedisTemplate<String, Object> cacheRedisTemplate(RedisConnectionFactory connectionFactory,
+            ResourceLoader resourceLoader) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(StringRedisSerializer.UTF_8);
+        template.setValueSerializer(new JdkSerializationRedisSerializer(resourceLoader.getClassLoader()));
+        return template;
+    }
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisTemplate<String, Object> cacheRedisTemplate,
+            StringRedisTemplate stringRedisTemplate, TwoLevelCacheProperties properties,
+            MeterRegistry meterRegistry) {
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(cacheRedisTemplate, stringRedisTemplate,
+                properties, meterRegistry);
+        cacheManager.setTransactionAware(true);
+        return cacheManager;
+    }
+
+    /**
+     * 訂閱跨節點快取失效通知
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+            TwoLevelCacheManager cacheManager, TwoLevelCacheProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(properties.getInvalidationChannel()));
+        return container;
+    }
+}
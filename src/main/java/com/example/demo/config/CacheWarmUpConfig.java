@@ -0,0 +1,35 @@
+package com.example.demo.config;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.demo.applications.BookCacheWarmer;
+
+/**
+ * 書本快取預熱配置類別
+ * 註冊 cacheWarmUp 健康指標並加入 readiness 群組 (management.endpoint.health.group.readiness)，
+ * 預熱完成或逾時前 readiness 回報 OUT_OF_SERVICE，Kubernetes 不會將流量導向新的 Pod
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(CacheWarmUpProperties.class)
+public class CacheWarmUpConfig {
+
+    @Bean
+    public HealthIndicator cacheWarmUpHealthIndicator(BookCacheWarmer bookCacheWarmer) {
+        return () -> {
+            BookCacheWarmer.State state = bookCacheWarmer.getState();
+            Health.Builder health = state.isFinished() ? Health.up() : Health.outOfService();
+            health.withDetail("state", state);
+            BookCacheWarmer.Result result = bookCacheWarmer.getResult();
+            if (result != null) {
+                health.withDetail("requested", result.requested())
+                        .withDetail("loaded", result.loaded())
+                        .withDetail("duration", result.duration().toString());
+            }
+            return health.build();
+        };
+    }
+}
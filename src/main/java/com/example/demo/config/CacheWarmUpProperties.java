@@ -0,0 +1,66 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 書本快取預熱配置屬性
+ * 對應 application.yml 中 app.cache-warm-up 區段
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache-warm-up")
+public class CacheWarmUpProperties {
+
+    /**
+     * 是否記錄書本熱門程度並在啟動時預熱快取，停用時 readiness 不會等待預熱
+     */
+    private boolean enabled = true;
+
+    /**
+     * 啟動時預熱的熱門書本數量
+     */
+    private int topN = 1000;
+
+    /**
+     * 每批預熱的書本數量，未命中 L2 的書本以單一 IN 查詢載入
+     */
+    private int batchSize = 100;
+
+    /**
+     * 同時處理的批次數，限制預熱期間佔用的資料庫連線數
+     */
+    private int parallelism = 4;
+
+    /**
+     * 預熱的時間上限，超過時放棄剩餘的批次並讓 readiness 轉為 UP
+     */
+    private Duration timeout = Duration.ofSeconds(30);
+
+    /**
+     * 記錄書本熱門程度的 Redis sorted set
+     */
+    private String popularityKey = "demo:books:popularity";
+
+    /**
+     * 將本地累計的查詢次數寫入 Redis 的間隔
+     */
+    private Duration flushInterval = Duration.ofSeconds(5);
+
+    /**
+     * sorted set 最多保留的書本數量，只保留分數最高的部分
+     */
+    private int maxTracked = 10_000;
+
+    /**
+     * 熱門程度衰減的間隔，每次將所有分數乘上 decayFactor，讓過去的熱門書本逐漸退出
+     */
+    private Duration decayInterval = Duration.ofHours(1);
+
+    /**
+     * 每次衰減乘上的係數
+     */
+    private double decayFactor = 0.5;
+}
@@ -0,0 +1,13 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 書本增量同步配置類別
+ * 排程已由 {@link OutboxConfig} 啟用，SSE 的輪詢共用同一個排程器
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ChangeFeedProperties.class)
+public class ChangeFeedConfig {
+}
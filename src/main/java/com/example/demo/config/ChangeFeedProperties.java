@@ -0,0 +1,46 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 書本增量同步配置屬性
+ * 對應 application.yml 中 app.change-feed 區段
+ */
+@Data
+@ConfigurationProperties(prefix = "app.change-feed")
+public class ChangeFeedProperties {
+
+    /**
+     * 檢查新異動的間隔，只在有 SSE 訂閱者時查詢資料庫
+     */
+    private Duration pollInterval = Duration.ofMillis(500);
+
+    /**
+     * 輪詢與訂閱者補讀時每次查詢的異動筆數
+     */
+    private int pageSize = 500;
+
+    /**
+     * 每個節點同時訂閱的用戶端上限，超過時回應 503
+     */
+    private int maxSubscribers = 200;
+
+    /**
+     * 每個訂閱者暫存的異動數量上限，超過時改由資料庫從該訂閱者的游標補讀
+     */
+    private int bufferSize = 1000;
+
+    /**
+     * 沒有異動時送出 heartbeat 註解的間隔，避免閒置的連線被代理伺服器中斷
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    /**
+     * SSE 連線的時間上限，逾時後用戶端以 Last-Event-ID 重新連線並從中斷處繼續
+     */
+    private Duration streamTimeout = Duration.ofMinutes(30);
+}
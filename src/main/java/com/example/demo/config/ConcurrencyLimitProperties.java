@@ -0,0 +1,95 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * REST 端點自適應並發限制配置屬性
+ * 對應 application.yml 中 app.concurrency-limit 區段
+ *
+ * 每個端點 (以 BooksApi 的方法名稱識別，例如 booksIdGet) 各自有一個限制器，
+ * 依觀察到的延遲自動調整並發上限，上下限可依端點個別設定
+ */
+@Data
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * 是否啟用自適應並發限制
+     */
+    private boolean enabled = true;
+
+    /**
+     * 可接受的延遲倍數，短期平均延遲在長期延遲的此倍數以內時不降低上限
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * 每次調整時新上限所佔的權重，越小調整越平滑
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * 統計延遲的時間窗，每個時間窗結束時調整一次上限
+     */
+    private Duration window = Duration.ofMillis(500);
+
+    /**
+     * 時間窗內至少要有的樣本數，不足時不調整上限
+     */
+    private int minWindowSamples = 10;
+
+    /**
+     * 長期延遲以指數移動平均計算，此值為平均涵蓋的時間窗數量
+     */
+    private int longWindow = 100;
+
+    /**
+     * 拒絕時透過 Retry-After 標頭建議用戶端等待的時間
+     */
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    /**
+     * 未個別設定的端點所使用的預設上下限
+     */
+    private Limits defaults = new Limits();
+
+    /**
+     * 依端點 (BooksApi 方法名稱) 個別設定的上下限
+     */
+    private Map<String, Limits> endpoints = new LinkedHashMap<>();
+
+    /**
+     * 取得指定端點的上下限，未設定時使用預設值
+     */
+    public Limits limitsOf(String endpoint) {
+        return endpoints.getOrDefault(endpoint, defaults);
+    }
+
+    /**
+     * 單一端點的並發上限設定
+     */
+    @Data
+    public static class Limits {
+
+        /**
+         * 啟動時的並發上限
+         */
+        private int initialLimit = 20;
+
+        /**
+         * 並發上限的下限，延遲再高也至少保留這麼多並發
+         */
+        private int minLimit = 4;
+
+        /**
+         * 並發上限的上限
+         */
+        private int maxLimit = 200;
+    }
+}
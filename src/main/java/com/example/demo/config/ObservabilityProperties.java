@@ -0,0 +1,21 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 觀測配置屬性
+ * 對應 application.yml 中 app.observability 區段
+ */
+@Data
+@ConfigurationProperties(prefix = "app.observability")
+public class ObservabilityProperties {
+
+    /**
+     * 熱門讀取路徑 (GET /books/{id}) 是否使用快速路徑：
+     * 只有被追蹤取樣的請求才建立 span、設定 baggage 並記錄請求日誌，其餘請求只記錄 Timer
+     * 停用時每個請求都建立完整的觀測
+     */
+    private boolean fastPath = true;
+}
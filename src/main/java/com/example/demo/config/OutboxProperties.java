@@ -0,0 +1,46 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 書本異動事件 outbox 配置屬性
+ * 對應 application.yml 中 app.outbox 區段
+ */
+@Data
+@ConfigurationProperties(prefix = "app.outbox")
+public class OutboxProperties {
+
+    /**
+     * 是否啟用 relay，停用時事件仍會寫入 outbox，留待其他節點處理
+     */
+    private boolean enabled = true;
+
+    /**
+     * outbox 清空後，下一次檢查的間隔
+     */
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    /**
+     * 每個交易最多取出的事件數量
+     */
+    private int batchSize = 500;
+
+    /**
+     * 每次檢查最多連續處理的批次數，避免積壓時長時間佔用排程執行緒
+     */
+    private int maxBatchesPerPoll = 20;
+
+    /**
+     * 書本異動事件發布的 Redis stream
+     */
+    private String stream = "demo:books:changes";
+
+    /**
+     * Redis stream 約略保留的事件數量，超過時以 MAXLEN ~ 修剪最舊的事件
+     */
+    private long streamMaxLength = 100_000;
+}
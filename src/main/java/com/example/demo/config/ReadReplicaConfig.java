@@ -0,0 +1,120 @@
+package com.example.demo.config;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.example.demo.infrastructure.jdbc.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 唯讀副本路由配置類別
+ * 將自動配置的 DataSource 包裝為 {@link ReplicaRoutingDataSource}，唯讀交易改由副本處理，寫入交易維持使用主資料庫
+ *
+ * 包裝順序在 bulkhead 之後：bulkhead 只限制主資料庫連線池，副本各自有獨立的連線池
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+@ConditionalOnProperty(prefix = "app.read-replica", name = "enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    /**
+     * 必須宣告為 static，BeanPostProcessor 才能在其他 Bean 建立前註冊
+     */
+    @Bean
+    static BeanPostProcessor replicaRoutingDataSourcePostProcessor(ObjectProvider<ReadReplicaProperties> properties,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ReplicaRoutingDataSourcePostProcessor(properties, meterRegistry);
+    }
+
+    @RequiredArgsConstructor
+    static class ReplicaRoutingDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<ReadReplicaProperties> properties;
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource primary) || bean instanceof ReplicaRoutingDataSource) {
+                return bean;
+            }
+            ReadReplicaProperties replicaProperties = properties.getObject();
+            if (replicaProperties.getReplicas().isEmpty()) {
+                log.warn("已啟用唯讀副本路由但未設定任何副本，所有查詢仍使用主資料庫");
+                return bean;
+            }
+            MeterRegistry registry = meterRegistry.getObject();
+            HikariDataSource primaryPool = unwrapHikari(primary);
+            List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+            for (int i = 0; i < replicaProperties.getReplicas().size(); i++) {
+                ReadReplicaProperties.Replica replica = replicaProperties.getReplicas().get(i);
+                String name = replica.getName() != null ? replica.getName() : "replica-" + i;
+                replicas.add(new ReplicaRoutingDataSource.Replica(name,
+                        createReplicaPool(name, replica, primaryPool, registry)));
+            }
+            log.info("唯讀副本路由已啟用，DataSource: {}, 副本: {}, 延遲上限: {}", beanName,
+                    replicas.stream().map(ReplicaRoutingDataSource.Replica::name).toList(),
+                    replicaProperties.getMaxLag());
+            return new ReplicaRoutingDataSource(primary, replicas, replicaProperties.getMaxLag(),
+                    replicaProperties.getHealthCheckInterval(), registry);
+        }
+
+        /**
+         * 在 bulkhead 之後執行
+         */
+        @Override
+        public int getOrder() {
+            return BulkheadConfig.BulkheadDataSourcePostProcessor.ORDER + 1;
+        }
+
+        /**
+         * 副本連線池；未設定帳號密碼時沿用主資料庫的設定，啟動時副本無法連線也不影響應用程式啟動
+         */
+        private static HikariDataSource createReplicaPool(String name, ReadReplicaProperties.Replica replica,
+                HikariDataSource primaryPool, MeterRegistry registry) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName(name);
+            config.setJdbcUrl(replica.getUrl());
+            config.setUsername(replica.getUsername() != null || primaryPool == null
+                    ? replica.getUsername()
+                    : primaryPool.getUsername());
+            config.setPassword(replica.getPassword() != null || primaryPool == null
+                    ? replica.getPassword()
+                    : primaryPool.getPassword());
+            config.setMaximumPoolSize(replica.getMaximumPoolSize());
+            config.setReadOnly(true);
+            config.setInitializationFailTimeout(-1);
+            if (primaryPool != null) {
+                config.setConnectionTimeout(primaryPool.getConnectionTimeout());
+            }
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            return new HikariDataSource(config);
+        }
+
+        private static HikariDataSource unwrapHikari(DataSource dataSource) {
+            try {
+                return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class)
+                        : null;
+            } catch (SQLException ex) {
+                return null;
+            }
+        }
+    }
+}
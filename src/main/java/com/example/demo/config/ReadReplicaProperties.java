@@ -0,0 +1,82 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 唯讀副本路由配置屬性
+ * 對應 application.yml 中 app.read-replica 區段
+ *
+ * 唯讀交易 (@Transactional(readOnly = true)) 依序輪流使用健康的副本，寫入交易一律使用主資料庫
+ */
+@Data
+@ConfigurationProperties(prefix = "app.read-replica")
+public class ReadReplicaProperties {
+
+    /**
+     * 是否啟用唯讀副本路由，停用時所有查詢都使用 spring.datasource
+     */
+    private boolean enabled = false;
+
+    /**
+     * 唯讀副本清單
+     */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /**
+     * 可接受的複寫延遲，超過時暫停使用該副本，直到追上為止
+     */
+    private Duration maxLag = Duration.ofSeconds(1);
+
+    /**
+     * 檢查副本連線與複寫延遲的間隔
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    /**
+     * 用戶端寫入後仍固定讀取主資料庫的時間 (read-your-writes)，應大於正常情況下的複寫延遲
+     */
+    private Duration stickyWindow = Duration.ofSeconds(5);
+
+    /**
+     * 記錄 read-your-writes 截止時間的 cookie 名稱，讓後續請求不論送到哪個 Pod 都能讀到自己的寫入
+     */
+    private String stickyCookieName = "db-primary-until";
+
+    /**
+     * 單一唯讀副本的連線設定
+     */
+    @Data
+    public static class Replica {
+
+        /**
+         * 副本名稱，用於指標與日誌，未設定時為 replica-{序號}
+         */
+        private String name;
+
+        /**
+         * JDBC 連線 URL
+         */
+        private String url;
+
+        /**
+         * 資料庫使用者名稱，未設定時與 spring.datasource.username 相同
+         */
+        private String username;
+
+        /**
+         * 資料庫密碼，未設定時與 spring.datasource.password 相同
+         */
+        private String password;
+
+        /**
+         * 副本連線池大小
+         */
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+import com.example.demo.infrastructure.jdbc.LiquibaseFingerprintPostProcessor;
+
+import jakarta.persistence.EntityManagerFactory;
+import liquibase.integration.spring.SpringLiquibase;
+
+/**
+ * 啟動最佳化配置類別
+ *
+ * 1. 資料庫結構已是最新時跳過 Liquibase (app.startup.skip-current-schema)
+ * 2. 啟用 spring.main.lazy-initialization 時，非必要的 bean (控制器、服務、訊息轉換器等) 延遲到第一次使用才建立，
+ *    但資料庫結構、JPA 與快取必須在 readiness 轉為 UP 之前就緒，不延遲建立；第一個請求會承擔其餘 bean 的建立時間
+ *
+ * 建置時的 AOT 處理與 CDS 封存檔請見 build.gradle 的 startup 建置設定
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(StartupProperties.class)
+public class StartupConfig {
+
+    /**
+     * BeanPostProcessor 在一般 bean 之前建立，尚未綁定 @ConfigurationProperties，因此直接從 Environment 綁定
+     * spring.liquibase.enabled=false 時 (例如 CDS 訓練執行) 不連線資料庫檢查指紋
+     */
+    @Bean
+    static LiquibaseFingerprintPostProcessor liquibaseFingerprintPostProcessor(Environment environment,
+            ResourceLoader resourceLoader) {
+        StartupProperties properties = Binder.get(environment)
+                .bindOrCreate("app.startup", StartupProperties.class);
+        boolean liquibaseEnabled = environment.getProperty("spring.liquibase.enabled", Boolean.class, true);
+        return new LiquibaseFingerprintPostProcessor(ResourcePatternUtils.getResourcePatternResolver(resourceLoader),
+                properties.isSkipCurrentSchema() && liquibaseEnabled);
+    }
+
+    @Bean
+    static LazyInitializationExcludeFilter criticalBeansLazyInitializationExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(SpringLiquibase.class, EntityManagerFactory.class,
+                AbstractEntityManagerFactoryBean.class, CacheManager.class);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 啟動最佳化配置屬性
+ * 對應 application.yml 中 app.startup 區段
+ */
+@Data
+@ConfigurationProperties(prefix = "app.startup")
+public class StartupProperties {
+
+    /**
+     * 資料庫已套用目前的 changelog 時跳過 Liquibase，不再解析 changelog 與驗證 checksum
+     */
+    private boolean skipCurrentSchema = true;
+}
@@ -0,0 +1,85 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * 兩層快取配置屬性
+ * 對應 application.yml 中 app.cache 區段
+ *
+ * L1 為 JVM 內的 Caffeine 近端快取，L2 為跨 Pod 共用的 Redis 快取
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+public class TwoLevelCacheProperties {
+
+    /**
+     * Redis 中快取鍵值的前綴，實際鍵值為 {前綴}{快取名稱}::{鍵值}
+     */
+    private String keyPrefix = "demo:cache:";
+
+    /**
+     * 跨節點快取失效通知使用的 Redis pub/sub 頻道
+     */
+    private String invalidationChannel = "demo:cache:invalidation";
+
+    /**
+     * 未個別設定的快取所使用的預設規格
+     */
+    private Spec defaults = new Spec();
+
+    /**
+     * 依快取名稱個別設定的規格，啟動時會預先建立這些快取
+     */
+    private Map<String, Spec> caches = new LinkedHashMap<>();
+
+    /**
+     * 取得指定快取的規格，未設定時使用預設規格
+     */
+    public Spec specOf(String cacheName) {
+        return caches.getOrDefault(cacheName, defaults);
+    }
+
+    /**
+     * 單一快取的容量與存活時間設定
+     */
+    @Data
+    public static class Spec {
+
+        /**
+         * L1 近端快取最大筆數，超過時依 Window TinyLFU 淘汰
+         */
+        private long localMaxSize = 10_000;
+
+        /**
+         * L1 近端快取寫入後的存活時間，應小於 L2 以縮短跨節點不一致的時間窗
+         */
+        private Duration localTtl = Duration.ofMinutes(5);
+
+        /**
+         * L2 Redis 快取寫入後的存活時間
+         */
+        private Duration remoteTtl = Duration.ofMinutes(30);
+
+        /**
+         * Soft TTL，設定後啟用 stale-while-revalidate：超過此時間的項目仍會回傳，
+         * 同時在背景重新載入；應小於 localTtl，未設定時停用
+         */
+        private Duration softTtl;
+
+        /**
+         * 負向快取 (查無資料的結果) 最多保留的筆數，與一般項目分開計算，避免惡意探測擠掉正常資料
+         */
+        private long negativeMaxSize = 10_000;
+
+        /**
+         * 負向快取的存活時間，L1 與 L2 共用，應設定得比一般項目短
+         */
+        private Duration negativeTtl = Duration.ofSeconds(30);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.config;
+
+import java.util.List;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.example.demo.interfaces.rest.BookProtobufHttpMessageConverter;
+import com.example.demo.interfaces.rest.BookRowListHttpMessageConverter;
+import com.example.demo.interfaces.rest.ConcurrencyLimitInterceptor;
+import com.example.demo.interfaces.rest.ReadYourWritesInterceptor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Web MVC 配置類別
+ * 在 BooksApi 端點前註冊自適應並發限制，啟用唯讀副本路由時另外註冊 read-your-writes
+ * 書本列表的 JSON、CBOR 與 Smile 由專用的 converter 直接寫出資料列，排在 Jackson 之前；
+ * Protobuf 只用於回應，加在最後
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties({ ConcurrencyLimitProperties.class, ReadReplicaProperties.class })
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ConcurrencyLimitProperties concurrencyLimitProperties;
+    private final ReadReplicaProperties readReplicaProperties;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final MappingJackson2CborHttpMessageConverter cborHttpMessageConverter;
+    private final MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (concurrencyLimitProperties.isEnabled()) {
+            registry.addInterceptor(new ConcurrencyLimitInterceptor(concurrencyLimitProperties, meterRegistry))
+                    .addPathPatterns("/**");
+        }
+        if (readReplicaProperties.isEnabled()) {
+            registry.addInterceptor(new ReadYourWritesInterceptor(readReplicaProperties))
+                    .addPathPatterns("/**");
+        }
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new BookRowListHttpMessageConverter(objectMapper, cborHttpMessageConverter.getObjectMapper(),
+                smileHttpMessageConverter.getObjectMapper()));
+        converters.add(new BookProtobufHttpMessageConverter());
+    }
+}
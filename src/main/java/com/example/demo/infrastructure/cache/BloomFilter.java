@@ -0,0 +1,78 @@
+package com.example.demo.infrastructure.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 執行緒安全的 Bloom filter
+ * 回傳 false 表示元素一定不存在，回傳 true 表示可能存在 (有一定誤判率)
+ *
+ * 採用 Kirsch-Mitzenmacher 雙重雜湊，以一個 64 位元雜湊值推導出 k 個位元位置；
+ * 位元陣列使用 AtomicLongArray，新增與查詢都不需要加鎖
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashFunctions;
+
+    /**
+     * @param expectedInsertions       預期放入的元素數量
+     * @param falsePositiveProbability 元素數量未超過預期時可接受的誤判率
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        long insertions = Math.max(1, expectedInsertions);
+        long optimalBits = (long) Math.ceil(-insertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray(Math.toIntExact(Math.max(1, (optimalBits + 63) >>> 6)));
+        this.bitSize = (long) bits.length() << 6;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / insertions * Math.log(2)));
+    }
+
+    public void put(long hash) {
+        long combined = hash;
+        long increment = Long.rotateLeft(hash, 32) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = (combined & Long.MAX_VALUE) % bitSize;
+            long mask = 1L << index;
+            bits.getAndAccumulate((int) (index >>> 6), mask, (word, bit) -> word | bit);
+            combined += increment;
+        }
+    }
+
+    public boolean mightContain(long hash) {
+        long combined = hash;
+        long increment = Long.rotateLeft(hash, 32) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = (combined & Long.MAX_VALUE) % bitSize;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+            combined += increment;
+        }
+        return true;
+    }
+
+    /**
+     * 整數鍵值的 64 位元雜湊 (MurmurHash3 fmix64)
+     */
+    public static long hash(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * 字串鍵值的 64 位元雜湊 (FNV-1a 再經 fmix64 打散)
+     */
+    public static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return hash(h);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.demo.infrastructure.cache;
+
+import java.io.Serializable;
+import java.time.Duration;
+
+/**
+ * 兩層快取中實際儲存的項目
+ * 除了快取值之外也記錄寫入時間，讓 L1 與 L2 能用同一個時間基準判斷是否已過 soft TTL
+ *
+ * @param value     快取值 (已經過 toStoreValue 轉換，null 會以 NullValue 表示)
+ * @param createdAt 寫入時間 (epoch 毫秒)
+ */
+record CacheEntry(Object value, long createdAt) implements Serializable {
+
+    static CacheEntry of(Object value) {
+        return new CacheEntry(value, System.currentTimeMillis());
+    }
+
+    /**
+     * 是否已超過 soft TTL，soft TTL 為 null 時表示未啟用 stale-while-revalidate
+     */
+    boolean isStale(Duration softTtl) {
+        return softTtl != null && System.currentTimeMillis() - createdAt > softTtl.toMillis();
+    }
+}
@@ -0,0 +1,448 @@
+package com.example.demo.infrastructure.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.lang.Nullable;
+
+import com.example.demo.config.TwoLevelCacheProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 兩層快取
+ * L1 為 JVM 內的 Caffeine 近端快取，L2 為 Redis 共用快取
+ *
+ * 讀取順序：L1 → L2 → 資料來源，L2 命中時會回填 L1
+ * 寫入：同時寫入 L1 與 L2；@Cacheable 未命中後的回填也會呼叫 put，因此 put 不廣播失效通知
+ * 清除：同時作用於 L1 與 L2，並透過 pub/sub 通知其他節點清除各自的 L1
+ * Redis 發生錯誤時只記錄警告並退化為單層快取，不影響主要流程
+ *
+ * 負向快取：值為 null (例如 Optional.empty()) 的項目視為「查無資料」，
+ * 在 L1 中存放於容量與 TTL 都較小的獨立區域，在 L2 中也使用較短的 TTL，
+ * 避免大量探測不存在的鍵值時擠掉正常資料或長時間遮蔽新建立的資料
+ *
+ * 搭配 @Cacheable(sync = true) 使用時：
+ * 1. Single-flight：同一節點上同一鍵值同時只會有一個載入動作，其他呼叫端等待同一個結果
+ * 2. Stale-while-revalidate：設定 soft TTL 後，過期但仍在 hard TTL 內的項目會直接回傳，
+ *    並由一條虛擬執行緒在背景重新載入
+ *
+ * 批次操作 ({@link #getAll}、{@link #putAll}) 每一層只有一次往返：L1 以 getAllPresent 查詢，
+ * L2 以單一 MGET 讀取、以單一 pipeline 寫入
+ */
+@Slf4j
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private static final int CLEAR_BATCH_SIZE = 500;
+
+    private final String name;
+    private final Cache<Object, Object> localCache;
+    private final Cache<Object, Object> negativeCache;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final String remoteKeyPrefix;
+    private final Duration remoteTtl;
+    private final Duration negativeTtl;
+    @Nullable
+    private final Duration softTtl;
+    private final TwoLevelCacheManager cacheManager;
+
+    /**
+     * 進行中的載入作業，用於 single-flight 與背景重新載入的去重
+     */
+    private final ConcurrentMap<Object, CompletableFuture<CacheEntry>> inFlightLoads = new ConcurrentHashMap<>();
+
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter remotePuts;
+    private final Counter remoteEvictions;
+    private final Counter remoteErrors;
+    private final Counter refreshSuccesses;
+    private final Counter refreshFailures;
+
+    public TwoLevelCache(String name, Cache<Object, Object> localCache, Cache<Object, Object> negativeCache,
+            RedisTemplate<String, Object> redisTemplate, String keyPrefix, TwoLevelCacheProperties.Spec spec,
+            TwoLevelCacheManager cacheManager, MeterRegistry meterRegistry) {
+        super(true);
+        this.name = name;
+        this.localCache = localCache;
+        this.negativeCache = negativeCache;
+        this.redisTemplate = redisTemplate;
+        this.remoteKeyPrefix = keyPrefix + name + "::";
+        this.remoteTtl = spec.getRemoteTtl();
+        this.negativeTtl = spec.getNegativeTtl();
+        this.softTtl = spec.getSoftTtl();
+        this.cacheManager = cacheManager;
+        this.remoteHits = remoteCounter(meterRegistry, "cache.gets", "result", "hit");
+        this.remoteMisses = remoteCounter(meterRegistry, "cache.gets", "result", "miss");
+        this.remotePuts = remoteCounter(meterRegistry, "cache.puts");
+        this.remoteEvictions = remoteCounter(meterRegistry, "cache.evictions");
+        this.remoteErrors = remoteCounter(meterRegistry, "cache.errors");
+        this.refreshSuccesses = Counter.builder("cache.refreshes").tags("cache", name, "result", "success")
+                .register(meterRegistry);
+        this.refreshFailures = Counter.builder("cache.refreshes").tags("cache", name, "result", "failure")
+                .register(meterRegistry);
+    }
+
+    private Counter remoteCounter(MeterRegistry meterRegistry, String meterName, String... extraTags) {
+        return Counter.builder(meterName)
+                .tags("cache", name, "tier", "remote")
+                .tags(extraTags)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return localCache;
+    }
+
+    @Override
+    @Nullable
+    protected Object lookup(Object key) {
+        CacheEntry entry = lookupEntry(key);
+        return entry != null ? entry.value() : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        CacheEntry entry = lookupEntry(key);
+        if (entry == null) {
+            entry = loadSingleFlight(key, valueLoader);
+        } else if (entry.isStale(softTtl)) {
+            refreshInBackground(key, valueLoader);
+        }
+        return (T) fromStoreValue(entry.value());
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        store(key, CacheEntry.of(toStoreValue(value)));
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        Object existing = lookup(key);
+        if (existing != null) {
+            return toValueWrapper(existing);
+        }
+        CacheEntry entry = CacheEntry.of(toStoreValue(value));
+        putLocal(key, entry);
+        try {
+            Boolean stored = redisTemplate.opsForValue().setIfAbsent(remoteKey(key), entry, remoteTtlOf(entry));
+            if (Boolean.TRUE.equals(stored)) {
+                remotePuts.increment();
+            }
+        } catch (RuntimeException ex) {
+            onRemoteError("putIfAbsent", key, ex);
+        }
+        return null;
+    }
+
+    /**
+     * 批次查詢，L1 未命中的鍵值以單一 MGET 查詢 L2，命中的項目回填 L1
+     * 沒有載入函式，因此過了 soft TTL 的項目照常回傳但不會在背景重新載入，由之後的單筆查詢負責
+     *
+     * @return 命中的鍵值與快取值，值為 null 的 ValueWrapper 表示負向快取項目；完全未命中的鍵值不會出現在結果中
+     */
+    public Map<Object, ValueWrapper> getAll(Collection<?> keys) {
+        Map<Object, ValueWrapper> result = new HashMap<>();
+        Map<Object, Object> local = localCache.getAllPresent(keys);
+        List<Object> misses = new ArrayList<>();
+        for (Object key : keys) {
+            CacheEntry entry = (CacheEntry) local.get(key);
+            if (entry == null) {
+                entry = (CacheEntry) negativeCache.getIfPresent(key);
+            }
+            if (entry != null) {
+                result.put(key, toValueWrapper(entry.value()));
+            } else {
+                misses.add(key);
+            }
+        }
+        if (misses.isEmpty()) {
+            return result;
+        }
+        try {
+            List<Object> values = redisTemplate.opsForValue().multiGet(misses.stream().map(this::remoteKey).toList());
+            int hits = 0;
+            for (int i = 0; i < misses.size(); i++) {
+                if (values != null && values.get(i) instanceof CacheEntry entry) {
+                    putLocal(misses.get(i), entry);
+                    result.put(misses.get(i), toValueWrapper(entry.value()));
+                    hits++;
+                }
+            }
+            remoteHits.increment(hits);
+            remoteMisses.increment(misses.size() - hits);
+        } catch (RuntimeException ex) {
+            onRemoteError("multiGet", misses.size() + " keys", ex);
+        }
+        return result;
+    }
+
+    /**
+     * 批次寫入 L1，並以單一 pipeline 寫入 L2；與 {@link #put} 相同不廣播失效通知
+     * 值為 null 的項目以負向快取保存
+     */
+    public void putAll(Map<?, ?> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        Map<String, CacheEntry> remoteEntries = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            CacheEntry entry = CacheEntry.of(toStoreValue(value));
+            putLocal(key, entry);
+            remoteEntries.put(remoteKey(key), entry);
+        });
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    ValueOperations<String, Object> remote = (ValueOperations<String, Object>) operations.opsForValue();
+                    remoteEntries.forEach((key, entry) -> remote.set(key, entry, remoteTtlOf(entry)));
+                    return null;
+                }
+            });
+            remotePuts.increment(remoteEntries.size());
+        } catch (RuntimeException ex) {
+            onRemoteError("putAll", remoteEntries.size() + " keys", ex);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictLocal(key);
+        evictRemote(key);
+        cacheManager.publishEvict(name, key);
+    }
+
+    @Override
+    public void clear() {
+        clearLocal();
+        clearRemote();
+        cacheManager.publishClear(name);
+    }
+
+    /**
+     * 只清除本節點 L1 的指定鍵值，供接收其他節點的失效通知時使用
+     */
+    public void evictLocal(Object key) {
+        localCache.invalidate(key);
+        negativeCache.invalidate(key);
+    }
+
+    /**
+     * 只清除本節點 L1 的所有內容，供接收其他節點的失效通知時使用
+     */
+    public void clearLocal() {
+        localCache.invalidateAll();
+        negativeCache.invalidateAll();
+    }
+
+    @Nullable
+    private CacheEntry lookupEntry(Object key) {
+        CacheEntry entry = getLocal(key);
+        if (entry != null) {
+            return entry;
+        }
+        entry = getRemote(key);
+        if (entry != null) {
+            putLocal(key, entry);
+        }
+        return entry;
+    }
+
+    @Nullable
+    private CacheEntry getLocal(Object key) {
+        CacheEntry entry = (CacheEntry) localCache.getIfPresent(key);
+        return entry != null ? entry : (CacheEntry) negativeCache.getIfPresent(key);
+    }
+
+    private void putLocal(Object key, CacheEntry entry) {
+        if (isNegative(entry)) {
+            localCache.invalidate(key);
+            negativeCache.put(key, entry);
+        } else {
+            negativeCache.invalidate(key);
+            localCache.put(key, entry);
+        }
+    }
+
+    private boolean isNegative(CacheEntry entry) {
+        return entry.value() == NullValue.INSTANCE;
+    }
+
+    private Duration remoteTtlOf(CacheEntry entry) {
+        return isNegative(entry) ? negativeTtl : remoteTtl;
+    }
+
+    /**
+     * 同一鍵值同時只允許一個載入動作，後到的呼叫端等待同一個 Future
+     * 取得載入權前可能剛好有另一個載入完成，因此會先再查一次 L1
+     */
+    private CacheEntry loadSingleFlight(Object key, Callable<?> valueLoader) {
+        CompletableFuture<CacheEntry> load = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> inFlight = inFlightLoads.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        try {
+            CacheEntry entry = getLocal(key);
+            if (entry == null) {
+                entry = CacheEntry.of(toStoreValue(callLoader(key, valueLoader)));
+                store(key, entry);
+            }
+            load.complete(entry);
+            return entry;
+        } catch (RuntimeException | Error ex) {
+            load.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlightLoads.remove(key, load);
+        }
+    }
+
+    /**
+     * 在背景以虛擬執行緒重新載入已過 soft TTL 的項目
+     * 若該鍵值已有載入作業進行中則略過；失敗時保留舊值，等下一次讀取再重試
+     */
+    private void refreshInBackground(Object key, Callable<?> valueLoader) {
+        CompletableFuture<CacheEntry> refresh = new CompletableFuture<>();
+        if (inFlightLoads.putIfAbsent(key, refresh) != null) {
+            return;
+        }
+        Thread.ofVirtual().name("cache-refresh-" + name).start(() -> {
+            try {
+                CacheEntry entry = CacheEntry.of(toStoreValue(callLoader(key, valueLoader)));
+                store(key, entry);
+                refresh.complete(entry);
+                refreshSuccesses.increment();
+            } catch (RuntimeException | Error ex) {
+                refresh.completeExceptionally(ex);
+                refreshFailures.increment();
+                log.warn("快取背景重新載入失敗，繼續提供舊資料。cache: {}, key: {}", name, key, ex);
+            } finally {
+                inFlightLoads.remove(key, refresh);
+            }
+        });
+    }
+
+    private Object callLoader(Object key, Callable<?> valueLoader) {
+        try {
+            return valueLoader.call();
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+    }
+
+    private CacheEntry await(CompletableFuture<CacheEntry> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void store(Object key, CacheEntry entry) {
+        putLocal(key, entry);
+        try {
+            redisTemplate.opsForValue().set(remoteKey(key), entry, remoteTtlOf(entry));
+            remotePuts.increment();
+        } catch (RuntimeException ex) {
+            onRemoteError("put", key, ex);
+        }
+    }
+
+    @Nullable
+    private CacheEntry getRemote(Object key) {
+        try {
+            // 非 CacheEntry 的內容 (例如舊版本寫入的資料) 視為未命中
+            if (redisTemplate.opsForValue().get(remoteKey(key)) instanceof CacheEntry entry) {
+                remoteHits.increment();
+                return entry;
+            }
+            remoteMisses.increment();
+            return null;
+        } catch (RuntimeException ex) {
+            onRemoteError("get", key, ex);
+            return null;
+        }
+    }
+
+    private void evictRemote(Object key) {
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.delete(remoteKey(key)))) {
+                remoteEvictions.increment();
+            }
+        } catch (RuntimeException ex) {
+            onRemoteError("evict", key, ex);
+        }
+    }
+
+    private void clearRemote() {
+        ScanOptions options = ScanOptions.scanOptions().match(remoteKeyPrefix + "*").count(CLEAR_BATCH_SIZE).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            List<String> batch = new ArrayList<>(CLEAR_BATCH_SIZE);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == CLEAR_BATCH_SIZE) {
+                    deleteRemote(batch);
+                }
+            }
+            deleteRemote(batch);
+        } catch (RuntimeException ex) {
+            onRemoteError("clear", "*", ex);
+        }
+    }
+
+    private void deleteRemote(List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Long deleted = redisTemplate.delete(keys);
+        if (deleted != null) {
+            remoteEvictions.increment(deleted);
+        }
+        keys.clear();
+    }
+
+    private String remoteKey(Object key) {
+        return remoteKeyPrefix + key;
+    }
+
+    private void onRemoteError(String operation, Object key, RuntimeException ex) {
+        remoteErrors.increment();
+        log.warn("Redis 快取操作失敗，退化為僅使用本地快取。cache: {}, operation: {}, key: {}", name, operation, key, ex);
+    }
+}
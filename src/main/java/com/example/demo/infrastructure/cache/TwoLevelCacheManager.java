@@ -0,0 +1,144 @@
+package com.example.demo.infrastructure.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.Nullable;
+
+import com.example.demo.config.TwoLevelCacheProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 兩層快取管理器
+ * 依 {@link TwoLevelCacheProperties} 建立 {@link TwoLevelCache}，並負責跨節點的 L1 失效通知
+ *
+ * 失效通知格式：{來源節點}|{E 清除單筆 / C 清除全部}|{快取名稱}|{鍵值}
+ * 節點會忽略自己發出的通知，因為本地 L1 已在發出前處理完畢
+ */
+@Slf4j
+public class TwoLevelCacheManager extends AbstractTransactionSupportingCacheManager implements MessageListener {
+
+    private static final String DELIMITER = "|";
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate messageTemplate;
+    private final TwoLevelCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    public TwoLevelCacheManager(RedisTemplate<String, Object> redisTemplate, StringRedisTemplate messageTemplate,
+            TwoLevelCacheProperties properties, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.messageTemplate = messageTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return properties.getCaches().keySet().stream()
+                .map(this::createCache)
+                .toList();
+    }
+
+    @Override
+    @Nullable
+    protected Cache getMissingCache(String name) {
+        return createCache(name);
+    }
+
+    private TwoLevelCache createCache(String name) {
+        TwoLevelCacheProperties.Spec spec = properties.specOf(name);
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> localCache = Caffeine.newBuilder()
+                .maximumSize(spec.getLocalMaxSize())
+                .expireAfterWrite(spec.getLocalTtl())
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats()
+                .build();
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> negativeCache = Caffeine.newBuilder()
+                .maximumSize(spec.getNegativeMaxSize())
+                .expireAfterWrite(spec.getNegativeTtl())
+                .scheduler(Scheduler.systemScheduler())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, name, Tags.of("tier", "local"));
+        CaffeineCacheMetrics.monitor(meterRegistry, negativeCache, name, Tags.of("tier", "local-negative"));
+        return new TwoLevelCache(name, localCache, negativeCache, redisTemplate, properties.getKeyPrefix(), spec,
+                this, meterRegistry);
+    }
+
+    /**
+     * 通知其他節點清除指定鍵值的 L1
+     */
+    void publishEvict(String cacheName, Object key) {
+        publish(String.join(DELIMITER, nodeId, EVICT, cacheName, String.valueOf(key)));
+    }
+
+    /**
+     * 通知其他節點清除指定快取的 L1
+     */
+    void publishClear(String cacheName) {
+        publish(String.join(DELIMITER, nodeId, CLEAR, cacheName, ""));
+    }
+
+    private void publish(String message) {
+        try {
+            messageTemplate.convertAndSend(properties.getInvalidationChannel(), message);
+        } catch (RuntimeException ex) {
+            log.warn("快取失效通知發送失敗，其他節點的 L1 將在 TTL 到期後才更新。message: {}", message, ex);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, @Nullable byte[] pattern) {
+        List<String> parts = List.of(new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4));
+        if (parts.size() != 4 || nodeId.equals(parts.get(0))) {
+            return;
+        }
+        TwoLevelCache cache = lookupTwoLevelCache(parts.get(2));
+        if (cache == null) {
+            return;
+        }
+        if (CLEAR.equals(parts.get(1))) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(parts.get(3));
+        }
+    }
+
+    /**
+     * 取得指定名稱的兩層快取本體，不經過交易感知的包裝，供批次查詢與寫入使用
+     * 批次寫入的內容都是剛從資料庫讀出的資料，立即寫入即可，不需要等待交易提交
+     */
+    public TwoLevelCache getTwoLevelCache(String cacheName) {
+        getCache(cacheName);
+        return Objects.requireNonNull(lookupTwoLevelCache(cacheName));
+    }
+
+    @Nullable
+    private TwoLevelCache lookupTwoLevelCache(String cacheName) {
+        Cache cache = lookupCache(cacheName);
+        if (cache instanceof TransactionAwareCacheDecorator decorator) {
+            cache = decorator.getTargetCache();
+        }
+        return cache instanceof TwoLevelCache twoLevelCache ? twoLevelCache : null;
+    }
+}
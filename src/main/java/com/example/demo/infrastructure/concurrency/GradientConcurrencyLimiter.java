@@ -0,0 +1,128 @@
+package com.example.demo.infrastructure.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 依延遲梯度自動調整上限的並發限制器 (參考 Netflix concurrency-limits 的 Gradient2 演算法)
+ *
+ * 每個時間窗結束時，以短期平均延遲與長期平均延遲的比值計算梯度：
+ * - gradient = clamp(rttTolerance × 長期延遲 / 短期延遲, 0.5, 1.0)
+ * - 新上限 = 目前上限 × gradient + √目前上限 (保留少量排隊空間，讓上限在延遲穩定時能緩慢成長)
+ * 延遲上升時梯度小於 1，上限隨之下降；延遲恢復後上限逐步回升。
+ * 時間窗內實際並發不到上限一半時不調整，避免流量低時上限無限制地成長
+ */
+public class GradientConcurrencyLimiter {
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final long windowNanos;
+    private final int minWindowSamples;
+    private final int longWindow;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rttSum = new LongAdder();
+    private final LongAdder rttCount = new LongAdder();
+    private final LongAccumulator maxInflight = new LongAccumulator(Math::max, 0);
+    private final AtomicLong windowEnd;
+
+    private volatile double limit;
+    private double longRtt;
+
+    public GradientConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double rttTolerance,
+            double smoothing, long windowNanos, int minWindowSamples, int longWindow) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = minWindowSamples;
+        this.longWindow = longWindow;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.windowEnd = new AtomicLong(System.nanoTime() + windowNanos);
+    }
+
+    /**
+     * 嘗試取得執行許可，已達上限時回傳 false 並計入拒絕次數
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= (int) limit) {
+                dropped.increment();
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                maxInflight.accumulate(current + 1);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 歸還許可並記錄這次請求的延遲
+     *
+     * @param rttNanos 請求處理時間 (奈秒)
+     */
+    public void release(long rttNanos) {
+        inflight.decrementAndGet();
+        rttSum.add(rttNanos);
+        rttCount.increment();
+        long now = System.nanoTime();
+        long end = windowEnd.get();
+        if (now - end >= 0 && windowEnd.compareAndSet(end, now + windowNanos)) {
+            updateLimit(rttSum.sumThenReset(), rttCount.sumThenReset(), maxInflight.getThenReset());
+        }
+    }
+
+    /**
+     * 只會由結束時間窗的那一個執行緒呼叫
+     */
+    private synchronized void updateLimit(long sum, long count, long peakInflight) {
+        if (count < minWindowSamples) {
+            return;
+        }
+        double shortRtt = (double) sum / count;
+        longRtt = longRtt == 0 ? shortRtt : longRtt + (shortRtt - longRtt) / longWindow;
+        // 延遲大幅下降 (例如資料庫切換完成) 時加快長期延遲的回落，避免梯度長時間停在 1
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        double current = limit;
+        if (peakInflight < current / 2) {
+            return;
+        }
+        double gradient = Math.clamp(rttTolerance * longRtt / shortRtt, MIN_GRADIENT, 1.0);
+        double newLimit = current * gradient + Math.sqrt(current);
+        newLimit = current * (1 - smoothing) + newLimit * smoothing;
+        limit = Math.clamp(newLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * 目前的並發上限
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * 目前執行中的請求數量
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * 累計拒絕的請求數量
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+}
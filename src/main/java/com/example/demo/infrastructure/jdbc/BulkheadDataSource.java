@@ -0,0 +1,142 @@
+package com.example.demo.infrastructure.jdbc;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 以 semaphore 限制同時借出連線數量的 DataSource
+ * 啟用虛擬執行緒後，請求執行緒的數量不再受限於 Tomcat 執行緒池，大量請求會同時在連線池上排隊；
+ * 此 bulkhead 讓等待時間有明確上限，超過時立即拋出 {@link BulkheadFullException}，由 API 層回應 503，
+ * 而不是讓請求在連線池上等待直到 Hikari 的 connectionTimeout
+ *
+ * 許可在取得連線時借出，在連線 close() 時歸還，不論連線由交易、JdbcTemplate 或 Liquibase 使用
+ *
+ * 指標：
+ * - db.bulkhead.wait：取得許可的等待時間，以 outcome=acquired/rejected 區分
+ * - db.bulkhead.rejected：等待逾時而被拒絕的次數
+ * - db.bulkhead.available：目前可用的許可數量
+ */
+public class BulkheadDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxConcurrentCalls;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+    private final Timer acquiredWait;
+    private final Timer rejectedWait;
+    private final Counter rejections;
+
+    public BulkheadDataSource(DataSource targetDataSource, int maxConcurrentCalls, Duration maxWait,
+            Duration retryAfter, MeterRegistry meterRegistry) {
+        super(targetDataSource);
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxWait = maxWait;
+        this.retryAfter = retryAfter;
+        this.acquiredWait = Timer.builder("db.bulkhead.wait")
+                .description("取得資料庫連線許可的等待時間")
+                .tag("outcome", "acquired")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedWait = Timer.builder("db.bulkhead.wait")
+                .description("取得資料庫連線許可的等待時間")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("db.bulkhead.rejected")
+                .description("等待逾時而被拒絕的資料庫連線請求次數")
+                .register(meterRegistry);
+        Gauge.builder("db.bulkhead.available", permits, Semaphore::availablePermits)
+                .description("目前可用的資料庫連線許可數量")
+                .register(meterRegistry);
+        Gauge.builder("db.bulkhead.max", () -> maxConcurrentCalls)
+                .description("資料庫連線許可上限")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        return guard(obtainConnection(() -> super.getConnection()));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        return guard(obtainConnection(() -> super.getConnection(username, password)));
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("等待資料庫連線許可時被中斷", ex);
+        }
+        long waited = System.nanoTime() - start;
+        if (!acquired) {
+            rejectedWait.record(waited, TimeUnit.NANOSECONDS);
+            rejections.increment();
+            throw new BulkheadFullException(maxConcurrentCalls, maxWait, retryAfter);
+        }
+        acquiredWait.record(waited, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 取得實際連線，失敗時立即歸還許可
+     */
+    private Connection obtainConnection(ConnectionSupplier supplier) throws SQLException {
+        try {
+            return supplier.get();
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * 包裝連線，在第一次 close() 時歸還許可；其他方法 (包含 unwrap) 直接委派給原本的連線
+     */
+    private Connection guard(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(BulkheadDataSource.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getTargetException();
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+}
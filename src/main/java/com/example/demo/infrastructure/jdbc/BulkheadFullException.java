@@ -0,0 +1,25 @@
+package com.example.demo.infrastructure.jdbc;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+/**
+ * 資料庫連線 bulkhead 已滿，等待超過上限仍取不到許可時拋出
+ * 繼承 SQLTransientConnectionException，讓 Spring 與 Hibernate 視為暫時性的連線錯誤
+ */
+public class BulkheadFullException extends SQLTransientConnectionException {
+
+    private final Duration retryAfter;
+
+    public BulkheadFullException(int maxConcurrentCalls, Duration maxWait, Duration retryAfter) {
+        super("資料庫連線已滿 (上限 " + maxConcurrentCalls + ")，等待 " + maxWait.toMillis() + "ms 後仍無法取得連線");
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * 建議用戶端重試前等待的時間
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
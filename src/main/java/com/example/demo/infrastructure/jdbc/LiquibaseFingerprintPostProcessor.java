@@ -0,0 +1,156 @@
+package com.example.demo.infrastructure.jdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.StringUtils;
+
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 資料庫結構已是最新時跳過 Liquibase
+ * Liquibase 每次啟動都會解析所有 changelog、取得鎖並逐一驗證 checksum，即使沒有任何待執行的變更
+ *
+ * 1. 啟動時計算 changelog 目錄下所有檔案 (與 contexts) 的 SHA-256 指紋
+ * 2. databasechangelog 最後一筆的 tag 與指紋相同時，表示這份 changelog 已完整套用，直接跳過 Liquibase
+ * 3. 不同時照常執行 Liquibase，成功後將指紋寫入最後一筆的 tag (與 liquibase tag 指令的效果相同)
+ *
+ * 只會覆寫空的或由此類別寫入的 tag，手動建立的 rollback tag 不受影響；
+ * changelog 有任何變動 (包含已套用的 changeSet 被修改) 指紋就會不同，Liquibase 的驗證仍會執行
+ */
+@Slf4j
+public class LiquibaseFingerprintPostProcessor implements BeanPostProcessor {
+
+    private static final String TAG_PREFIX = "changelog-sha256:";
+    private static final String DEFAULT_CHANGELOG_TABLE = "databasechangelog";
+
+    private final ResourcePatternResolver resourcePatternResolver;
+    private final boolean enabled;
+    private final Map<String, String> pendingTags = new ConcurrentHashMap<>();
+
+    public LiquibaseFingerprintPostProcessor(ResourcePatternResolver resourcePatternResolver, boolean enabled) {
+        this.resourcePatternResolver = resourcePatternResolver;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (!enabled || !(bean instanceof SpringLiquibase liquibase)) {
+            return bean;
+        }
+        String tag = TAG_PREFIX + fingerprint(liquibase);
+        if (tag.equals(currentTag(liquibase))) {
+            log.info("資料庫結構已套用目前的 changelog ({})，跳過 Liquibase", tag);
+            liquibase.setShouldRun(false);
+        } else {
+            pendingTags.put(beanName, tag);
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        String tag = pendingTags.remove(beanName);
+        if (tag != null && bean instanceof SpringLiquibase liquibase) {
+            tagLatestChangeSet(liquibase, tag);
+        }
+        return bean;
+    }
+
+    private String fingerprint(SpringLiquibase liquibase) {
+        String changeLog = StringUtils.cleanPath(liquibase.getChangeLog());
+        String directory = changeLog.substring(0, changeLog.lastIndexOf('/') + 1);
+        String pattern = directory.startsWith("classpath:")
+                ? "classpath*:" + directory.substring("classpath:".length()) + "**/*"
+                : directory + "**/*";
+        // 以 changelog 目錄之後的相對路徑計算，同一份 changelog 在 jar 或展開的目錄中的指紋相同
+        String root = StringUtils.trimLeadingCharacter(directory.substring(directory.indexOf(':') + 1), '/');
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Resource[] resources = resourcePatternResolver.getResources(pattern);
+            // 依路徑排序，指紋不受 classpath 掃描順序影響
+            Arrays.sort(resources, Comparator.comparing(resource -> relativePathOf(resource, root)));
+            for (Resource resource : resources) {
+                if (!resource.isReadable()) {
+                    continue;
+                }
+                digest.update(relativePathOf(resource, root).getBytes(StandardCharsets.UTF_8));
+                try (InputStream input = resource.getInputStream()) {
+                    digest.update(input.readAllBytes());
+                }
+            }
+            digest.update(String.valueOf(liquibase.getContexts()).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String relativePathOf(Resource resource, String root) {
+        try {
+            String path = resource.getURL().getPath();
+            int index = path.lastIndexOf(root);
+            return index >= 0 ? path.substring(index + root.length()) : path;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * 最後套用的 changeSet 的 tag；資料表不存在 (尚未初始化的資料庫) 時回傳 null
+     */
+    private String currentTag(SpringLiquibase liquibase) {
+        String sql = "SELECT tag FROM " + changeLogTable(liquibase) + " ORDER BY orderexecuted DESC LIMIT 1";
+        try (Connection connection = liquibase.getDataSource().getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql);
+                ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        } catch (SQLException ex) {
+            log.debug("無法讀取 Liquibase changelog 資料表，照常執行 Liquibase", ex);
+            return null;
+        }
+    }
+
+    private void tagLatestChangeSet(SpringLiquibase liquibase, String tag) {
+        String table = changeLogTable(liquibase);
+        String sql = "UPDATE " + table + " SET tag = ? WHERE orderexecuted = (SELECT max(orderexecuted) FROM " + table
+                + ") AND (tag IS NULL OR tag LIKE '" + TAG_PREFIX + "%')";
+        try (Connection connection = liquibase.getDataSource().getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, tag);
+            statement.executeUpdate();
+        } catch (SQLException ex) {
+            // 只影響下次啟動能否跳過 Liquibase
+            log.warn("寫入 Liquibase changelog 指紋失敗", ex);
+        }
+    }
+
+    private static String changeLogTable(SpringLiquibase liquibase) {
+        String table = StringUtils.hasText(liquibase.getDatabaseChangeLogTable())
+                ? liquibase.getDatabaseChangeLogTable()
+                : DEFAULT_CHANGELOG_TABLE;
+        String schema = StringUtils.hasText(liquibase.getLiquibaseSchema())
+                ? liquibase.getLiquibaseSchema()
+                : liquibase.getDefaultSchema();
+        return StringUtils.hasText(schema) ? schema + "." + table : table;
+    }
+}
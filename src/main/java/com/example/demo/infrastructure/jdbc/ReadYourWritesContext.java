@@ -0,0 +1,30 @@
+package com.example.demo.infrastructure.jdbc;
+
+/**
+ * 目前執行緒的 read-your-writes 狀態
+ * 設定後，唯讀交易也會使用主資料庫，讓用戶端在寫入後的短時間內一定讀得到自己的寫入
+ *
+ * 由 API 層在請求開始時設定、結束時清除；背景工作不會帶有此狀態
+ */
+public final class ReadYourWritesContext {
+
+    private static final ThreadLocal<Boolean> PINNED_TO_PRIMARY = new ThreadLocal<>();
+
+    private ReadYourWritesContext() {
+    }
+
+    /**
+     * 目前執行緒的唯讀交易改用主資料庫
+     */
+    public static void pinToPrimary() {
+        PINNED_TO_PRIMARY.set(Boolean.TRUE);
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED_TO_PRIMARY.get() != null;
+    }
+
+    public static void clear() {
+        PINNED_TO_PRIMARY.remove();
+    }
+}
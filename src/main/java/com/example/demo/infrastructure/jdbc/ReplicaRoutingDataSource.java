@@ -0,0 +1,227 @@
+package com.example.demo.infrastructure.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 依交易是否唯讀選擇主資料庫或唯讀副本的 DataSource
+ *
+ * 以 {@link LazyConnectionDataSourceProxy} 延後取得實際連線：交易開始時只記錄 readOnly 等設定，
+ * 第一個 SQL 執行時才依 Connection.setReadOnly 的結果選擇資料庫；唯讀連線依序輪流使用健康的副本，
+ * 下列情況改用主資料庫：
+ * 1. 目前請求在 read-your-writes 時間窗內 ({@link ReadYourWritesContext})
+ * 2. 所有副本都無法連線或複寫延遲超過上限
+ *
+ * 背景定期檢查各副本的連線與複寫延遲；取得連線失敗的副本會立即標記為不健康，等下一次檢查通過後才恢復使用
+ *
+ * 指標：
+ * - db.replica.routed：唯讀連線的去向，以 target=副本名稱/primary 與 reason 區分
+ * - db.replica.lag：各副本最近一次量測的複寫延遲 (秒)
+ * - db.replica.healthy：各副本目前是否可用 (1/0)
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    /**
+     * 副本的複寫延遲 (秒)；WAL 已全部重播時為 0，避免主資料庫閒置時被誤判為延遲；非 standby 的副本視為沒有延遲
+     */
+    private static final String REPLICATION_LAG_SQL = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())
+            END
+            """;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger cursor = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+    private final Counter routedToPrimaryPinned;
+    private final Counter routedToPrimaryFallback;
+
+    /**
+     * @param primary             主資料庫，寫入交易與無可用副本時使用
+     * @param replicas            唯讀副本
+     * @param maxLag              可接受的複寫延遲
+     * @param healthCheckInterval 檢查副本的間隔
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, Duration maxLag,
+            Duration healthCheckInterval, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.maxLag = maxLag;
+        setTargetDataSource(primary);
+        setReadOnlyDataSource(new ReadOnlyRouter());
+        // 明確指定預設值，避免啟動時為了偵測預設值而取得連線
+        setDefaultAutoCommit(true);
+        setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        afterPropertiesSet();
+
+        for (Replica replica : this.replicas) {
+            Counter counter = Counter.builder("db.replica.routed")
+                    .description("唯讀連線的去向")
+                    .tag("target", replica.name())
+                    .tag("reason", "replica")
+                    .register(meterRegistry);
+            replica.routed = counter;
+            Gauge.builder("db.replica.lag", replica, r -> r.lagSeconds)
+                    .description("副本最近一次量測的複寫延遲")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.name())
+                    .register(meterRegistry);
+            Gauge.builder("db.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("副本目前是否可用")
+                    .tag("replica", replica.name())
+                    .register(meterRegistry);
+        }
+        this.routedToPrimaryPinned = Counter.builder("db.replica.routed")
+                .description("唯讀連線的去向")
+                .tag("target", "primary")
+                .tag("reason", "read-your-writes")
+                .register(meterRegistry);
+        this.routedToPrimaryFallback = Counter.builder("db.replica.routed")
+                .description("唯讀連線的去向")
+                .tag("target", "primary")
+                .tag("reason", "no-healthy-replica")
+                .register(meterRegistry);
+
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("replica-health-check").factory());
+        this.healthChecker.scheduleWithFixedDelay(this::checkReplicas, 0, healthCheckInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 檢查所有副本的連線與複寫延遲
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try (Connection connection = replica.dataSource().getConnection();
+                    Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(Math.max(1, (int) maxLag.toSeconds()));
+                try (ResultSet resultSet = statement.executeQuery(REPLICATION_LAG_SQL)) {
+                    resultSet.next();
+                    double lag = resultSet.getDouble(1);
+                    boolean known = !resultSet.wasNull();
+                    replica.lagSeconds = known ? lag : Double.NaN;
+                    replica.healthy = known && lag * 1000 <= maxLag.toMillis();
+                }
+            } catch (SQLException | RuntimeException ex) {
+                replica.lagSeconds = Double.NaN;
+                replica.healthy = false;
+                if (wasHealthy) {
+                    log.warn("唯讀副本 {} 健康檢查失敗，暫停使用", replica.name(), ex);
+                }
+                continue;
+            }
+            if (wasHealthy != replica.healthy) {
+                log.info("唯讀副本 {} {}，複寫延遲: {} 秒", replica.name(), replica.healthy ? "恢復使用" : "延遲過高，暫停使用",
+                        replica.lagSeconds);
+            }
+        }
+    }
+
+    /**
+     * 目前是否有可用的副本
+     */
+    public boolean hasHealthyReplica() {
+        return replicas.stream().anyMatch(replica -> replica.healthy);
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource() instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception ex) {
+                    log.warn("關閉唯讀副本 {} 的連線池失敗", replica.name(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * 唯讀連線的實際來源：依序輪流取得健康副本的連線，都無法使用時改用主資料庫
+     */
+    private class ReadOnlyRouter extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (ReadYourWritesContext.isPinnedToPrimary()) {
+                routedToPrimaryPinned.increment();
+                return primary.getConnection();
+            }
+            int size = replicas.size();
+            int start = Math.floorMod(cursor.getAndIncrement(), Math.max(1, size));
+            for (int i = 0; i < size; i++) {
+                Replica replica = replicas.get((start + i) % size);
+                if (!replica.healthy) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource().getConnection();
+                    replica.routed.increment();
+                    return connection;
+                } catch (SQLException ex) {
+                    replica.healthy = false;
+                    log.warn("無法取得唯讀副本 {} 的連線，暫停使用直到下一次健康檢查", replica.name(), ex);
+                }
+            }
+            routedToPrimaryFallback.increment();
+            return primary.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+
+    /**
+     * 單一唯讀副本與其狀態；啟動後第一次健康檢查通過前不會使用
+     */
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile double lagSeconds = Double.NaN;
+        private Counter routed;
+
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public DataSource dataSource() {
+            return dataSource;
+        }
+    }
+}
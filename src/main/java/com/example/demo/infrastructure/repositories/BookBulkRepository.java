@@ -0,0 +1,242 @@
+package com.example.demo.infrastructure.repositories;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.LongConsumer;
+import java.util.function.ObjIntConsumer;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 書本大量匯入與匯出資料存取層
+ * 直接使用 PostgreSQL COPY 協定與原生 SQL，不經過 Hibernate 實體
+ *
+ * 1. 以 COPY FROM STDIN 將上傳內容串流寫入交易內的暫存表，不需先把整個檔案讀進記憶體
+ * 2. 以單一 INSERT ... ON CONFLICT (isbn) 將暫存表合併進 book，ID 依 pooled optimizer 的規則向 book_id_seq 取號；
+ *    同一個語句中以 CTE 為每一本新增或更新的書本寫入 outbox 事件，與書本資料一起提交或回滾
+ * 3. 以 COPY TO STDOUT 將整個 book 資料表直接串流到輸出，資料列不會轉成 Java 物件
+ *
+ * 注意：匯入的兩個方法都必須在同一個交易中依序呼叫，暫存表會在交易結束時自動刪除
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookBulkRepository {
+
+    /**
+     * 匯入檔案格式
+     */
+    public enum Format {
+        /** 第一行為標題列，欄位順序為 title,author,isbn,publish_year,price */
+        CSV,
+        /** 每行一個 JSON 物件，欄位名稱與 BookRequest 相同 */
+        NDJSON
+    }
+
+    /**
+     * 與 Book 實體的 allocationSize 相同，每次 nextval 代表 (值 - 49) 到 值 這 50 個 ID
+     */
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String CREATE_STAGING_TABLE = """
+            CREATE TEMP TABLE book_import_staging (
+                line_no bigint GENERATED ALWAYS AS IDENTITY,
+                title text,
+                author text,
+                isbn text,
+                publish_year integer,
+                price numeric(10, 2),
+                doc jsonb
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPY_CSV = """
+            COPY book_import_staging (title, author, isbn, publish_year, price)
+            FROM STDIN WITH (FORMAT csv, HEADER true)
+            """;
+
+    /**
+     * NDJSON 以 csv 格式 COPY 到單一 jsonb 欄位，引號與分隔字元都設為不會出現在 JSON 中的控制字元，
+     * 讓每一行原封不動地寫入，不會被 text 格式的反斜線跳脫規則改寫
+     */
+    private static final String COPY_NDJSON = """
+            COPY book_import_staging (doc)
+            FROM STDIN WITH (FORMAT csv, QUOTE E'\\x01', DELIMITER E'\\x02')
+            """;
+
+    private static final String CSV_SOURCE = """
+            SELECT line_no, title, author, isbn, publish_year, price FROM book_import_staging
+            """;
+
+    private static final String NDJSON_SOURCE = """
+            SELECT line_no,
+                   doc ->> 'title' AS title,
+                   doc ->> 'author' AS author,
+                   doc ->> 'isbn' AS isbn,
+                   (doc ->> 'publishYear')::integer AS publish_year,
+                   (doc ->> 'price')::numeric(10, 2) AS price
+            FROM book_import_staging
+            """;
+
+    /**
+     * 合併暫存表到 book
+     * - 同一 ISBN 出現多次時以最後一行為準，缺少必填欄位的資料列會被略過
+     * - 只替新的 ISBN 配置 ID，既有書本沿用原本的 ID，不會浪費序列值；
+     *   取號次數為 ceil(新書數量 / 50)，沒有新書時不呼叫 nextval。序列從未使用過時第一次 nextval 回傳 1，
+     *   該區塊只有 ID 1 可用 (其餘為非正數而被排除)，因此多取一次
+     * - 內容沒有變化的既有書本不會被更新，也不會出現在 RETURNING 中，也不會產生 outbox 事件
+     * - 以 xmax = 0 區分新增 (CREATED) 與衝突後更新 (UPDATED) 的資料列
+     */
+    private static final String MERGE = """
+            WITH source AS (
+                SELECT DISTINCT ON (s.isbn) s.line_no, s.title, s.author, s.isbn, s.publish_year, s.price
+                FROM (%s) s
+                WHERE s.isbn IS NOT NULL AND s.title IS NOT NULL AND s.author IS NOT NULL
+                ORDER BY s.isbn, s.line_no DESC
+            ), new_rows AS (
+                SELECT source.isbn, row_number() OVER (ORDER BY source.line_no) AS seq
+                FROM source
+                WHERE NOT EXISTS (SELECT 1 FROM book b WHERE b.isbn = source.isbn)
+            ), id_blocks AS (
+                SELECT nextval('book_id_seq') AS hi
+                FROM generate_series(1, (
+                    SELECT ceil(count(*) / %2$d.0)::integer
+                        + CASE WHEN count(*) > 0 AND NOT (SELECT is_called FROM book_id_seq) THEN 1 ELSE 0 END
+                    FROM new_rows))
+            ), new_ids AS (
+                SELECT id, row_number() OVER (ORDER BY id) AS seq
+                FROM id_blocks, generate_series(hi - %2$d + 1, hi) AS id
+                WHERE id > 0
+            ), rows AS (
+                SELECT COALESCE(existing.id, new_ids.id::integer) AS id,
+                       source.title, source.author, source.isbn, source.publish_year, source.price
+                FROM source
+                LEFT JOIN book existing ON existing.isbn = source.isbn
+                LEFT JOIN new_rows ON new_rows.isbn = source.isbn
+                LEFT JOIN new_ids ON new_ids.seq = new_rows.seq
+            ), merged AS (
+                INSERT INTO book AS b (id, title, author, isbn, publish_year, price, created_at, updated_at)
+                SELECT id, title, author, isbn, publish_year, price, now(), now() FROM rows
+                ON CONFLICT (isbn) DO UPDATE SET
+                    title = EXCLUDED.title,
+                    author = EXCLUDED.author,
+                    publish_year = EXCLUDED.publish_year,
+                    price = EXCLUDED.price,
+                    updated_at = EXCLUDED.updated_at,
+                    version = b.version + 1
+                WHERE (b.title, b.author, b.publish_year, b.price)
+                    IS DISTINCT FROM (EXCLUDED.title, EXCLUDED.author, EXCLUDED.publish_year, EXCLUDED.price)
+                RETURNING b.id, b.isbn, b.xmax = 0 AS inserted
+            ), outbox AS (
+                INSERT INTO book_outbox (event_type, book_id, isbn)
+                SELECT CASE WHEN inserted THEN 'CREATED' ELSE 'UPDATED' END, id, isbn FROM merged
+            )
+            SELECT id, isbn FROM merged
+            """;
+
+    private static final String EXPORT_CSV = """
+            COPY (SELECT id, title, author, isbn, publish_year, price, created_at, updated_at FROM book)
+            TO STDOUT WITH (FORMAT csv, HEADER true)
+            """;
+
+    /**
+     * 由資料庫組出每一行 JSON，再以與匯入相同的控制字元設定輸出，JSON 內容不會被加上引號或跳脫
+     * (json_build_object 會把換行與控制字元輸出為 JSON 跳脫序列，不會與行尾或引號字元衝突)
+     */
+    private static final String EXPORT_NDJSON = """
+            COPY (SELECT json_build_object(
+                    'id', id, 'title', title, 'author', author, 'isbn', isbn, 'publishYear', publish_year,
+                    'price', price, 'createdAt', created_at, 'updatedAt', updated_at)
+                  FROM book)
+            TO STDOUT WITH (FORMAT csv, QUOTE E'\\x01', DELIMITER E'\\x02')
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 建立暫存表，並以 COPY 將內容串流寫入
+     *
+     * @param input    匯入內容，由呼叫端負責關閉
+     * @param format   匯入檔案格式
+     * @param progress 每送出一段資料就回報其中約略的資料列數 (以換行字元計算)
+     * @return COPY 實際寫入的資料列數
+     */
+    public long copyIntoStaging(InputStream input, Format format, LongConsumer progress) {
+        jdbcTemplate.execute(CREATE_STAGING_TABLE);
+        String copySql = format == Format.CSV ? COPY_CSV : COPY_NDJSON;
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+            try {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int read;
+                while ((read = input.read(buffer)) > 0) {
+                    copyIn.writeToCopy(buffer, 0, read);
+                    progress.accept(countLines(buffer, read));
+                }
+                return copyIn.endCopy();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    /**
+     * 將暫存表合併到 book
+     *
+     * @param format  匯入檔案格式，需與 {@link #copyIntoStaging} 相同
+     * @param touched 每一本被新增或實際更新的書本都會以 (ISBN, ID) 回呼一次，這些書本的 outbox 事件已在同一個語句中寫入
+     * @return 新增或更新的筆數
+     */
+    public long mergeStaging(Format format, ObjIntConsumer<String> touched) {
+        String sql = MERGE.formatted(format == Format.CSV ? CSV_SOURCE : NDJSON_SOURCE, ID_ALLOCATION_SIZE);
+        long[] merged = { 0 };
+        jdbcTemplate.query(sql, rs -> {
+            touched.accept(rs.getString(2), rs.getInt(1));
+            merged[0]++;
+        });
+        return merged[0];
+    }
+
+    /**
+     * 以 COPY TO STDOUT 將所有書本寫到輸出，資料列依實體儲存順序輸出，不保證依 ID 排序
+     *
+     * @param format 匯出格式，CSV 含標題列，NDJSON 的欄位名稱與 BookDto 相同
+     * @param output 輸出目標，由呼叫端負責關閉
+     * @return 匯出的資料列數
+     */
+    public long copyOut(Format format, OutputStream output) {
+        String sql = format == Format.CSV ? EXPORT_CSV : EXPORT_NDJSON;
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, output);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    private static long countLines(byte[] buffer, int length) {
+        long lines = 0;
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+}
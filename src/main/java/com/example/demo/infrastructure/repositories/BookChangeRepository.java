@@ -0,0 +1,93 @@
+package com.example.demo.infrastructure.repositories;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.models.BookChange;
+import com.example.demo.models.BookRow;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 書本異動紀錄的查詢
+ * book_change 由 book 資料表的觸發程序維護，每本書一筆，以 (txid, book_id) 的 keyset 依異動順序讀取
+ *
+ * 只回傳 txid 小於目前 snapshot xmin 的異動：比 xmin 小的交易都已結束，之後不會再出現游標之前的異動，
+ * 因此用戶端以最後一筆的游標繼續讀取不會漏掉較晚 commit 的交易；代價是執行中的長交易會延後之後所有異動的出現時間
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookChangeRepository {
+
+    private static final String SELECT_BOOK_CHANGE = """
+            SELECT c.txid, c.book_id, c.deleted OR b.id IS NULL, c.changed_at,
+                   b.title, b.author, b.isbn, b.publish_year, b.price, b.created_at, b.updated_at
+            FROM book_change c
+            LEFT JOIN book b ON b.id = c.book_id AND NOT c.deleted
+            WHERE c.txid < pg_snapshot_xmin(pg_current_snapshot())::text::bigint
+            """;
+
+    private static final String FIND_AFTER = SELECT_BOOK_CHANGE + """
+            AND (c.txid, c.book_id) > (?, ?)
+            ORDER BY c.txid, c.book_id
+            LIMIT ?
+            """;
+
+    private static final String FIND_LATEST = SELECT_BOOK_CHANGE + """
+            ORDER BY c.txid DESC, c.book_id DESC
+            LIMIT 1
+            """;
+
+    private static final RowMapper<BookChange> BOOK_CHANGE_MAPPER = BookChangeRepository::mapRow;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 以 keyset 分頁查詢異動
+     *
+     * @param afterTxid   只回傳游標之後的異動：上一筆的交易 ID
+     * @param afterBookId 只回傳游標之後的異動：上一筆的書本 ID
+     * @param limit       最多回傳筆數
+     * @return 依 (txid, book_id) 遞增排序的異動
+     */
+    public List<BookChange> findAfter(long afterTxid, int afterBookId, int limit) {
+        return jdbcTemplate.query(FIND_AFTER, BOOK_CHANGE_MAPPER, afterTxid, afterBookId, limit);
+    }
+
+    /**
+     * 查詢目前最後一筆可讀取的異動，用於從現在開始訂閱
+     *
+     * @return 最後一筆異動；尚無任何異動時回傳 null
+     */
+    public BookChange findLatest() {
+        List<BookChange> changes = jdbcTemplate.query(FIND_LATEST, BOOK_CHANGE_MAPPER);
+        return changes.isEmpty() ? null : changes.getFirst();
+    }
+
+    private static BookChange mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        int bookId = resultSet.getInt(2);
+        boolean deleted = resultSet.getBoolean(3);
+        BookRow book = null;
+        if (!deleted) {
+            int publishYear = resultSet.getInt(8);
+            boolean publishYearIsNull = resultSet.wasNull();
+            book = new BookRow(
+                    bookId,
+                    resultSet.getString(5),
+                    resultSet.getString(6),
+                    resultSet.getString(7),
+                    publishYearIsNull ? null : publishYear,
+                    resultSet.getBigDecimal(9),
+                    resultSet.getObject(10, OffsetDateTime.class),
+                    resultSet.getObject(11, OffsetDateTime.class));
+        }
+        return new BookChange(resultSet.getLong(1), bookId, deleted, resultSet.getObject(4, OffsetDateTime.class),
+                book);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.infrastructure.repositories;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.models.Book;
+import com.example.demo.models.BookChangeEvent;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 書本異動事件 outbox 資料存取層
+ *
+ * 1. 寫入端在書本異動的同一個交易中新增事件，交易回滾時事件也一併消失
+ * 2. relay 以 DELETE ... FOR UPDATE SKIP LOCKED ... RETURNING 一次取出並刪除一批事件，
+ *    多個節點可同時處理而不會重複取得同一筆；發送失敗時交易回滾，事件留待下次重試
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookOutboxRepository {
+
+    private static final String INSERT_EVENT = """
+            INSERT INTO book_outbox (event_type, book_id, isbn) VALUES (?, ?, ?)
+            """;
+
+    private static final String DRAIN_EVENTS = """
+            DELETE FROM book_outbox
+            WHERE id IN (SELECT id FROM book_outbox ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)
+            RETURNING id, event_type, book_id, isbn, occurred_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 新增異動事件，必須在書本寫入的交易中呼叫
+     *
+     * @param type  事件類型
+     * @param books 異動的書本，只需要 ID 與 ISBN
+     */
+    public void append(BookChangeEvent.Type type, Collection<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_EVENT, books, books.size(), (ps, book) -> {
+            ps.setString(1, type.name());
+            ps.setInt(2, book.getId());
+            ps.setString(3, book.getIsbn());
+        });
+    }
+
+    /**
+     * 取出並刪除最舊的一批事件，已被其他交易鎖定的事件會被略過
+     * 必須在交易中呼叫，事件在交易提交後才真正刪除
+     *
+     * @param limit 最多取出的筆數
+     * @return 依事件 ID 排序的事件
+     */
+    public List<BookChangeEvent> drain(int limit) {
+        return jdbcTemplate.query(DRAIN_EVENTS, (rs, rowNum) -> new BookChangeEvent(
+                rs.getLong("id"),
+                BookChangeEvent.Type.valueOf(rs.getString("event_type")),
+                rs.getInt("book_id"),
+                rs.getString("isbn"),
+                rs.getObject("occurred_at", OffsetDateTime.class)), limit)
+                .stream()
+                .sorted(Comparator.comparingLong(BookChangeEvent::id))
+                .toList();
+    }
+}
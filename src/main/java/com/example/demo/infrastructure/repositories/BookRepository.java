@@ -1,11 +1,21 @@
 package com.example.demo.infrastructure.repositories;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.models.Book;
 
+import jakarta.persistence.QueryHint;
+
 /**
  * Book 資料存取層介面
  * 提供標準的 CRUD 操作和複雜查詢功能
@@ -18,6 +28,33 @@ import com.example.demo.models.Book;
 @Repository
 public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecificationExecutor<Book> {
 
+    /**
+     * 以單一語句更新書本的 SQL：UPDATE 遞增版本並以 RETURNING 取回更新後的資料，
+     * 同一個語句中以 CTE 寫入 outbox 的 UPDATED 事件，整個更新只需要一次網路往返
+     * 版本條件 (AND version IN ...) 接在 {@link #UPDATE_BOOK} 與 {@link #RETURNING_BOOK} 之間
+     */
+    String UPDATE_BOOK = """
+            WITH updated AS (
+                UPDATE book SET
+                    title = :#{#book.title},
+                    author = :#{#book.author},
+                    isbn = :#{#book.isbn},
+                    publish_year = :#{#book.publishYear},
+                    price = :#{#book.price},
+                    updated_at = now(),
+                    version = version + 1
+                WHERE id = :id
+            """;
+
+    String RETURNING_BOOK = """
+                RETURNING id, title, author, isbn, publish_year, price, created_at, updated_at, version
+            ), outbox AS (
+                INSERT INTO book_outbox (event_type, book_id, isbn)
+                SELECT 'UPDATED', id, isbn FROM updated
+            )
+            SELECT * FROM updated
+            """;
+
     // 標準的 JpaRepository 已提供以下基本操作：
     // - save(entity): 儲存或更新實體
     // - findById(id): 根據 ID 查詢實體
@@ -34,6 +71,103 @@ public interface BookRepository extends JpaRepository<Book, Integer>, JpaSpecifi
      */
     boolean existsByIsbn(String isbn);
 
+    /**
+     * 以單一查詢取得 ISBN 在指定集合中的書本，用於批次寫入時的唯一性檢查
+     *
+     * @param isbns 國際標準書號集合
+     * @return 已存在的書本列表
+     */
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    /**
+     * 串流所有書本的識別資訊 (ID 與 ISBN)，用於建立 Bloom filter
+     * 只查詢兩個欄位，不建立實體物件
+     *
+     * @return 書本識別資訊串流
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"))
+    @Query("select b.id as id, b.isbn as isbn from Book b")
+    Stream<BookIdentity> streamAllIdentities();
+
+    /**
+     * 全文檢索書名與作者，依相關程度排序
+     * 1. search_vector 以 GIN 索引比對關鍵字 (支援前綴)
+     * 2. title / author 以 pg_trgm 的 GIN 索引比對部分字串 (ILIKE) 及模糊比對 (word_similarity)
+     * 查詢字串至少需要 3 個字元，三元組索引才有作用；較短的查詢請改用 {@link #searchByKeywords}
+     *
+     * @param tsquery 以 to_tsquery 語法組成的關鍵字查詢，例如 'spring':* & 'boot':*
+     * @param text    使用者輸入的原始查詢字串，用於模糊比對與排序
+     * @param pattern ILIKE 使用的樣式，例如 %spring boot%
+     * @param limit   最多回傳筆數
+     * @param offset  略過的筆數
+     * @return 依相關程度遞減排序的書本
+     */
+    @Query(value = """
+            SELECT b.id, b.title, b.author, b.isbn, b.publish_year, b.price, b.created_at, b.updated_at, b.version
+            FROM book b, to_tsquery('simple', :tsquery) AS q
+            WHERE b.search_vector @@ q
+               OR b.title ILIKE :pattern
+               OR b.author ILIKE :pattern
+               OR :text <% b.title
+               OR :text <% b.author
+            ORDER BY ts_rank_cd(b.search_vector, q) * 2
+                     + word_similarity(:text, b.title)
+                     + word_similarity(:text, b.author) / 2 DESC,
+                     b.id
+            LIMIT :limit OFFSET :offset
+            """, nativeQuery = true)
+    List<Book> searchByText(String tsquery, String text, String pattern, int limit, long offset);
+
+    /**
+     * 只以 search_vector 比對關鍵字 (支援前綴)，用於過短而無法使用三元組索引的查詢字串
+     *
+     * @param tsquery 以 to_tsquery 語法組成的關鍵字查詢
+     * @param limit   最多回傳筆數
+     * @param offset  略過的筆數
+     * @return 依相關程度遞減排序的書本
+     */
+    @Query(value = """
+            SELECT b.id, b.title, b.author, b.isbn, b.publish_year, b.price, b.created_at, b.updated_at, b.version
+            FROM book b, to_tsquery('simple', :tsquery) AS q
+            WHERE b.search_vector @@ q
+            ORDER BY ts_rank_cd(b.search_vector, q) DESC, b.id
+            LIMIT :limit OFFSET :offset
+            """, nativeQuery = true)
+    List<Book> searchByKeywords(String tsquery, int limit, long offset);
+
+    /**
+     * 以單一 UPDATE ... RETURNING 更新書本並寫入 outbox 事件，一次網路往返完成
+     * ISBN 重複時由 uk_isbn 唯一約束拋出 DataIntegrityViolationException
+     *
+     * @param id   書本 ID
+     * @param book 新的書本內容
+     * @return 更新後的書本，書本不存在時為空
+     */
+    @Query(value = UPDATE_BOOK + RETURNING_BOOK, nativeQuery = true)
+    Optional<Book> updateById(Integer id, Book book);
+
+    /**
+     * 只有在版本符合時才更新書本 (樂觀鎖)，並行更新時只有一個交易會成功
+     * 其他交易會等待先提交的交易，再以新的版本重新比對 WHERE 條件而更新 0 筆
+     *
+     * @param id       書本 ID
+     * @param book     新的書本內容
+     * @param versions 可接受的目前版本
+     * @return 更新後的書本，書本不存在或版本不符時為空
+     */
+    @Query(value = UPDATE_BOOK + "    AND version IN (:versions)\n" + RETURNING_BOOK, nativeQuery = true)
+    Optional<Book> updateByIdAndVersionIn(Integer id, Book book, Collection<Long> versions);
+
+    /**
+     * 書本識別資訊投影
+     */
+    interface BookIdentity {
+
+        Integer getId();
+
+        String getIsbn();
+    }
+
     // 可在此處添加自定義查詢方法
     // 例如：
     // List<Book> findByFieldName(String fieldName);
@@ -0,0 +1,90 @@
+package com.example.demo.infrastructure.repositories;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.models.BookRow;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 書本列表的投影查詢
+ * 以 JdbcTemplate 直接將資料列轉為 {@link BookRow}，不經過 Hibernate 實體、持久化上下文與 DTO 轉換，
+ * 用於只讀取並輸出的列表端點
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookRowRepository {
+
+    private static final String SELECT_BOOK_ROW = """
+            SELECT id, title, author, isbn, publish_year, price, created_at, updated_at
+            FROM book
+            """;
+
+    private static final String FIND_PAGE = SELECT_BOOK_ROW + """
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?
+            """;
+
+    private static final String FIND_ALL = SELECT_BOOK_ROW + """
+            ORDER BY id
+            """;
+
+    /**
+     * 串流查詢時每次由資料庫取回的筆數
+     */
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static final RowMapper<BookRow> BOOK_ROW_MAPPER = BookRowRepository::mapRow;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 以 keyset 分頁查詢書本
+     *
+     * @param afterId 只回傳 ID 大於此值的書本
+     * @param limit   最多回傳筆數
+     * @return 依 ID 遞增排序的書本
+     */
+    public List<BookRow> findPage(int afterId, int limit) {
+        return jdbcTemplate.query(FIND_PAGE, BOOK_ROW_MAPPER, afterId, limit);
+    }
+
+    /**
+     * 以資料庫游標依 ID 遞增順序逐筆處理所有書本，不在記憶體中累積結果
+     * 注意：必須在交易中呼叫，PostgreSQL 才會依 fetch size 分批傳回資料列
+     *
+     * @param consumer 每筆資料列的處理邏輯
+     */
+    public void streamAll(Consumer<BookRow> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(FIND_ALL);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> consumer.accept(mapRow(resultSet, resultSet.getRow())));
+    }
+
+    private static BookRow mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        int publishYear = resultSet.getInt(5);
+        boolean publishYearIsNull = resultSet.wasNull();
+        return new BookRow(
+                resultSet.getInt(1),
+                resultSet.getString(2),
+                resultSet.getString(3),
+                resultSet.getString(4),
+                publishYearIsNull ? null : publishYear,
+                resultSet.getBigDecimal(6),
+                resultSet.getObject(7, OffsetDateTime.class),
+                resultSet.getObject(8, OffsetDateTime.class));
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.demo.infrastructure.repositories;
+
+import java.math.BigDecimal;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.Nullable;
+
+import com.example.demo.models.Book;
+
+import jakarta.persistence.criteria.Path;
+
+/**
+ * 書本動態查詢條件
+ * 搭配 {@link BookRepository} 繼承的 JpaSpecificationExecutor 使用，條件為 null 時不加入任何限制
+ *
+ * 每個條件都對應到一個以 (欄位, id) 建立的複合索引：
+ * - 作者前綴：idx_book_author_pattern (varchar_pattern_ops)
+ * - 作者排序：idx_book_author_id
+ * - 出版年份：idx_book_publish_year_id
+ * - 價格：idx_book_price_id
+ */
+public final class BookSpecifications {
+
+    private BookSpecifications() {
+    }
+
+    /**
+     * 可排序的欄位，排序時一律再以 ID 作為第二鍵，讓 keyset 游標可以唯一定位
+     */
+    public enum SortField {
+        ID("id"),
+        AUTHOR("author"),
+        PUBLISH_YEAR("publishYear"),
+        PRICE("price");
+
+        private final String property;
+
+        SortField(String property) {
+            this.property = property;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        /**
+         * 依 API 使用的屬性名稱取得排序欄位
+         *
+         * @throws IllegalArgumentException 不支援的屬性名稱
+         */
+        public static SortField fromProperty(String property) {
+            for (SortField field : values()) {
+                if (field.property.equals(property)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("不支援的排序欄位: " + property);
+        }
+
+        /**
+         * 取得書本在此欄位上的值
+         */
+        @Nullable
+        public Comparable<?> valueOf(Book book) {
+            return switch (this) {
+                case ID -> book.getId();
+                case AUTHOR -> book.getAuthor();
+                case PUBLISH_YEAR -> book.getPublishYear();
+                case PRICE -> book.getPrice();
+            };
+        }
+
+        /**
+         * 將游標中的字串還原為此欄位的值
+         */
+        public Comparable<?> parse(String value) {
+            return switch (this) {
+                case ID, PUBLISH_YEAR -> Integer.valueOf(value);
+                case AUTHOR -> value;
+                case PRICE -> new BigDecimal(value);
+            };
+        }
+    }
+
+    /**
+     * 作者名稱以指定字串開頭 (區分大小寫)
+     */
+    public static Specification<Book> authorStartsWith(@Nullable String prefix) {
+        return (root, query, cb) -> prefix == null || prefix.isEmpty()
+                ? null
+                : cb.like(root.get("author"), escapeLike(prefix) + "%", '\\');
+    }
+
+    /**
+     * 出版年份介於指定範圍 (含上下限)
+     */
+    public static Specification<Book> publishYearBetween(@Nullable Integer from, @Nullable Integer to) {
+        return (root, query, cb) -> {
+            Path<Integer> publishYear = root.get("publishYear");
+            if (from != null && to != null) {
+                return cb.between(publishYear, from, to);
+            }
+            if (from != null) {
+                return cb.greaterThanOrEqualTo(publishYear, from);
+            }
+            return to == null ? null : cb.lessThanOrEqualTo(publishYear, to);
+        };
+    }
+
+    /**
+     * 價格介於指定範圍 (含上下限)
+     */
+    public static Specification<Book> priceBetween(@Nullable BigDecimal min, @Nullable BigDecimal max) {
+        return (root, query, cb) -> {
+            Path<BigDecimal> price = root.get("price");
+            if (min != null && max != null) {
+                return cb.between(price, min, max);
+            }
+            if (min != null) {
+                return cb.greaterThanOrEqualTo(price, min);
+            }
+            return max == null ? null : cb.lessThanOrEqualTo(price, max);
+        };
+    }
+
+    /**
+     * 排序方式：先依指定欄位，再依 ID
+     * 空值沿用 PostgreSQL 預設的位置 (遞增排最後、遞減排最前)，與 {@link #after} 的游標條件一致，
+     * 同一個 (欄位, id) 索引可以正向或反向掃描
+     */
+    public static Sort sortBy(SortField field, Sort.Direction direction) {
+        return field == SortField.ID
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, field.getProperty(), "id");
+    }
+
+    /**
+     * keyset 游標條件：只回傳依 {@link #sortBy} 排序後位於 (value, id) 之後、且與游標同為空值或同為非空值的書本
+     * 排序欄位一律以範圍條件開頭 (欄位 >= value、欄位 <= value 或 IS NULL)，讓 (欄位, id) 索引直接定位到游標的位置；
+     * 排在另一側的空值或非空值由 {@link #followingSegment} 另外查詢，不以 OR 合併，避免無法使用索引範圍掃描
+     *
+     * @param field     排序欄位
+     * @param direction 排序方向
+     * @param value     上一頁最後一筆在排序欄位上的值，可為 null
+     * @param id        上一頁最後一筆的 ID
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static Specification<Book> after(SortField field, Sort.Direction direction, @Nullable Comparable value,
+            Integer id) {
+        boolean ascending = direction.isAscending();
+        return (root, query, cb) -> {
+            Path<Integer> idPath = root.get("id");
+            var idAfter = ascending ? cb.greaterThan(idPath, id) : cb.lessThan(idPath, id);
+            if (field == SortField.ID) {
+                return idAfter;
+            }
+            Path<Comparable> path = root.get(field.getProperty());
+            if (value == null) {
+                return cb.and(cb.isNull(path), idAfter);
+            }
+            var from = ascending ? cb.greaterThanOrEqualTo(path, value) : cb.lessThanOrEqualTo(path, value);
+            var beyond = ascending ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+            return cb.and(from, cb.or(beyond, idAfter));
+        };
+    }
+
+    /**
+     * 游標所在的空值或非空值區段之後，依 {@link #sortBy} 排序接著的另一個區段
+     * 遞增時空值排在最後，非空值之後接著所有空值；遞減時空值排在最前，空值之後接著所有非空值
+     *
+     * @param value 上一頁最後一筆在排序欄位上的值，可為 null
+     * @return 沒有下一個區段時回傳 null (ID 與作者不會是空值)
+     */
+    @Nullable
+    public static Specification<Book> followingSegment(SortField field, Sort.Direction direction,
+            @Nullable Object value) {
+        if (field == SortField.ID || field == SortField.AUTHOR) {
+            return null;
+        }
+        if (direction.isAscending() && value != null) {
+            return (root, query, cb) -> cb.isNull(root.get(field.getProperty()));
+        }
+        if (!direction.isAscending() && value == null) {
+            return (root, query, cb) -> cb.isNotNull(root.get(field.getProperty()));
+        }
+        return null;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.infrastructure.repositories;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import com.example.demo.models.BookStats;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 書本統計的查詢
+ * book_stats 由 book 資料表的觸發程序維護，每個作者與出版年份各一筆，查詢只讀取彙總後的資料列，
+ * 成本與書本數量無關；依作者查詢以 idx_book_stats_count 取出前 N 筆，依年份查詢只有年份數量的資料列
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookStatsRepository {
+
+    private static final String SELECT_BOOK_STATS = """
+            SELECT group_key, book_count, priced_count,
+                   CASE WHEN priced_count > 0 THEN min_price END,
+                   CASE WHEN priced_count > 0 THEN round(price_sum / priced_count, 2) END,
+                   CASE WHEN priced_count > 0 THEN max_price END
+            FROM book_stats
+            WHERE dimension = ? AND book_count > 0
+            """;
+
+    private static final String FIND_BY_AUTHOR = SELECT_BOOK_STATS + """
+            ORDER BY book_count DESC, group_key
+            LIMIT ?
+            """;
+
+    private static final String FIND_BY_PUBLISH_YEAR = SELECT_BOOK_STATS + """
+            ORDER BY nullif(group_key, '')::integer NULLS LAST
+            LIMIT ?
+            """;
+
+    /**
+     * 各出版年份 (包含年份為空) 的書本互不重疊且涵蓋整個目錄，加總即為整個目錄的統計
+     */
+    private static final String FIND_TOTALS = """
+            SELECT NULL, coalesce(sum(book_count), 0), coalesce(sum(priced_count), 0),
+                   min(min_price) FILTER (WHERE priced_count > 0),
+                   round(sum(price_sum) / nullif(sum(priced_count), 0), 2),
+                   max(max_price) FILTER (WHERE priced_count > 0)
+            FROM book_stats
+            WHERE dimension = 'publish_year' AND book_count > 0
+            """;
+
+    private static final RowMapper<BookStats> BOOK_STATS_MAPPER = BookStatsRepository::mapRow;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 統計維度
+     */
+    public enum Dimension {
+        AUTHOR("author", "author"),
+        PUBLISH_YEAR("publishYear", "publish_year");
+
+        private final String property;
+        private final String column;
+
+        Dimension(String property, String column) {
+            this.property = property;
+            this.column = column;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        /**
+         * 依 API 使用的屬性名稱取得統計維度
+         *
+         * @throws IllegalArgumentException 不支援的屬性名稱
+         */
+        public static Dimension fromProperty(String property) {
+            for (Dimension dimension : values()) {
+                if (dimension.property.equals(property)) {
+                    return dimension;
+                }
+            }
+            throw new IllegalArgumentException("不支援的統計維度: " + property);
+        }
+    }
+
+    /**
+     * 查詢各組的統計
+     *
+     * @param dimension 統計維度：依作者時以書本數量由多到少排序，依出版年份時以年份遞增排序 (年份為空的排在最後)
+     * @param limit     最多回傳筆數
+     */
+    public List<BookStats> findGroups(Dimension dimension, int limit) {
+        String sql = dimension == Dimension.AUTHOR ? FIND_BY_AUTHOR : FIND_BY_PUBLISH_YEAR;
+        return jdbcTemplate.query(sql, BOOK_STATS_MAPPER, dimension.column, limit);
+    }
+
+    /**
+     * 查詢整個目錄的統計
+     */
+    public BookStats findTotals() {
+        return jdbcTemplate.queryForObject(FIND_TOTALS, BOOK_STATS_MAPPER);
+    }
+
+    private static BookStats mapRow(ResultSet resultSet, int rowNum) throws SQLException {
+        String key = resultSet.getString(1);
+        return new BookStats(
+                StringUtils.hasLength(key) ? key : null,
+                resultSet.getLong(2),
+                resultSet.getLong(3),
+                resultSet.getBigDecimal(4),
+                resultSet.getBigDecimal(5),
+                resultSet.getBigDecimal(6));
+    }
+}
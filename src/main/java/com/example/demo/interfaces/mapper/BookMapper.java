@@ -1,14 +1,26 @@
 package com.example.demo.interfaces.mapper;
 
+import java.util.List;
+
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.NullValuePropertyMappingStrategy;
 import org.mapstruct.ReportingPolicy;
 
+import com.example.demo.applications.BookBatchItem;
+import com.example.demo.applications.BookImportProgress;
+import com.example.demo.interfaces.dto.BookBatchItemResult;
+import com.example.demo.interfaces.dto.BookChangeDto;
 import com.example.demo.interfaces.dto.BookDto;
+import com.example.demo.interfaces.dto.BookImportJob;
+import com.example.demo.interfaces.dto.BookPatchRequest;
 import com.example.demo.interfaces.dto.BookRequest;
+import com.example.demo.interfaces.dto.BookStatsGroup;
 import com.example.demo.models.Book;
+import com.example.demo.models.BookChange;
+import com.example.demo.models.BookRow;
+import com.example.demo.models.BookStats;
 
 /**
  * 書本資料轉換器
@@ -29,19 +41,63 @@ public interface BookMapper {
      */
     BookDto toDto(Book entity);
 
+    /**
+     * 將列表查詢的資料列轉換為 DTO
+     */
+    BookDto toDto(BookRow row);
+
     /**
      * 將 DTO 轉換為實體
      */
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     Book toEntity(BookRequest dto);
 
+    /**
+     * 批次將 DTO 轉換為實體
+     */
+    List<Book> toEntities(List<BookRequest> dtos);
+
+    /**
+     * 將批次寫入的單筆結果轉換為 DTO
+     */
+    @Mapping(target = "id", source = "book.id")
+    @Mapping(target = "isbn", source = "book.isbn")
+    BookBatchItemResult toBatchItemResult(BookBatchItem item);
+
+    /**
+     * 將匯入工作進度轉換為 DTO
+     */
+    BookImportJob toImportJobDto(BookImportProgress progress);
+
+    /**
+     * 將書本異動轉換為 DTO，已刪除的書本沒有 book
+     */
+    @Mapping(target = "id", source = "bookId")
+    BookChangeDto toChangeDto(BookChange change);
+
+    /**
+     * 將一組書本統計轉換為 DTO
+     */
+    BookStatsGroup toStatsGroup(BookStats stats);
+
     /**
      * 更新實體
      */
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
     void updateEntity(@MappingTarget Book entity, BookRequest dto);
+
+    /**
+     * 以部分更新的內容更新實體，未提供的欄位維持原值
+     */
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    void updateEntity(@MappingTarget Book entity, BookPatchRequest dto);
 } 
\ No newline at end of file
@@ -1,18 +1,66 @@
 package com.example.demo.interfaces.rest;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.example.demo.applications.BookBatchItem;
+import com.example.demo.applications.BookCatalogVersion;
+import com.example.demo.applications.BookChangeBroadcaster;
+import com.example.demo.applications.BookChangeFeed;
+import com.example.demo.applications.BookChangePage;
+import com.example.demo.applications.BookPopularity;
+import com.example.demo.applications.BookRowPage;
+import com.example.demo.applications.BookSearchCriteria;
+import com.example.demo.applications.BookSearchPage;
 import com.example.demo.applications.BookService;
+import com.example.demo.applications.BookStatsReport;
+import com.example.demo.applications.BookStatsService;
+import com.example.demo.config.ChangeFeedProperties;
+import com.example.demo.infrastructure.observation.FastPathObservation;
+import com.example.demo.infrastructure.repositories.BookBulkRepository.Format;
+import com.example.demo.infrastructure.repositories.BookSpecifications.SortField;
+import com.example.demo.infrastructure.repositories.BookStatsRepository.Dimension;
 import com.example.demo.interfaces.api.BooksApi;
+import com.example.demo.interfaces.dto.BookBatchGetResult;
+import com.example.demo.interfaces.dto.BookBatchItemResult;
+import com.example.demo.interfaces.dto.BookBatchResult;
+import com.example.demo.interfaces.dto.BookChangeDto;
+import com.example.demo.interfaces.dto.BookChangeResult;
 import com.example.demo.interfaces.dto.BookDto;
+import com.example.demo.interfaces.dto.BookPatchRequest;
 import com.example.demo.interfaces.dto.BookRequest;
+import com.example.demo.interfaces.dto.BookStatsResult;
 import com.example.demo.interfaces.mapper.BookMapper;
 import com.example.demo.models.Book;
+import com.example.demo.models.BookChange;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.micrometer.tracing.Baggage;
 import io.micrometer.tracing.Tracer;
@@ -24,24 +72,255 @@ import lombok.extern.slf4j.Slf4j;
  * 書本控制器
  * Book - 資料庫實體 (com.example.demo.models.Book)
  * BookDto - API 響應 DTO (com.example.demo.interfaces.dto.BookDto)
+ *
+ * 條件式請求：
+ * - 單本書本以樂觀鎖版本加上回應格式產生強 ETag (例如 "3-cbor"，格式由 {@link BookEtagAdvice} 加上)，並附上 Last-Modified；
+ *   If-Modified-Since 由 Spring MVC 回應 304，If-None-Match 由 BookEtagAdvice 以帶有格式的 ETag 比對後回應 304
+ * - 書本列表以目錄版本產生弱 ETag，版本未變時在查詢資料庫前就回應 304
+ * - PUT / PATCH 支援 If-Match，任何格式的 ETag 都轉換為版本條件由資料庫在更新時比對，書本已被其他請求修改時回應 412
+ *
+ * 查詢端點依 Accept 回應 JSON、CBOR、Smile 或 Protobuf；可被快取的回應帶有 Vary: Accept，避免快取把不同格式混用
  */
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 public class BookController implements BooksApi {
 
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 允許 CDN 與瀏覽器保存回應，但每次使用前都要以條件式請求向來源驗證
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
     private final BookService bookService;
+    private final BookStatsService bookStatsService;
+    private final BookCatalogVersion bookCatalogVersion;
+    private final BookPopularity bookPopularity;
     private final BookMapper bookMapper;
     private final Tracer tracer;
+    private final ObjectMapper objectMapper;
+    private final FastPathObservation bookDetailsObservation;
+    private final BookChangeFeed bookChangeFeed;
+    private final BookChangeBroadcaster bookChangeBroadcaster;
+    private final ChangeFeedProperties changeFeedProperties;
+
+    @Override
+    public ResponseEntity<List<BookDto>> booksGet(Integer limit, Integer after, String ifNoneMatch)
+            throws Exception {
+        OptionalLong catalogVersion = bookCatalogVersion.current();
+        String etag = catalogVersion.isPresent() ? "W/\"" + catalogVersion.getAsLong() + "\"" : null;
+        if (etag != null && matchesWeakly(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE)
+                .varyBy(HttpHeaders.ACCEPT)
+                .build();
+        }
+        log.info("分頁獲取書本，limit: {}, after: {}", limit, after);
+        BookRowPage page = bookService.getBooks(after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT);
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        if (page.hasNext()) {
+            Integer nextCursor = page.rows().get(page.rows().size() - 1).id();
+            String nextLink = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", nextCursor)
+                .toUriString();
+            response.header(HttpHeaders.LINK, "<" + nextLink + ">; rel=\"next\"");
+        }
+        // 由 BookRowListHttpMessageConverter 直接將資料列寫成 JSON / CBOR / Smile，不建立 BookDto
+        return response.body(new BookRowList(page.rows(), bookMapper));
+    }
 
     @Override
-    public ResponseEntity<List<BookDto>> booksGet() throws Exception {
-        log.info("獲取所有書本");
-        List<Book> books = bookService.getAllBooks();
+    public ResponseEntity<List<BookDto>> booksSearchGet(String author, Integer publishYearFrom, Integer publishYearTo,
+        BigDecimal minPrice, BigDecimal maxPrice, String sort, String direction, Integer limit, String cursor)
+        throws Exception {
+        SortField sortField;
+        Sort.Direction sortDirection;
+        try {
+            sortField = SortField.fromProperty(sort);
+            sortDirection = Sort.Direction.fromString(direction);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        BookSearchPage page = bookService.searchBooks(new BookSearchCriteria(author, publishYearFrom, publishYearTo,
+            minPrice, maxPrice, sortField, sortDirection, limit, cursor));
+        List<BookDto> bookDtos = page.books().stream()
+            .map(bookMapper::toDto)
+            .collect(Collectors.toList());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            String nextLink = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", page.nextCursor())
+                .toUriString();
+            response.header(HttpHeaders.LINK, "<" + nextLink + ">; rel=\"next\"");
+        }
+        return response.body(bookDtos);
+    }
+
+    @Override
+    public ResponseEntity<List<BookDto>> booksSearchTextGet(String q, Integer page, Integer size) throws Exception {
+        if (q.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "查詢字串不可為空白");
+        }
+        Slice<Book> books = bookService.searchBooksByText(q, page, size);
         List<BookDto> bookDtos = books.stream()
             .map(bookMapper::toDto)
             .collect(Collectors.toList());
-        return ResponseEntity.ok(bookDtos);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (books.hasNext() && page < BookService.MAX_TEXT_SEARCH_PAGE) {
+            String nextLink = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("page", page + 1)
+                .toUriString();
+            response.header(HttpHeaders.LINK, "<" + nextLink + ">; rel=\"next\"");
+        }
+        return response.body(bookDtos);
+    }
+
+    @Override
+    public ResponseEntity<BookStatsResult> booksStatsGet(String groupBy, Integer limit, String ifNoneMatch)
+            throws Exception {
+        Dimension dimension;
+        try {
+            dimension = Dimension.fromProperty(groupBy);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        OptionalLong catalogVersion = bookCatalogVersion.current();
+        String etag = catalogVersion.isPresent() ? "W/\"" + catalogVersion.getAsLong() + "\"" : null;
+        if (etag != null && matchesWeakly(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+        }
+        Long version = catalogVersion.isPresent() ? catalogVersion.getAsLong() : null;
+        BookStatsReport report = bookStatsService.getStats(dimension, limit, version);
+        BookStatsResult result = new BookStatsResult()
+            .groupBy(dimension.getProperty())
+            .version(version)
+            .totals(bookMapper.toStatsGroup(report.totals()))
+            .groups(report.groups().stream()
+                .map(bookMapper::toStatsGroup)
+                .collect(Collectors.toList()));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(REVALIDATE);
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        return response.body(result);
+    }
+
+    /**
+     * 以 NDJSON 串流輸出所有書本
+     * 每讀到一筆就以 JsonGenerator 寫出一行 JSON，不建立實體與 DTO，也不在記憶體中累積整個目錄
+     */
+    @GetMapping(path = "/books/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> booksStreamGet() {
+        log.info("串流輸出所有書本");
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // 每筆之間以換行分隔，不使用預設的空白
+                generator.setRootValueSeparator(null);
+                bookService.streamAllBooks(row -> {
+                    try {
+                        BookJsonWriter.write(generator, row);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * 匯出所有書本
+     * 資料由 PostgreSQL COPY TO STDOUT 直接寫入回應，可選擇即時以 gzip 壓縮
+     *
+     * @param format 匯出格式：csv (預設) 或 ndjson
+     * @param gzip   是否以 gzip 壓縮，壓縮時回應帶有 Content-Encoding: gzip
+     */
+    @GetMapping(path = "/books/export")
+    public ResponseEntity<StreamingResponseBody> booksExportGet(
+        @RequestParam(defaultValue = "csv") String format,
+        @RequestParam(defaultValue = "false") boolean gzip) {
+        Format exportFormat = switch (format.toLowerCase()) {
+            case "csv" -> Format.CSV;
+            case "ndjson" -> Format.NDJSON;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "不支援的匯出格式: " + format);
+        };
+        log.info("匯出所有書本，format: {}, gzip: {}", exportFormat, gzip);
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                try (GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream, EXPORT_BUFFER_SIZE)) {
+                    bookService.exportBooks(exportFormat, gzipStream);
+                }
+            } else {
+                bookService.exportBooks(exportFormat, outputStream);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(exportFormat == Format.CSV ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(exportFormat == Format.CSV ? "books.csv" : "books.ndjson")
+                .build()
+                .toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @Override
+    public ResponseEntity<BookChangeResult> booksChangesGet(String since, Integer limit) throws Exception {
+        log.info("增量同步書本異動，since: {}, limit: {}", since, limit);
+        BookChangePage page = bookChangeFeed.getChanges(since, limit);
+        List<BookChangeDto> changes = page.changes().stream()
+            .map(bookMapper::toChangeDto)
+            .collect(Collectors.toList());
+        return ResponseEntity.ok(new BookChangeResult()
+            .changes(changes)
+            .nextCursor(page.nextCursor().encode())
+            .hasMore(page.hasMore()));
+    }
+
+    /**
+     * 以 Server-Sent Events 即時推送書本異動
+     * 每筆異動為一個 change 事件，事件 ID 即為游標；斷線重連時瀏覽器會自動帶入 Last-Event-ID，從中斷處繼續推送
+     *
+     * @param since       從此游標之後開始推送，省略時只推送訂閱之後的異動
+     * @param lastEventId 重新連線時最後收到的事件 ID，優先於 since
+     */
+    @GetMapping(path = "/books/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter booksChangesStreamGet(
+        @RequestParam(required = false) String since,
+        @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = new SseEmitter(changeFeedProperties.getStreamTimeout().toMillis());
+        BookChangeBroadcaster.Subscription subscription = bookChangeBroadcaster.subscribe(
+            lastEventId != null ? lastEventId : since, new BookChangeBroadcaster.Sink() {
+                @Override
+                public void send(BookChange change, String cursor) throws IOException {
+                    emitter.send(SseEmitter.event()
+                        .id(cursor)
+                        .name("change")
+                        .data(bookMapper.toChangeDto(change), MediaType.APPLICATION_JSON));
+                }
+
+                @Override
+                public void heartbeat() throws IOException {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+
+                @Override
+                public void error(Throwable error) {
+                    emitter.completeWithError(error);
+                }
+            });
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        return emitter;
     }
 
     @Override
@@ -53,19 +332,37 @@ public class BookController implements BooksApi {
 
     @Override
     public ResponseEntity<BookDto> booksIdGet(Integer id) throws Exception {
-        log.info("獲取書本，ID: {}", id);
-        this.setBookIdInBaggage(id);
-        Book book = bookService.getBookById(id);
-        return ResponseEntity.ok(bookMapper.toDto(book));
+        // 快速路徑：未被追蹤取樣的請求不記錄日誌、不設定 baggage，只記錄 Timer
+        if (bookDetailsObservation.isSampled()) {
+            log.info("獲取書本，ID: {}", id);
+            this.setBookIdInBaggage(id);
+        }
+        Book book = bookDetailsObservation.observe(() -> bookService.getBookById(id))
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到指定的書本"));
+        // 只記錄存在的書本，探測不存在的 ID 不會佔用熱門程度的名額
+        bookPopularity.record(id);
+        return withValidators(ResponseEntity.ok().cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT), book)
+            .body(bookMapper.toDto(book));
     }
 
     @Override
-    public ResponseEntity<BookDto> booksIdPut(Integer id, @Valid BookRequest bookRequest) throws Exception {
-        log.info("更新書本，ID: {}, 請求資料: {}", id, bookRequest);
+    public ResponseEntity<BookDto> booksIdPut(Integer id, @Valid BookRequest bookRequest, String ifMatch)
+            throws Exception {
+        log.info("更新書本，ID: {}, 請求資料: {}, If-Match: {}", id, bookRequest, ifMatch);
         this.setBookIdInBaggage(id);
         Book bookEntity = bookMapper.toEntity(bookRequest);
-        Book updatedBook = bookService.updateBook(id, bookEntity);
-        return ResponseEntity.ok(bookMapper.toDto(updatedBook));
+        Book updatedBook = bookService.updateBook(id, bookEntity, versionsOf(ifMatch));
+        return withValidators(ResponseEntity.ok(), updatedBook).body(bookMapper.toDto(updatedBook));
+    }
+
+    @Override
+    public ResponseEntity<BookDto> booksIdPatch(Integer id, @Valid BookPatchRequest bookPatchRequest, String ifMatch)
+            throws Exception {
+        log.info("部分更新書本，ID: {}, 請求資料: {}, If-Match: {}", id, bookPatchRequest, ifMatch);
+        this.setBookIdInBaggage(id);
+        Book patchedBook = bookService.patchBook(id, versionsOf(ifMatch),
+            book -> bookMapper.updateEntity(book, bookPatchRequest));
+        return withValidators(ResponseEntity.ok(), patchedBook).body(bookMapper.toDto(patchedBook));
     }
 
     @Override
@@ -76,6 +373,111 @@ public class BookController implements BooksApi {
         return ResponseEntity.status(HttpStatus.CREATED).body(bookMapper.toDto(createdBook));
     }
 
+    @Override
+    public ResponseEntity<BookBatchResult> booksBatchPost(@Valid List<@Valid BookRequest> bookRequest, Boolean upsert)
+            throws Exception {
+        log.info("批次寫入書本，筆數: {}, upsert: {}", bookRequest.size(), upsert);
+        List<BookBatchItem> items = bookService.saveBooks(bookMapper.toEntities(bookRequest),
+            Boolean.TRUE.equals(upsert));
+        List<BookBatchItemResult> results = items.stream()
+            .map(bookMapper::toBatchItemResult)
+            .collect(Collectors.toList());
+        Map<BookBatchItem.Status, Long> counts = items.stream()
+            .collect(Collectors.groupingBy(BookBatchItem::status, Collectors.counting()));
+        int created = counts.getOrDefault(BookBatchItem.Status.CREATED, 0L).intValue();
+        int updated = counts.getOrDefault(BookBatchItem.Status.UPDATED, 0L).intValue();
+        BookBatchResult result = new BookBatchResult()
+            .created(created)
+            .updated(updated)
+            .skipped(items.size() - created - updated)
+            .items(results);
+        return ResponseEntity.ok(result);
+    }
+
+    @Override
+    public ResponseEntity<BookBatchGetResult> booksBatchGetPost(@Valid List<Integer> requestBody) throws Exception {
+        log.info("批次取得書本，筆數: {}", requestBody.size());
+        Map<Integer, Book> books = bookService.getBooksByIds(requestBody);
+        List<BookDto> found = new ArrayList<>(books.size());
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer id : new LinkedHashSet<>(requestBody)) {
+            Book book = books.get(id);
+            if (book == null) {
+                missingIds.add(id);
+            } else {
+                bookPopularity.record(id);
+                found.add(bookMapper.toDto(book));
+            }
+        }
+        return ResponseEntity.ok(new BookBatchGetResult().books(found).missingIds(missingIds));
+    }
+
+    /**
+     * 書本的強 ETag，只包含樂觀鎖版本 (例如 "3")；版本為空時回傳 null
+     * 回應格式的後綴 (例如 "3-cbor") 由 {@link BookEtagAdvice} 依實際選擇的格式加上
+     */
+    private static String etagOf(Book book) {
+        return book.getVersion() == null ? null : "\"" + book.getVersion() + "\"";
+    }
+
+    private static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder response, Book book) {
+        String etag = etagOf(book);
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        if (book.getUpdatedAt() != null) {
+            response.lastModified(book.getUpdatedAt().toInstant());
+        }
+        return response;
+    }
+
+    /**
+     * If-None-Match 的弱比較：忽略 W/ 前綴，* 符合任何版本
+     */
+    private static boolean matchesWeakly(String header, String etag) {
+        if (header == null) {
+            return false;
+        }
+        String opaque = etag.startsWith("W/") ? etag.substring(2) : etag;
+        for (String candidate : header.split(",")) {
+            String tag = candidate.strip();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 將 If-Match 轉換為可接受的版本：未提供或 * 時回傳 null (不檢查版本)；
+     * 強 ETag 的格式後綴 (例如 "3-cbor" 的 -cbor) 不影響比對，以任何格式取得的 ETag 都代表同一個版本；
+     * 弱 ETag 與非本服務產生的 ETag 不符合強比較而略過，沒有任何可用的版本時回應 412
+     */
+    private static List<Long> versionsOf(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.strip();
+            if (tag.equals("*")) {
+                return null;
+            }
+            if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+                String opaque = tag.substring(1, tag.length() - 1);
+                int suffix = opaque.indexOf('-');
+                try {
+                    versions.add(Long.parseLong(suffix < 0 ? opaque : opaque.substring(0, suffix)));
+                } catch (NumberFormatException e) {
+                    log.debug("略過無法辨識的 If-Match ETag: {}", tag);
+                }
+            }
+        }
+        if (versions.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "書本已被修改，請重新取得後再更新");
+        }
+        return versions;
+    }
 
     private void setBookIdInBaggage(Integer bookId) {
         if (bookId == null) {
@@ -86,7 +488,7 @@ public class BookController implements BooksApi {
         if (baggage!= null) {
             // 設定 Baggage 的值
             baggage.makeCurrent(bookId.toString());
-            log.info("Baggage 'book-id' 已設定為: {}", baggage.get());
+            log.debug("Baggage 'book-id' 已設定為: {}", baggage.get());
         } else {
             log.warn("Baggage 欄位 'book-id' 未設定或未啟用。");
         }
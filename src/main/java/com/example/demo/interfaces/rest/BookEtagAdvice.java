@@ -0,0 +1,78 @@
+package com.example.demo.interfaces.rest;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import com.example.demo.interfaces.dto.BookDto;
+
+/**
+ * 在單本書本的強 ETag 加上回應格式 (例如 "3" → "3-cbor")
+ * 同一版本的 JSON、CBOR、Smile 與 Protobuf 內容不同，強 ETag 必須區分格式，
+ * 否則快取會以某一種格式的 304 驗證另一種格式的內容，或以位元組範圍請求拼接不同格式的內容
+ *
+ * 格式取自 Spring MVC 內容協商實際選擇的 selectedContentType，而不是另外解析 Accept；
+ * Spring MVC 在寫入內容前就以控制器設定的 ETag (只有版本) 處理 If-None-Match，
+ * 用戶端只會取得帶有格式的 ETag，因此在這裡以帶有格式的 ETag 再比對一次，符合時回應 304 且不寫入內容
+ */
+@RestControllerAdvice
+public class BookEtagAdvice implements ResponseBodyAdvice<BookDto> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        Class<?> bodyType = HttpEntity.class.isAssignableFrom(returnType.getParameterType())
+                ? ResolvableType.forMethodParameter(returnType).as(HttpEntity.class).resolveGeneric(0)
+                : returnType.getParameterType();
+        return bodyType != null && BookDto.class.isAssignableFrom(bodyType);
+    }
+
+    @Override
+    public BookDto beforeBodyWrite(BookDto body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        String version = response.getHeaders().getETag();
+        if (version == null || version.startsWith("W/") || !(response instanceof ServletServerHttpResponse servlet)) {
+            return body;
+        }
+        String etag = "\"" + version.substring(1, version.length() - 1) + "-" + formatOf(selectedContentType) + "\"";
+        // GET 的 ETag 已在比對 If-None-Match 時直接寫入 HttpServletResponse，其他方法仍在尚未寫出的標頭中，
+        // 兩處都改為帶有格式的 ETag，避免寫出標頭時重複
+        response.getHeaders().remove(HttpHeaders.ETAG);
+        servlet.getServletResponse().setHeader(HttpHeaders.ETAG, etag);
+        if ((request.getMethod() == HttpMethod.GET || request.getMethod() == HttpMethod.HEAD)
+                && matchesWeakly(request.getHeaders().getIfNoneMatch(), etag)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return null;
+        }
+        return body;
+    }
+
+    /**
+     * 格式名稱：json、cbor、smile 或 protobuf
+     */
+    private static String formatOf(MediaType contentType) {
+        return contentType.getSubtype().replace("x-", "").replace("jackson-", "");
+    }
+
+    /**
+     * If-None-Match 的弱比較：忽略 W/ 前綴，* 符合任何版本
+     */
+    private static boolean matchesWeakly(Iterable<String> ifNoneMatch, String etag) {
+        for (String tag : ifNoneMatch) {
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.interfaces.rest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.example.demo.applications.BookImportProgress;
+import com.example.demo.applications.BookImportService;
+import com.example.demo.infrastructure.repositories.BookBulkRepository.Format;
+import com.example.demo.interfaces.api.BookImportsApi;
+import com.example.demo.interfaces.dto.BookImportJob;
+import com.example.demo.interfaces.mapper.BookMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 書本大量匯入控制器
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+public class BookImportController implements BookImportsApi {
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final BookImportService bookImportService;
+    private final BookMapper bookMapper;
+
+    /**
+     * 上傳 CSV 或 NDJSON 匯入檔案
+     * 請求內容直接串流寫入暫存檔，不在記憶體中保留整個檔案；上傳完成即回傳 202，匯入在背景執行
+     */
+    @PostMapping(path = "/books/imports", consumes = { TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE },
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BookImportJob> booksImportsPost(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) throws IOException {
+        Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? Format.NDJSON
+                : Format.CSV;
+        log.info("接收書本匯入檔案，format: {}", format);
+        Path file = Files.createTempFile("book-import-", "." + format.name().toLowerCase());
+        try {
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        BookImportProgress progress = bookImportService.submit(file, format);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                .path("/{jobId}")
+                .buildAndExpand(progress.getJobId())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(bookMapper.toImportJobDto(progress));
+    }
+
+    @Override
+    public ResponseEntity<BookImportJob> booksImportsJobIdGet(UUID jobId) throws Exception {
+        return bookImportService.getProgress(jobId)
+                .map(bookMapper::toImportJobDto)
+                .map(ResponseEntity::ok)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "找不到指定的匯入工作"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.interfaces.rest;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import com.example.demo.models.BookRow;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * 以 Jackson 串流 API 將 {@link BookRow} 直接寫成 BookDto 格式的 JSON
+ * 不建立 BookDto，也不經過 ObjectMapper 的反射序列化；欄位名稱預先編碼為 {@link SerializedString}，
+ * 每次寫出時只需複製位元組
+ *
+ * 輸出與 Spring Boot 預設設定的 ObjectMapper 序列化 BookDto 相同：欄位依 BookDto 的順序、null 欄位照常輸出、
+ * 時間以 ISO-8601 並轉換為 UTC 表示
+ *
+ * 傳入 CBOR 或 Smile 的 generator 時，以相同的結構輸出對應的二進位格式
+ */
+public final class BookJsonWriter {
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString TITLE = new SerializedString("title");
+    private static final SerializableString AUTHOR = new SerializedString("author");
+    private static final SerializableString ISBN = new SerializedString("isbn");
+    private static final SerializableString PUBLISH_YEAR = new SerializedString("publishYear");
+    private static final SerializableString PRICE = new SerializedString("price");
+    private static final SerializableString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializableString UPDATED_AT = new SerializedString("updatedAt");
+
+    private BookJsonWriter() {
+    }
+
+    /**
+     * 寫出 JSON 陣列
+     */
+    public static void writeArray(JsonGenerator generator, List<BookRow> rows) throws IOException {
+        generator.writeStartArray(rows, rows.size());
+        for (BookRow row : rows) {
+            write(generator, row);
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * 寫出單一 JSON 物件
+     */
+    public static void write(JsonGenerator generator, BookRow row) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(ID);
+        generator.writeNumber(row.id());
+        generator.writeFieldName(TITLE);
+        generator.writeString(row.title());
+        generator.writeFieldName(AUTHOR);
+        generator.writeString(row.author());
+        generator.writeFieldName(ISBN);
+        generator.writeString(row.isbn());
+        generator.writeFieldName(PUBLISH_YEAR);
+        if (row.publishYear() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(row.publishYear());
+        }
+        generator.writeFieldName(PRICE);
+        generator.writeNumber(row.price());
+        writeTimestamp(generator, CREATED_AT, row.createdAt());
+        writeTimestamp(generator, UPDATED_AT, row.updatedAt());
+        generator.writeEndObject();
+    }
+
+    private static void writeTimestamp(JsonGenerator generator, SerializableString name, OffsetDateTime value)
+            throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(
+                    value.getOffset().equals(ZoneOffset.UTC) ? value : value.withOffsetSameInstant(ZoneOffset.UTC)));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demo.interfaces.rest;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.example.demo.interfaces.dto.BookDto;
+import com.google.protobuf.CodedOutputStream;
+
+/**
+ * 以 {@link BookProtobufWriter} 將 BookDto 與 BookDto 列表寫成 Protobuf (application/x-protobuf)
+ * 單本書本為 Book 訊息，列表為 BookList 訊息，並以 X-Protobuf-Message 標頭標示；只用於回應，不支援讀取
+ */
+public class BookProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    private static final String MESSAGE_HEADER = "X-Protobuf-Message";
+    private static final String BOOK_MESSAGE = "demo.books.v1.Book";
+    private static final String BOOK_LIST_MESSAGE = "demo.books.v1.BookList";
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    public BookProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return BookDto.class.isAssignableFrom(clazz) || BookRowList.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (type == null || supports(clazz)) {
+            return canWrite(clazz, mediaType);
+        }
+        return List.class.isAssignableFrom(clazz)
+                && BookDto.class == ResolvableType.forType(type).asCollection().resolveGeneric(0)
+                && canWrite(mediaType);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("不支援讀取 Protobuf", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("不支援讀取 Protobuf", inputMessage);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        boolean single = body instanceof BookDto;
+        outputMessage.getHeaders().set(MESSAGE_HEADER, single ? BOOK_MESSAGE : BOOK_LIST_MESSAGE);
+        CodedOutputStream output = CodedOutputStream.newInstance(outputMessage.getBody(), BUFFER_SIZE);
+        if (single) {
+            BookProtobufWriter.write(output, (BookDto) body);
+        } else {
+            BookProtobufWriter.writeList(output, (List<BookDto>) body);
+        }
+        output.flush();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.interfaces.rest;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import com.example.demo.interfaces.dto.BookDto;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+
+/**
+ * 依 dev-resources/book.proto 將 BookDto 編碼為 Protobuf
+ * 直接以 {@link CodedOutputStream} 寫出欄位，不需要產生訊息類別，也不建立中間的訊息物件；
+ * 巢狀訊息的長度前綴先由 computeSize 計算，因此列表可以逐筆寫出而不用先緩衝整個回應
+ *
+ * 與 proto3 相同，null 欄位不輸出
+ */
+public final class BookProtobufWriter {
+
+    private static final int BOOK_LIST_BOOKS = 1;
+
+    private static final int ID = 1;
+    private static final int TITLE = 2;
+    private static final int AUTHOR = 3;
+    private static final int ISBN = 4;
+    private static final int PUBLISH_YEAR = 5;
+    private static final int PRICE = 6;
+    private static final int CREATED_AT = 7;
+    private static final int UPDATED_AT = 8;
+
+    private static final int TIMESTAMP_SECONDS = 1;
+    private static final int TIMESTAMP_NANOS = 2;
+
+    private BookProtobufWriter() {
+    }
+
+    /**
+     * 寫出 BookList 訊息
+     */
+    public static void writeList(CodedOutputStream output, List<BookDto> books) throws IOException {
+        for (BookDto book : books) {
+            output.writeTag(BOOK_LIST_BOOKS, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+            output.writeUInt32NoTag(computeSize(book));
+            write(output, book);
+        }
+    }
+
+    /**
+     * 寫出 Book 訊息
+     */
+    public static void write(CodedOutputStream output, BookDto book) throws IOException {
+        if (book.getId() != null) {
+            output.writeInt32(ID, book.getId());
+        }
+        if (book.getTitle() != null) {
+            output.writeString(TITLE, book.getTitle());
+        }
+        if (book.getAuthor() != null) {
+            output.writeString(AUTHOR, book.getAuthor());
+        }
+        if (book.getIsbn() != null) {
+            output.writeString(ISBN, book.getIsbn());
+        }
+        if (book.getPublishYear() != null) {
+            output.writeInt32(PUBLISH_YEAR, book.getPublishYear());
+        }
+        if (book.getPrice() != null) {
+            output.writeString(PRICE, book.getPrice().toPlainString());
+        }
+        writeTimestamp(output, CREATED_AT, book.getCreatedAt());
+        writeTimestamp(output, UPDATED_AT, book.getUpdatedAt());
+    }
+
+    private static int computeSize(BookDto book) {
+        int size = 0;
+        if (book.getId() != null) {
+            size += CodedOutputStream.computeInt32Size(ID, book.getId());
+        }
+        if (book.getTitle() != null) {
+            size += CodedOutputStream.computeStringSize(TITLE, book.getTitle());
+        }
+        if (book.getAuthor() != null) {
+            size += CodedOutputStream.computeStringSize(AUTHOR, book.getAuthor());
+        }
+        if (book.getIsbn() != null) {
+            size += CodedOutputStream.computeStringSize(ISBN, book.getIsbn());
+        }
+        if (book.getPublishYear() != null) {
+            size += CodedOutputStream.computeInt32Size(PUBLISH_YEAR, book.getPublishYear());
+        }
+        if (book.getPrice() != null) {
+            size += CodedOutputStream.computeStringSize(PRICE, book.getPrice().toPlainString());
+        }
+        size += computeTimestampFieldSize(CREATED_AT, book.getCreatedAt());
+        size += computeTimestampFieldSize(UPDATED_AT, book.getUpdatedAt());
+        return size;
+    }
+
+    /**
+     * google.protobuf.Timestamp：自 epoch 起的秒數與奈秒
+     */
+    private static void writeTimestamp(CodedOutputStream output, int fieldNumber, OffsetDateTime value)
+            throws IOException {
+        if (value == null) {
+            return;
+        }
+        output.writeTag(fieldNumber, WireFormat.WIRETYPE_LENGTH_DELIMITED);
+        output.writeUInt32NoTag(computeTimestampSize(value));
+        if (value.toEpochSecond() != 0) {
+            output.writeInt64(TIMESTAMP_SECONDS, value.toEpochSecond());
+        }
+        if (value.getNano() != 0) {
+            output.writeInt32(TIMESTAMP_NANOS, value.getNano());
+        }
+    }
+
+    private static int computeTimestampFieldSize(int fieldNumber, OffsetDateTime value) {
+        if (value == null) {
+            return 0;
+        }
+        int size = computeTimestampSize(value);
+        return CodedOutputStream.computeTagSize(fieldNumber) + CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+    }
+
+    private static int computeTimestampSize(OffsetDateTime value) {
+        int size = 0;
+        if (value.toEpochSecond() != 0) {
+            size += CodedOutputStream.computeInt64Size(TIMESTAMP_SECONDS, value.toEpochSecond());
+        }
+        if (value.getNano() != 0) {
+            size += CodedOutputStream.computeInt32Size(TIMESTAMP_NANOS, value.getNano());
+        }
+        return size;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.interfaces.rest;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import com.example.demo.interfaces.dto.BookDto;
+import com.example.demo.interfaces.mapper.BookMapper;
+import com.example.demo.models.BookRow;
+
+/**
+ * 以 {@link BookRow} 為內容的唯讀 BookDto 列表
+ * 回應 JSON 時由 {@link BookRowListHttpMessageConverter} 直接寫出資料列，不會建立 BookDto；
+ * 其他格式或程式存取元素時才逐筆轉換
+ */
+public final class BookRowList extends AbstractList<BookDto> implements RandomAccess {
+
+    private final List<BookRow> rows;
+    private final BookMapper bookMapper;
+
+    public BookRowList(List<BookRow> rows, BookMapper bookMapper) {
+        this.rows = rows;
+        this.bookMapper = bookMapper;
+    }
+
+    public List<BookRow> rows() {
+        return rows;
+    }
+
+    @Override
+    public BookDto get(int index) {
+        return bookMapper.toDto(rows.get(index));
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+}
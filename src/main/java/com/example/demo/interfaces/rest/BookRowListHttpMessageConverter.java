@@ -0,0 +1,73 @@
+package com.example.demo.interfaces.rest;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 將 {@link BookRowList} 以 {@link BookJsonWriter} 直接寫到回應串流
+ * 必須排在 Jackson 的 converter 之前，否則 {@link BookRowList} 會被當成一般的 List 逐筆轉換為 BookDto 後再反射序列化
+ *
+ * CBOR 與 Smile 的 generator 同樣是 {@link JsonGenerator}，因此依回應的 Content-Type 選擇對應的 ObjectMapper，
+ * 以相同的寫法輸出二進位格式
+ */
+public class BookRowListHttpMessageConverter extends AbstractHttpMessageConverter<BookRowList> {
+
+    private static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper cborObjectMapper;
+    private final ObjectMapper smileObjectMapper;
+
+    public BookRowListHttpMessageConverter(ObjectMapper objectMapper, ObjectMapper cborObjectMapper,
+            ObjectMapper smileObjectMapper) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"), MediaType.APPLICATION_CBOR,
+                APPLICATION_SMILE);
+        this.objectMapper = objectMapper;
+        this.cborObjectMapper = cborObjectMapper;
+        this.smileObjectMapper = smileObjectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return BookRowList.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected BookRowList readInternal(Class<? extends BookRowList> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("不支援讀取 BookRowList", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(BookRowList books, HttpOutputMessage outputMessage) throws IOException {
+        // 沿用 ObjectMapper 的輸出設定 (例如 INDENT_OUTPUT)，關閉 generator 時不關閉回應串流
+        ObjectMapper mapper = objectMapperFor(outputMessage.getHeaders().getContentType());
+        try (JsonGenerator generator = mapper.createGenerator(outputMessage.getBody(), JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            BookJsonWriter.writeArray(generator, books.rows());
+        }
+    }
+
+    private ObjectMapper objectMapperFor(MediaType contentType) {
+        if (MediaType.APPLICATION_CBOR.isCompatibleWith(contentType)) {
+            return cborObjectMapper;
+        }
+        if (APPLICATION_SMILE.isCompatibleWith(contentType)) {
+            return smileObjectMapper;
+        }
+        return objectMapper;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.interfaces.rest;
+
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.example.demo.infrastructure.jdbc.BulkheadFullException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 資料庫連線 bulkhead 已滿時回應 503 與 Retry-After，讓用戶端稍後重試，而不是讓請求持續排隊
+ * 其他資料存取錯誤維持原本的處理方式
+ *
+ * 只處理取得連線失敗時會包裝 {@link BulkheadFullException} 的例外：
+ * - CannotCreateTransactionException：交易開始時取得連線 (JpaTransactionManager、DataSourceTransactionManager)
+ * - DataAccessResourceFailureException：Hibernate 延遲取得連線 (JDBCConnectionException)、JdbcTemplate (CannotGetJdbcConnectionException)
+ * - TransientDataAccessResourceException：經過 LazyConnectionDataSourceProxy 時，JdbcTemplate 在建立 statement 才取得連線
+ */
+@Slf4j
+@RestControllerAdvice
+public class BulkheadExceptionHandler {
+
+    @ExceptionHandler({ CannotCreateTransactionException.class, DataAccessResourceFailureException.class,
+            TransientDataAccessResourceException.class })
+    public ResponseEntity<ProblemDetail> handleDataAccessFailure(NestedRuntimeException ex) throws NestedRuntimeException {
+        if (!(NestedExceptionUtils.getMostSpecificCause(ex) instanceof BulkheadFullException bulkheadFull)) {
+            throw ex;
+        }
+        log.warn("資料庫連線已滿，拒絕請求：{}", bulkheadFull.getMessage());
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "服務忙碌中，請稍後再試");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, bulkheadFull.getRetryAfter().toSeconds())))
+                .body(problem);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.interfaces.rest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.config.ConcurrencyLimitProperties;
+import com.example.demo.infrastructure.concurrency.GradientConcurrencyLimiter;
+import com.example.demo.interfaces.api.BooksApi;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * BooksApi 端點的自適應並發限制
+ * 每個端點各自有一個 {@link GradientConcurrencyLimiter}，快取命中的 booksIdGet 不會因為 booksGet 掃描或寫入變慢而被拒絕；
+ * 超過上限的請求直接回應 503 與 Retry-After，不再排隊等待下游逾時
+ *
+ * 非同步回應 (例如 StreamingResponseBody) 在串流結束後才歸還許可；
+ * SSE 訂閱是長時間連線，延遲無法反映負載，不受此限制，訂閱人數由 BookChangeBroadcaster 限制
+ *
+ * 指標 (以 endpoint 標籤區分)：
+ * - http.server.concurrency.limit：目前的並發上限
+ * - http.server.concurrency.inflight：目前執行中的請求數量
+ * - http.server.concurrency.dropped：超過上限而被拒絕的請求數量
+ */
+@RequiredArgsConstructor
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String LIMITER_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".limiter";
+    private static final String START_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".start";
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, GradientConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC
+                || !(handler instanceof HandlerMethod handlerMethod)
+                || !BooksApi.class.isAssignableFrom(handlerMethod.getBeanType())
+                || SseEmitter.class.isAssignableFrom(handlerMethod.getMethod().getReturnType())) {
+            return true;
+        }
+        GradientConcurrencyLimiter limiter = limiters.computeIfAbsent(handlerMethod.getMethod().getName(),
+                this::createLimiter);
+        if (!limiter.tryAcquire()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(Math.max(1, properties.getRetryAfter().toSeconds())));
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "服務忙碌中，請稍後再試");
+        }
+        request.setAttribute(LIMITER_ATTRIBUTE, limiter);
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        if (request.getAttribute(LIMITER_ATTRIBUTE) instanceof GradientConcurrencyLimiter limiter
+                && request.getAttribute(START_ATTRIBUTE) instanceof Long start) {
+            request.removeAttribute(LIMITER_ATTRIBUTE);
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    private GradientConcurrencyLimiter createLimiter(String endpoint) {
+        ConcurrencyLimitProperties.Limits limits = properties.limitsOf(endpoint);
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(limits.getInitialLimit(),
+                limits.getMinLimit(), limits.getMaxLimit(), properties.getRttTolerance(), properties.getSmoothing(),
+                properties.getWindow().toNanos(), properties.getMinWindowSamples(), properties.getLongWindow());
+        Tags tags = Tags.of("endpoint", endpoint);
+        Gauge.builder("http.server.concurrency.limit", limiter, GradientConcurrencyLimiter::getLimit)
+                .description("端點目前的並發上限")
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("http.server.concurrency.inflight", limiter, GradientConcurrencyLimiter::getInflight)
+                .description("端點目前執行中的請求數量")
+                .tags(tags)
+                .register(meterRegistry);
+        FunctionCounter.builder("http.server.concurrency.dropped", limiter, GradientConcurrencyLimiter::getDropped)
+                .description("超過並發上限而被拒絕的請求數量")
+                .tags(tags)
+                .register(meterRegistry);
+        return limiter;
+    }
+}
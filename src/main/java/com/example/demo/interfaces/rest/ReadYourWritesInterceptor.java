@@ -0,0 +1,77 @@
+package com.example.demo.interfaces.rest;
+
+import java.util.Set;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import com.example.demo.config.ReadReplicaProperties;
+import com.example.demo.infrastructure.jdbc.ReadYourWritesContext;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 唯讀副本的 read-your-writes
+ * 寫入請求 (POST/PUT/PATCH/DELETE) 會以 cookie 記錄 stickyWindow 後的截止時間；
+ * 帶有未過期 cookie 的請求，唯讀交易也改用主資料庫，避免剛寫入的資料因為複寫延遲而讀不到
+ *
+ * 截止時間由 cookie 帶回，請求不論送到哪個 Pod 都有相同的行為；回應可能在 postHandle 前就已送出，因此在 preHandle 設定 cookie
+ */
+@RequiredArgsConstructor
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final ReadReplicaProperties properties;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        long now = System.currentTimeMillis();
+        if (WRITE_METHODS.contains(request.getMethod())) {
+            long until = now + properties.getStickyWindow().toMillis();
+            ResponseCookie cookie = ResponseCookie.from(properties.getStickyCookieName(), Long.toString(until))
+                    .path("/")
+                    .httpOnly(true)
+                    .maxAge(properties.getStickyWindow())
+                    .build();
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+            ReadYourWritesContext.pinToPrimary();
+        } else if (stickyUntil(request) > now) {
+            ReadYourWritesContext.pinToPrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        ReadYourWritesContext.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        ReadYourWritesContext.clear();
+    }
+
+    private long stickyUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (properties.getStickyCookieName().equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
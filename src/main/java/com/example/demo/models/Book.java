@@ -14,8 +14,10 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
@@ -32,8 +34,9 @@ import jakarta.validation.constraints.Size;
         @UniqueConstraint(name = "uk_isbn", columnNames = { "isbn" })
     },
     indexes = {
-        @Index(name = "idx_author", columnList = "author ASC"),
-        @Index(name = "idx_publish_year", columnList = "publish_year ASC")
+        @Index(name = "idx_book_author_id", columnList = "author ASC, id ASC"),
+        @Index(name = "idx_book_publish_year_id", columnList = "publish_year ASC, id ASC"),
+        @Index(name = "idx_book_price_id", columnList = "price ASC, id ASC")
     }
 )
 public class Book implements Serializable {
@@ -48,12 +51,15 @@ public class Book implements Serializable {
     private BigDecimal price;
     private OffsetDateTime createdAt;
     private OffsetDateTime updatedAt;
+    private Long version;
 
     /**
      * Getter for <code>public.book.id</code>. 書本 ID，使用 SERIAL 自動產生遞增值
+     * 以 pooled optimizer 一次向序列取得 50 個 ID，新增時不需等待資料庫回傳 ID，可使用 JDBC batching
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_id_seq")
+    @SequenceGenerator(name = "book_id_seq", sequenceName = "book_id_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     public Integer getId() {
         return this.id;
@@ -176,4 +182,20 @@ public class Book implements Serializable {
     public void setUpdatedAt(OffsetDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    /**
+     * Getter for <code>public.book.version</code>. 樂觀鎖版本，每次更新遞增
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    public Long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Setter for <code>public.book.version</code>. 樂觀鎖版本，每次更新遞增
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
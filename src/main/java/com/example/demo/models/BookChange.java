@@ -0,0 +1,18 @@
+package com.example.demo.models;
+
+import java.time.OffsetDateTime;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * 書本異動紀錄，對應 book_change 資料表的一筆紀錄與異動後的書本
+ * 每本書只保留最後一次異動，同一本書在兩次同步之間多次修改只會出現一次
+ *
+ * @param txid      最後一次異動的交易 ID，與書本 ID 組成增量同步的游標
+ * @param bookId    異動的書本 ID
+ * @param deleted   書本是否已刪除 (tombstone)
+ * @param changedAt 最後一次異動的時間
+ * @param book      異動後的書本，已刪除時為 null
+ */
+public record BookChange(long txid, int bookId, boolean deleted, OffsetDateTime changedAt, @Nullable BookRow book) {
+}
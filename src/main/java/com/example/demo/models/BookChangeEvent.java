@@ -0,0 +1,24 @@
+package com.example.demo.models;
+
+import java.time.OffsetDateTime;
+
+/**
+ * 書本異動事件，對應 book_outbox 資料表的一筆紀錄
+ *
+ * @param id         事件 ID，依寫入順序遞增
+ * @param type       事件類型
+ * @param bookId     異動的書本 ID
+ * @param isbn       異動的書本 ISBN
+ * @param occurredAt 事件發生時間
+ */
+public record BookChangeEvent(long id, Type type, Integer bookId, String isbn, OffsetDateTime occurredAt) {
+
+    /**
+     * 事件類型
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
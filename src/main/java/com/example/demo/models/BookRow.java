@@ -0,0 +1,21 @@
+package com.example.demo.models;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * 書本資料列的唯讀投影，直接由 JDBC 查詢結果建立
+ * 用於只需輸出而不需修改的列表查詢，不建立 Hibernate 實體，也不需要持久化上下文追蹤
+ *
+ * @param id          書本 ID
+ * @param title       書名
+ * @param author      作者
+ * @param isbn        國際標準書號
+ * @param publishYear 出版年份
+ * @param price       價格
+ * @param createdAt   建立時間
+ * @param updatedAt   更新時間
+ */
+public record BookRow(int id, String title, String author, String isbn, Integer publishYear, BigDecimal price,
+        OffsetDateTime createdAt, OffsetDateTime updatedAt) {
+}
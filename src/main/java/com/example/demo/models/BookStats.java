@@ -0,0 +1,18 @@
+package com.example.demo.models;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * 一組書本的統計，對應 book_stats 資料表的一筆紀錄
+ *
+ * @param key         作者名稱或出版年份；出版年份為空的書本、以及整個目錄的統計為 null
+ * @param bookCount   書本數量
+ * @param pricedCount 有價格的書本數量
+ * @param minPrice    最低價格，沒有任何價格時為 null
+ * @param avgPrice    平均價格 (四捨五入至小數點後 2 位)，沒有任何價格時為 null
+ * @param maxPrice    最高價格，沒有任何價格時為 null
+ */
+public record BookStats(String key, long bookCount, long pricedCount, BigDecimal minPrice, BigDecimal avgPrice,
+        BigDecimal maxPrice) implements Serializable {
+}
@@ -0,0 +1,205 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.applications.BookCacheWarmer;
+import com.example.demo.applications.BookPopularity;
+import com.example.demo.config.CacheConfig;
+import com.example.demo.config.CacheWarmUpProperties;
+import com.example.demo.infrastructure.repositories.BookRepository;
+import com.example.demo.interfaces.dto.BookDto;
+import com.example.demo.interfaces.dto.BookRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * 書本快取預熱測試
+ * 以查詢次數建立熱門程度後清空快取，驗證預熱會依熱門程度將書本載回快取，完成後 readiness 回報 UP
+ * 衰減係數設為 1，避免排程在測試途中將已寫入的分數減半而改變排序
+ *
+ * 以另一條連線鎖住 book 資料表，讓預熱批次的資料庫查詢停在鎖上，觀察預熱進行中的 readiness；
+ * readiness 群組顯示各項指標的狀態，以確認是 cacheWarmUp 回報 OUT_OF_SERVICE
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"app.cache-warm-up.decay-factor=1",
+		"management.endpoint.health.group.readiness.show-components=always",
+		"management.endpoint.health.group.readiness.show-details=always" })
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@DisplayName("書本快取預熱測試")
+@Tag("integration")
+@Tag("cache")
+class BookCacheWarmUpTests {
+
+	private static final String BASE_URL = "/books";
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private BookPopularity bookPopularity;
+
+	@Autowired
+	private BookCacheWarmer bookCacheWarmer;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private StringRedisTemplate stringRedisTemplate;
+
+	@Autowired
+	private CacheWarmUpProperties properties;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@BeforeEach
+	void setUp() {
+		bookRepository.deleteAll();
+		// 先寫出其他測試累計的查詢次數，再清空熱門程度
+		bookPopularity.flush();
+		stringRedisTemplate.delete(properties.getPopularityKey());
+	}
+
+	@Test
+	@DisplayName("依查詢次數排序熱門書本，清空快取後預熱會從資料庫載回熱門書本")
+	void testWarmUpLoadsPopularBooks() {
+		List<Integer> ids = createPopularBooks();
+		Cache cache = cacheManager.getCache(CacheConfig.BOOKS_CACHE);
+		cache.clear();
+		ids.forEach(id -> assertThat(cache.get("book_" + id)).isNull());
+
+		bookCacheWarmer.warmUp();
+		await().atMost(Duration.ofSeconds(10)).until(() -> bookCacheWarmer.getState().isFinished());
+
+		assertThat(bookCacheWarmer.getState()).isEqualTo(BookCacheWarmer.State.COMPLETED);
+		assertThat(bookCacheWarmer.getResult().requested()).isEqualTo(3);
+		assertThat(bookCacheWarmer.getResult().loaded()).isEqualTo(3);
+		ids.forEach(id -> assertThat(cache.get("book_" + id)).isNotNull());
+
+		ResponseEntity<String> readiness = restTemplate.getForEntity("/actuator/health/readiness", String.class);
+		assertThat(readiness.getStatusCode()).isEqualTo(HttpStatus.OK);
+	}
+
+	@Test
+	@DisplayName("預熱批次進行中 readiness 回應 503 且 cacheWarmUp 為 OUT_OF_SERVICE，完成後回到 UP")
+	void testReadinessOutOfServiceUntilCompleted() throws SQLException {
+		createPopularBooks();
+		cacheManager.getCache(CacheConfig.BOOKS_CACHE).clear();
+
+		try (Connection lock = lockBookTable()) {
+			bookCacheWarmer.warmUp();
+			assertOutOfServiceWhileWarming();
+			lock.rollback();
+		}
+
+		await().atMost(Duration.ofSeconds(10)).until(() -> bookCacheWarmer.getState().isFinished());
+		assertThat(bookCacheWarmer.getState()).isEqualTo(BookCacheWarmer.State.COMPLETED);
+		assertReadinessUp(BookCacheWarmer.State.COMPLETED);
+	}
+
+	@Test
+	@DisplayName("預熱批次超過時間上限時結束預熱，readiness 不等待批次完成即回到 UP")
+	void testReadinessUpAfterTimeout() throws SQLException {
+		createPopularBooks();
+		cacheManager.getCache(CacheConfig.BOOKS_CACHE).clear();
+
+		Duration timeout = properties.getTimeout();
+		properties.setTimeout(Duration.ofMillis(500));
+		try (Connection lock = lockBookTable()) {
+			bookCacheWarmer.warmUp();
+			assertOutOfServiceWhileWarming();
+
+			// 批次仍停在資料表鎖上
+			await().atMost(Duration.ofSeconds(10)).until(() -> bookCacheWarmer.getState().isFinished());
+			assertThat(bookCacheWarmer.getState()).isEqualTo(BookCacheWarmer.State.TIMED_OUT);
+			assertReadinessUp(BookCacheWarmer.State.TIMED_OUT);
+			lock.rollback();
+		} finally {
+			properties.setTimeout(timeout);
+		}
+	}
+
+	/**
+	 * 建立三本書並以查詢次數建立熱門程度：第 1 本查詢 3 次、第 2 本 2 次、第 3 本 1 次
+	 */
+	private List<Integer> createPopularBooks() {
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			BookRequest request = new BookRequest()
+				.title("預熱測試 " + i)
+				.author("作者")
+				.isbn("978986347970" + i);
+			ids.add(restTemplate.postForEntity(BASE_URL, request, BookDto.class).getBody().getId());
+		}
+		for (int i = 0; i < ids.size(); i++) {
+			for (int times = 0; times < ids.size() - i; times++) {
+				assertThat(restTemplate.getForEntity(BASE_URL + "/" + ids.get(i), BookDto.class).getStatusCode())
+					.isEqualTo(HttpStatus.OK);
+			}
+		}
+		// 排程也可能同時寫出，因此等待 Redis 反映所有次數
+		bookPopularity.flush();
+		await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(bookPopularity.topIds(10))
+			.containsExactlyElementsOf(ids));
+		return ids;
+	}
+
+	/**
+	 * 以未提交的交易鎖住 book 資料表，直到 rollback 或關閉連線，期間預熱批次的查詢無法完成
+	 */
+	private Connection lockBookTable() throws SQLException {
+		Connection connection = dataSource.getConnection();
+		connection.setAutoCommit(false);
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("LOCK TABLE book IN ACCESS EXCLUSIVE MODE");
+		}
+		return connection;
+	}
+
+	private void assertOutOfServiceWhileWarming() {
+		assertThat(bookCacheWarmer.getState()).isEqualTo(BookCacheWarmer.State.WARMING);
+		ResponseEntity<JsonNode> readiness = restTemplate.getForEntity("/actuator/health/readiness", JsonNode.class);
+		assertThat(readiness.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(readiness.getBody().path("status").asText()).isEqualTo("OUT_OF_SERVICE");
+		JsonNode cacheWarmUp = readiness.getBody().path("components").path("cacheWarmUp");
+		assertThat(cacheWarmUp.path("status").asText()).isEqualTo("OUT_OF_SERVICE");
+		assertThat(cacheWarmUp.path("details").path("state").asText()).isEqualTo("WARMING");
+	}
+
+	private void assertReadinessUp(BookCacheWarmer.State state) {
+		ResponseEntity<JsonNode> readiness = restTemplate.getForEntity("/actuator/health/readiness", JsonNode.class);
+		assertThat(readiness.getStatusCode()).isEqualTo(HttpStatus.OK);
+		JsonNode cacheWarmUp = readiness.getBody().path("components").path("cacheWarmUp");
+		assertThat(cacheWarmUp.path("status").asText()).isEqualTo("UP");
+		assertThat(cacheWarmUp.path("details").path("state").asText()).isEqualTo(state.name());
+	}
+}
@@ -0,0 +1,226 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.applications.BookChangeBroadcaster;
+import com.example.demo.applications.BookChangeCursor;
+import com.example.demo.applications.BookChangeFeed;
+import com.example.demo.applications.BookChangePage;
+import com.example.demo.config.ChangeFeedProperties;
+import com.example.demo.models.BookChange;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 書本異動推送測試
+ * 以記憶體中的異動清單取代資料庫，佇列只能暫存一筆異動；第一筆異動送出時被擋住，讓輪詢填滿佇列而改為補讀，
+ * 驗證溢出、補讀與以游標排除重複後，每筆異動依游標順序只送出一次
+ */
+@DisplayName("書本異動推送測試")
+@Tag("unit")
+@Tag("change-feed")
+class BookChangeBroadcasterTests {
+
+	private static final String SUBSCRIBER_THREAD = "book-changes-subscriber";
+
+	private final List<BookChange> changes = new CopyOnWriteArrayList<>();
+
+	private final List<BookChangeBroadcaster.Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+	/**
+	 * 訂閱者執行緒下一次讀取異動之前執行一次，用來模擬補讀期間輪詢放入佇列的異動
+	 */
+	private volatile Runnable beforeSubscriberRead;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private BookChangeBroadcaster broadcaster;
+
+	@BeforeEach
+	void setUp() {
+		BookChangeFeed feed = mock(BookChangeFeed.class);
+		when(feed.currentCursor()).thenAnswer(invocation -> changes.isEmpty()
+			? BookChangeCursor.START : BookChangeCursor.of(changes.getLast()));
+		when(feed.getChanges(any(BookChangeCursor.class), anyInt())).thenAnswer(invocation -> {
+			if (Thread.currentThread().getName().equals(SUBSCRIBER_THREAD)) {
+				Runnable hook = beforeSubscriberRead;
+				beforeSubscriberRead = null;
+				if (hook != null) {
+					hook.run();
+				}
+			}
+			return page(invocation.getArgument(0), invocation.getArgument(1));
+		});
+
+		ChangeFeedProperties properties = new ChangeFeedProperties();
+		properties.setBufferSize(1);
+		properties.setPageSize(2);
+		properties.setMaxSubscribers(1);
+		properties.setHeartbeatInterval(Duration.ofMillis(50));
+		meterRegistry = new SimpleMeterRegistry();
+		broadcaster = new BookChangeBroadcaster(feed, properties, meterRegistry);
+	}
+
+	@AfterEach
+	void tearDown() {
+		subscriptions.forEach(BookChangeBroadcaster.Subscription::close);
+	}
+
+	@Test
+	@DisplayName("佇列溢出後改由補讀，補讀與佇列重疊的異動被排除，每筆異動依游標順序只送出一次")
+	void testOverflowDeliversEveryChangeOnceInOrder() {
+		RecordingSink sink = new RecordingSink(true);
+		subscriptions.add(broadcaster.subscribe(null, sink));
+		// 訂閱後先補讀 (沒有異動)，佇列沒有異動時送出 heartbeat
+		await().atMost(Duration.ofSeconds(5)).until(() -> sink.heartbeats.get() > 0);
+
+		append(1, 5);
+		broadcaster.poll();
+		// 第一筆異動被擋在 send，佇列只能暫存一筆，其餘異動在輪詢時溢出
+		await().atMost(Duration.ofSeconds(5)).until(() -> sink.cursors.size() == 1);
+		assertThat(meterRegistry.get("book.changes.overflows").counter().count()).isEqualTo(1);
+
+		// 補讀開始後 (佇列已清空、不再落後) 輪詢放入新的異動，補讀也會讀到同一筆
+		beforeSubscriberRead = () -> {
+			append(6, 6);
+			broadcaster.poll();
+		};
+		sink.release();
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> sink.cursors.size() >= 6);
+		// 佇列中重複的異動處理完後才會再次送出 heartbeat
+		int heartbeats = sink.heartbeats.get();
+		await().atMost(Duration.ofSeconds(5)).until(() -> sink.heartbeats.get() > heartbeats);
+
+		assertThat(sink.cursors).containsExactlyElementsOf(cursors(1, 6));
+		assertThat(sink.errors).isEmpty();
+		assertThat(meterRegistry.get("book.changes.overflows").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("帶入游標訂閱時從游標之後補讀，不重送游標之前的異動")
+	void testSubscribeSinceCursorCatchesUp() {
+		append(1, 4);
+		RecordingSink sink = new RecordingSink(false);
+		subscriptions.add(broadcaster.subscribe(BookChangeCursor.of(changes.get(1)).encode(), sink));
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> sink.cursors.size() >= 2);
+		append(5, 5);
+		broadcaster.poll();
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> sink.cursors.size() >= 3);
+		assertThat(sink.cursors).containsExactlyElementsOf(cursors(3, 5));
+	}
+
+	@Test
+	@DisplayName("訂閱者已達上限時回傳 503，取消訂閱後可再訂閱")
+	void testMaxSubscribers() {
+		BookChangeBroadcaster.Subscription first = broadcaster.subscribe(null, new RecordingSink(false));
+		subscriptions.add(first);
+		assertThat(meterRegistry.get("book.changes.subscribers").gauge().value()).isEqualTo(1);
+
+		assertThatThrownBy(() -> broadcaster.subscribe(null, new RecordingSink(false)))
+			.isInstanceOfSatisfying(ResponseStatusException.class,
+				ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+
+		first.close();
+		assertThat(meterRegistry.get("book.changes.subscribers").gauge().value()).isZero();
+		subscriptions.add(broadcaster.subscribe(null, new RecordingSink(false)));
+	}
+
+	@Test
+	@DisplayName("游標格式錯誤時回傳 400")
+	void testInvalidCursor() {
+		assertThatThrownBy(() -> broadcaster.subscribe("not-a-cursor", new RecordingSink(false)))
+			.isInstanceOfSatisfying(ResponseStatusException.class,
+				ex -> assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+	}
+
+	/**
+	 * 新增交易 ID 與書本 ID 為 from 到 to 的異動
+	 */
+	private void append(int from, int to) {
+		IntStream.rangeClosed(from, to)
+			.forEach(i -> changes.add(new BookChange(i, i, false, OffsetDateTime.now(), null)));
+	}
+
+	private static List<String> cursors(int from, int to) {
+		return IntStream.rangeClosed(from, to).mapToObj(i -> new BookChangeCursor(i, i).encode()).toList();
+	}
+
+	/**
+	 * 與 BookChangeFeed 相同的分頁方式：游標之後依 (txid, book_id) 遞增排序的異動
+	 */
+	private BookChangePage page(BookChangeCursor after, int limit) {
+		List<BookChange> following = changes.stream()
+			.filter(change -> BookChangeCursor.of(change).compareTo(after) > 0)
+			.toList();
+		boolean hasMore = following.size() > limit;
+		List<BookChange> page = hasMore ? following.subList(0, limit) : following;
+		BookChangeCursor nextCursor = page.isEmpty() ? after : BookChangeCursor.of(page.getLast());
+		return new BookChangePage(page, nextCursor, hasMore);
+	}
+
+	/**
+	 * 記錄送出的游標；blockFirstSend 時第一筆異動在 release() 之前不會送出完成
+	 */
+	private static class RecordingSink implements BookChangeBroadcaster.Sink {
+
+		private final List<String> cursors = new CopyOnWriteArrayList<>();
+
+		private final AtomicInteger heartbeats = new AtomicInteger();
+
+		private final List<Throwable> errors = new CopyOnWriteArrayList<>();
+
+		private final CountDownLatch gate;
+
+		RecordingSink(boolean blockFirstSend) {
+			this.gate = new CountDownLatch(blockFirstSend ? 1 : 0);
+		}
+
+		void release() {
+			gate.countDown();
+		}
+
+		@Override
+		public void send(BookChange change, String cursor) throws IOException {
+			cursors.add(cursor);
+			try {
+				gate.await();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+		}
+
+		@Override
+		public void heartbeat() {
+			heartbeats.incrementAndGet();
+		}
+
+		@Override
+		public void error(Throwable error) {
+			errors.add(error);
+		}
+	}
+}
@@ -0,0 +1,232 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.interfaces.dto.BookChangeDto;
+import com.example.demo.interfaces.dto.BookChangeResult;
+import com.example.demo.interfaces.dto.BookDto;
+import com.example.demo.interfaces.dto.BookRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * 書本異動 SSE 推送整合測試
+ * 以 HttpClient 逐行讀取 text/event-stream，驗證斷線後以 Last-Event-ID 重新連線只會收到斷線期間的異動，
+ * 以及 heartbeat 與訂閱人數上限；每個節點只允許一個訂閱者，前一個測試的連線在下一次 heartbeat 寫入失敗後才會移除
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"app.change-feed.poll-interval=100ms",
+		"app.change-feed.heartbeat-interval=200ms",
+		"app.change-feed.max-subscribers=1" })
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@DisplayName("書本異動 SSE 推送整合測試")
+@Tag("integration")
+@Tag("change-feed")
+class BookChangeStreamTests {
+
+	private static final Duration READ_TIMEOUT = Duration.ofSeconds(10);
+
+	private final HttpClient httpClient = HttpClient.newHttpClient();
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	@DisplayName("斷線後以 Last-Event-ID 重新連線，只收到斷線期間的異動")
+	void testReconnectWithLastEventId() throws IOException {
+		String lastEventId;
+		try (SseStream stream = connect(currentCursor(), null)) {
+			Integer firstId = createBook("即時推送 1", "9789863479980");
+			SseEvent event = stream.nextEvent();
+			assertThat(event.name()).isEqualTo("change");
+			assertThat(event.id()).isNotBlank();
+			assertThat(objectMapper.readValue(event.data(), BookChangeDto.class).getId()).isEqualTo(firstId);
+			lastEventId = event.id();
+		}
+
+		Integer secondId = createBook("即時推送 2", "9789863479981");
+		try (SseStream stream = connect(null, lastEventId)) {
+			SseEvent event = stream.nextEvent();
+			BookChangeDto change = objectMapper.readValue(event.data(), BookChangeDto.class);
+			assertThat(change.getId()).isEqualTo(secondId);
+			assertThat(change.getDeleted()).isFalse();
+			assertThat(change.getBook().getTitle()).isEqualTo("即時推送 2");
+		}
+	}
+
+	@Test
+	@DisplayName("沒有異動時定期送出 heartbeat，訂閱人數已達上限時回應 503")
+	void testHeartbeatAndMaxSubscribers() throws Exception {
+		try (SseStream stream = connect(null, null)) {
+			assertThat(stream.nextComment()).isEqualTo("heartbeat");
+
+			HttpResponse<InputStream> rejected = httpClient.send(request(null, null),
+					HttpResponse.BodyHandlers.ofInputStream());
+			try (InputStream body = rejected.body()) {
+				assertThat(rejected.statusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+			}
+
+			// 被拒絕的請求不影響既有的連線
+			assertThat(stream.nextComment()).isEqualTo("heartbeat");
+		}
+	}
+
+	/**
+	 * 完整同步一次，取得目前的游標
+	 */
+	private String currentCursor() {
+		String cursor = null;
+		BookChangeResult page;
+		do {
+			page = restTemplate.getForEntity("/books/changes?limit=1000" + (cursor == null ? "" : "&since=" + cursor),
+					BookChangeResult.class)
+				.getBody();
+			cursor = page.getNextCursor();
+		} while (page.getHasMore());
+		return cursor;
+	}
+
+	private Integer createBook(String title, String isbn) {
+		return restTemplate.postForEntity("/books", new BookRequest().title(title).author("作者").isbn(isbn), BookDto.class)
+			.getBody()
+			.getId();
+	}
+
+	private HttpRequest request(String since, String lastEventId) {
+		HttpRequest.Builder builder = HttpRequest
+			.newBuilder(URI.create("http://localhost:" + port + "/books/changes/stream"
+					+ (since == null ? "" : "?since=" + since)))
+			.header(HttpHeaders.ACCEPT, MediaType.TEXT_EVENT_STREAM_VALUE);
+		if (lastEventId != null) {
+			builder.header("Last-Event-ID", lastEventId);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * 開啟 SSE 連線；前一個測試的連線尚未移除時會回應 503，重試到取得連線為止
+	 */
+	private SseStream connect(String since, String lastEventId) {
+		HttpResponse<InputStream> response = await().atMost(READ_TIMEOUT).until(() -> {
+			HttpResponse<InputStream> attempt = httpClient.send(request(since, lastEventId),
+					HttpResponse.BodyHandlers.ofInputStream());
+			if (attempt.statusCode() != HttpStatus.OK.value()) {
+				attempt.body().close();
+			}
+			return attempt;
+		}, attempt -> attempt.statusCode() == HttpStatus.OK.value());
+		assertThat(response.headers().firstValue(HttpHeaders.CONTENT_TYPE)).hasValueSatisfying(
+				contentType -> assertThat(MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+					.isTrue());
+		return new SseStream(response.body());
+	}
+
+	/**
+	 * SSE 的一個事件或註解 (comment 不為 null 時為註解)
+	 */
+	private record SseEvent(String id, String name, String data, String comment) {
+	}
+
+	/**
+	 * 逐行解析 text/event-stream，關閉時中斷連線
+	 */
+	private static class SseStream implements AutoCloseable {
+
+		private final BufferedReader reader;
+
+		SseStream(InputStream body) {
+			this.reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+		}
+
+		/**
+		 * 下一個事件，略過 heartbeat 註解
+		 */
+		SseEvent nextEvent() {
+			SseEvent event;
+			do {
+				event = next();
+			} while (event.comment() != null);
+			return event;
+		}
+
+		/**
+		 * 下一個註解，不應先收到事件
+		 */
+		String nextComment() {
+			SseEvent event = next();
+			assertThat(event.comment()).as("預期收到註解，實際收到事件 %s", event).isNotNull();
+			return event.comment();
+		}
+
+		private SseEvent next() {
+			Instant deadline = Instant.now().plus(READ_TIMEOUT);
+			String id = null;
+			String name = null;
+			StringBuilder data = null;
+			String comment = null;
+			try {
+				// heartbeat 每 200ms 送出一次，readLine 不會無限期等待
+				while (Instant.now().isBefore(deadline)) {
+					String line = reader.readLine();
+					if (line == null) {
+						fail("SSE 連線已結束");
+					}
+					if (line.isEmpty()) {
+						if (data != null || comment != null) {
+							return new SseEvent(id, name, data == null ? null : data.toString(), comment);
+						}
+					} else if (line.startsWith(":")) {
+						comment = line.substring(1).strip();
+					} else if (line.startsWith("id:")) {
+						id = line.substring(3).strip();
+					} else if (line.startsWith("event:")) {
+						name = line.substring(6).strip();
+					} else if (line.startsWith("data:")) {
+						data = (data == null ? new StringBuilder() : data.append('\n')).append(line.substring(5).strip());
+					}
+				}
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+			return fail("%s 內沒有收到 SSE 事件", READ_TIMEOUT);
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.infrastructure.repositories.BookRepository;
+import com.example.demo.interfaces.dto.BookDto;
+import com.example.demo.interfaces.dto.BookPatchRequest;
+import com.example.demo.interfaces.dto.BookRequest;
+
+/**
+ * 書本並行更新測試
+ * 多個執行緒同時送出請求，驗證樂觀鎖與 ISBN 唯一約束在並行下不會遺失更新
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@DisplayName("書本並行更新測試")
+@Tag("integration")
+@Tag("concurrency")
+class BookConcurrencyTests {
+
+	private static final String BASE_URL = "/books";
+
+	private static final int THREADS = 8;
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@BeforeEach
+	void setUp() {
+		bookRepository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("相同 If-Match 的並行 PUT 只有一個成功，其餘回應 412")
+	void testConcurrentPutWithSameIfMatch() throws Exception {
+		Integer bookId = createBook("9789863479901").getBody().getId();
+		String etag = restTemplate.getForEntity(BASE_URL + "/" + bookId, BookDto.class).getHeaders().getETag();
+
+		List<HttpStatusCode> statuses = runConcurrently(i -> {
+			HttpHeaders headers = new HttpHeaders();
+			headers.setIfMatch(etag);
+			BookRequest request = bookRequest("9789863479901").title("並行更新 " + i);
+			return restTemplate.exchange(BASE_URL + "/" + bookId, HttpMethod.PUT,
+				new HttpEntity<>(request, headers), BookDto.class).getStatusCode();
+		});
+
+		assertThat(statuses).filteredOn(HttpStatus.OK::equals).hasSize(1);
+		assertThat(statuses).filteredOn(HttpStatus.PRECONDITION_FAILED::equals).hasSize(THREADS - 1);
+		assertThat(bookRepository.findById(bookId)).get()
+			.satisfies(book -> assertThat(book.getVersion()).isEqualTo(1L));
+	}
+
+	@Test
+	@DisplayName("相同 If-Match 的並行 PATCH 只有一個成功，未帶 If-Match 的並行 PATCH 不遺失更新")
+	void testConcurrentPatch() throws Exception {
+		Integer bookId = createBook("9789863479902").getBody().getId();
+		String etag = restTemplate.getForEntity(BASE_URL + "/" + bookId, BookDto.class).getHeaders().getETag();
+
+		List<HttpStatusCode> conditional = runConcurrently(i -> {
+			HttpHeaders headers = new HttpHeaders();
+			headers.setIfMatch(etag);
+			return restTemplate.exchange(BASE_URL + "/" + bookId, HttpMethod.PATCH,
+				new HttpEntity<>(new BookPatchRequest().title("部分更新 " + i), headers), BookDto.class)
+				.getStatusCode();
+		});
+
+		assertThat(conditional).filteredOn(HttpStatus.OK::equals).hasSize(1);
+		assertThat(conditional).filteredOn(HttpStatus.PRECONDITION_FAILED::equals).hasSize(THREADS - 1);
+
+		// 未帶 If-Match 時以最新的資料重新套用，每次更新都會遞增版本
+		List<HttpStatusCode> unconditional = runConcurrently(i -> restTemplate.exchange(BASE_URL + "/" + bookId,
+			HttpMethod.PATCH, new HttpEntity<>(new BookPatchRequest().price(new BigDecimal(100 + i))), BookDto.class)
+			.getStatusCode());
+
+		long succeeded = unconditional.stream().filter(HttpStatus.OK::equals).count();
+		assertThat(succeeded).isGreaterThanOrEqualTo(1);
+		assertThat(unconditional).allMatch(status -> status.equals(HttpStatus.OK) || status.equals(HttpStatus.CONFLICT));
+		// 最後的價格必須來自其中一個成功的請求 (第 i 個請求的價格為 100 + i)
+		List<BigDecimal> succeededPrices = IntStream.range(0, THREADS)
+			.filter(i -> unconditional.get(i).equals(HttpStatus.OK))
+			.mapToObj(i -> new BigDecimal(100 + i))
+			.toList();
+		assertThat(bookRepository.findById(bookId)).get().satisfies(book -> {
+			assertThat(book.getVersion()).isEqualTo(1L + succeeded);
+			assertThat(book.getTitle()).startsWith("部分更新 ");
+			assertThat(book.getPrice()).isNotNull();
+			assertThat(succeededPrices).anySatisfy(price -> assertThat(book.getPrice()).isEqualByComparingTo(price));
+		});
+	}
+
+	@Test
+	@DisplayName("並行將兩本書更新為相同 ISBN 時只有一個成功，另一個回應 409")
+	void testConcurrentUpdateToSameIsbn() throws Exception {
+		List<Integer> bookIds = List.of(createBook("9789863479903").getBody().getId(),
+			createBook("9789863479904").getBody().getId());
+
+		List<HttpStatusCode> statuses = runConcurrently(bookIds.size(), i -> restTemplate.exchange(
+			BASE_URL + "/" + bookIds.get(i), HttpMethod.PUT, new HttpEntity<>(bookRequest("9789863479905")),
+			BookDto.class).getStatusCode());
+
+		assertThat(statuses).containsExactlyInAnyOrder(HttpStatus.OK, HttpStatus.CONFLICT);
+		assertThat(bookRepository.existsByIsbn("9789863479905")).isTrue();
+	}
+
+	private List<HttpStatusCode> runConcurrently(IntFunction<HttpStatusCode> request) throws Exception {
+		return runConcurrently(THREADS, request);
+	}
+
+	/**
+	 * 所有執行緒就緒後才同時送出請求，盡量讓請求在資料庫端重疊
+	 */
+	private List<HttpStatusCode> runConcurrently(int threads, IntFunction<HttpStatusCode> request) throws Exception {
+		CountDownLatch ready = new CountDownLatch(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<HttpStatusCode>> futures = new ArrayList<>();
+		try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+			for (int i = 0; i < threads; i++) {
+				int index = i;
+				futures.add(executor.submit(() -> {
+					ready.countDown();
+					start.await();
+					return request.apply(index);
+				}));
+			}
+			ready.await();
+			start.countDown();
+		}
+		List<HttpStatusCode> statuses = new ArrayList<>();
+		for (Future<HttpStatusCode> future : futures) {
+			statuses.add(future.get());
+		}
+		return statuses;
+	}
+
+	private ResponseEntity<BookDto> createBook(String isbn) {
+		ResponseEntity<BookDto> response = restTemplate.postForEntity(BASE_URL, bookRequest(isbn), BookDto.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		return response;
+	}
+
+	private static BookRequest bookRequest(String isbn) {
+		return new BookRequest()
+			.title("並行測試")
+			.author("測試作者")
+			.isbn(isbn)
+			.publishYear(2024)
+			.price(new BigDecimal("450.00"));
+	}
+}
@@ -0,0 +1,226 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Pattern;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.cache.Cache.ValueWrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.applications.BookExistenceFilter;
+import com.example.demo.config.CacheConfig;
+import com.example.demo.infrastructure.cache.TwoLevelCache;
+import com.example.demo.infrastructure.cache.TwoLevelCacheManager;
+import com.example.demo.interfaces.dto.BookDto;
+import com.example.demo.interfaces.dto.BookRequest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 負向快取與 Bloom filter 測試
+ * 負向快取的存活時間縮短為 1 秒，以便在測試中觀察到期
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"app.bloom-filter.enabled=true",
+		"app.cache.caches.books.negative-ttl=1s" })
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@DisplayName("負向快取與 Bloom filter 測試")
+@Tag("integration")
+@Tag("cache")
+class BookExistenceFilterTests {
+
+	private static final String BASE_URL = "/books";
+
+	private static final Duration NEGATIVE_TTL = Duration.ofSeconds(1);
+
+	/**
+	 * 依 ID 查詢書本的 SQL (findById)，背景重建過濾器的全表讀取不符合
+	 */
+	private static final Pattern FIND_BY_ID = Pattern.compile(" from book \\w+ where \\w+\\.id=\\?");
+
+	/**
+	 * Hibernate 執行的所有 SQL，請求由伺服器的執行緒處理，因此不區分執行緒
+	 */
+	private static final Queue<String> EXECUTED_SQL = new ConcurrentLinkedQueue<>();
+
+	@TestConfiguration
+	static class SqlCaptureConfig {
+
+		@Bean
+		HibernatePropertiesCustomizer sqlCaptureCustomizer() {
+			return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+				EXECUTED_SQL.add(sql);
+				return sql;
+			});
+		}
+	}
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private BookExistenceFilter bookExistenceFilter;
+
+	@Autowired
+	private TwoLevelCacheManager cacheManager;
+
+	@Autowired
+	private StringRedisTemplate stringRedisTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private TwoLevelCache booksCache;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.execute("TRUNCATE book");
+		booksCache = cacheManager.getTwoLevelCache(CacheConfig.BOOKS_CACHE);
+		booksCache.clear();
+		// 等待啟動時的背景載入完成，完成前一律視為可能存在
+		await().atMost(Duration.ofSeconds(10)).until(() -> !bookExistenceFilter.mightContainId(Integer.MAX_VALUE));
+	}
+
+	@Test
+	@DisplayName("Bloom filter 判定一定不存在的 ID 直接回應 404，不查詢 Redis 與資料庫，也不留下快取項目")
+	void testRejectedIdSkipsCacheAndDatabase() {
+		int id = 900_002;
+		assertThat(bookExistenceFilter.mightContainId(id)).isFalse();
+		String key = "book_" + id;
+		double remoteGets = remoteGets();
+		EXECUTED_SQL.clear();
+
+		assertThat(getBook(id).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+		assertThat(EXECUTED_SQL).noneMatch(sql -> FIND_BY_ID.matcher(sql).find());
+		assertThat(remoteGets()).as("Redis GET 次數").isEqualTo(remoteGets);
+		// L1 (包含負向快取區域) 與 L2 都沒有此 ID 的項目
+		assertThat(booksCache.get(key)).isNull();
+		assertThat(stringRedisTemplate.hasKey("demo:cache:" + CacheConfig.BOOKS_CACHE + "::" + key)).isFalse();
+	}
+
+	@Test
+	@DisplayName("查無此書的結果以負向快取保存，到期前不查詢資料庫，到期後讀到新資料")
+	void testNegativeEntryExpiresAfterTtl() {
+		// 模擬 Bloom filter 誤判或已刪除的書本：過濾器認為可能存在，但資料庫沒有
+		int id = 900_001;
+		bookExistenceFilter.addLocal(id, "9789863478001");
+		assertThat(getBook(id).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		ValueWrapper negativeEntry = booksCache.get("book_" + id);
+		assertThat(negativeEntry).isNotNull();
+		assertThat(negativeEntry.get()).isNull();
+
+		// 繞過應用程式直接寫入，負向快取到期前仍回應 404，到期後 (L1 與 L2 皆是) 才讀到新資料
+		jdbcTemplate.update("INSERT INTO book (id, title, author, isbn) VALUES (?, '直接寫入的書', '作者', '9789863478001')",
+			id);
+		assertThat(getBook(id).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+		await().atMost(NEGATIVE_TTL.plusSeconds(5))
+			.until(() -> getBook(id).getStatusCode() == HttpStatus.OK);
+	}
+
+	@Test
+	@DisplayName("新增書本會清除該 ID 先前留下的負向快取")
+	void testCreateBookEvictsNegativeEntry() {
+		Integer previousId = createBook("9789863478002").getBody().getId();
+
+		// 新書本的 ID 由 pooled optimizer 依序配置，預先為之後的一整個區塊留下負向快取項目
+		Map<Object, Object> negativeEntries = new HashMap<>();
+		for (int i = 1; i <= 50; i++) {
+			negativeEntries.put("book_" + (previousId + i), null);
+		}
+		booksCache.putAll(negativeEntries);
+
+		Integer id = createBook("9789863478003").getBody().getId();
+		assertThat(negativeEntries).containsKey("book_" + id);
+		ResponseEntity<BookDto> response = getBook(id);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody().getIsbn()).isEqualTo("9789863478003");
+	}
+
+	@Test
+	@DisplayName("重建期間與重建之後，資料庫中的每一本書都不會被判定為不存在")
+	void testRebuildHasNoFalseNegatives() throws Exception {
+		// 直接寫入資料庫的書本只有重建後才會出現在過濾器中
+		jdbcTemplate.execute("""
+			INSERT INTO book (title, author, isbn)
+			SELECT 'Book ' || g, 'Author ' || g, lpad(g::text, 13, '0')
+			FROM generate_series(1, 20000) AS g
+			""");
+
+		// 重建與新增同時進行，重建期間新增的書本也不能遺漏
+		Thread rebuild = Thread.ofVirtual().start(bookExistenceFilter::rebuild);
+		List<Integer> created = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			created.add(createBook(String.format("97898634781%02d", i)).getBody().getId());
+		}
+		rebuild.join();
+
+		// 新增書本在重建換上新的過濾器之前寫入舊的過濾器時，由 outbox relay 的通知補上
+		await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+			List<Map<String, Object>> books = jdbcTemplate.queryForList("SELECT id, isbn FROM book");
+			assertThat(books).hasSize(20_000 + created.size()).allSatisfy(book -> {
+				assertThat(bookExistenceFilter.mightContainId((Integer) book.get("id"))).isTrue();
+				assertThat(bookExistenceFilter.mightContainIsbn((String) book.get("isbn"))).isTrue();
+			});
+		});
+	}
+
+	/**
+	 * 書本快取向 L2 (Redis) 查詢的次數，命中與未命中合計
+	 */
+	private double remoteGets() {
+		return meterRegistry.find("cache.gets")
+			.tags("cache", CacheConfig.BOOKS_CACHE, "tier", "remote")
+			.counters()
+			.stream()
+			.mapToDouble(Counter::count)
+			.sum();
+	}
+
+	private ResponseEntity<BookDto> getBook(Integer id) {
+		return restTemplate.getForEntity(BASE_URL + "/" + id, BookDto.class);
+	}
+
+	private ResponseEntity<BookDto> createBook(String isbn) {
+		BookRequest request = new BookRequest()
+			.title("Bloom filter 測試")
+			.author("測試作者")
+			.isbn(isbn)
+			.publishYear(2024)
+			.price(new BigDecimal("100.00"));
+		ResponseEntity<BookDto> response = restTemplate.postForEntity(BASE_URL, request, BookDto.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		return response;
+	}
+}
@@ -0,0 +1,127 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.infrastructure.repositories.BookRepository;
+
+/**
+ * 全文檢索效能基準測試
+ * 以 generate_series 建立大量書本 (預設 100 萬筆，可用 -Pbenchmark.books 調整) 後，
+ * 直接量測資料庫查詢延遲 (不經過快取)，p95 超過門檻 (預設 10ms，可用 -Pbenchmark.search.p95-ms 調整) 即失敗
+ *
+ * 執行方式：./gradlew benchmarkTest
+ */
+@SpringBootTest
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Tag("benchmark")
+@DisplayName("全文檢索效能基準測試")
+class BookFullTextSearchBenchmarkTests {
+
+	private static final Logger log = LoggerFactory.getLogger(BookFullTextSearchBenchmarkTests.class);
+
+	private static final int WARMUP_ROUNDS = 20;
+	private static final int MEASURED_ROUNDS = 100;
+
+	/**
+	 * 模擬使用者輸入：完整關鍵字、前綴、中文關鍵字與書名片段
+	 * 只命中少數書本的查詢才有個位數毫秒的目標；只輸入 Spring 這類會命中十萬筆的字詞時，排序成本與命中筆數成正比
+	 */
+	private static final List<String> QUERIES = List.of(
+		"Kubernetes 實戰 50011",
+		"Sprin 4242",
+		"資料庫 設計 31415",
+		"Reactive 777",
+		"Rust Internals 98765",
+		"Patterns 123456"
+	);
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@BeforeAll
+	void seed() {
+		long books = Long.getLong("benchmark.books", 1_000_000);
+		jdbcTemplate.execute("TRUNCATE book");
+		jdbcTemplate.update("""
+			INSERT INTO book (title, author, isbn, publish_year, price)
+			SELECT (ARRAY['Spring', 'Kubernetes', 'Reactive', 'Microservice', '資料庫', '雲端', 'Java', 'Go', 'Rust', '演算法'])[1 + g % 10]
+			       || ' ' || (ARRAY['實戰', 'Patterns', 'in Action', '設計', 'Cookbook', '入門', 'Internals'])[1 + (g / 10) % 7]
+			       || ' ' || g,
+			       'Author ' || (g % 5000),
+			       lpad(g::text, 13, '0'),
+			       1950 + g % 75,
+			       (g % 1000) + 0.99
+			FROM generate_series(1, ?) AS g
+			""", books);
+		jdbcTemplate.execute("VACUUM ANALYZE book");
+	}
+
+	@AfterAll
+	void cleanUp() {
+		jdbcTemplate.execute("TRUNCATE book");
+	}
+
+	@Test
+	@DisplayName("測試全文檢索第一頁的資料庫查詢延遲")
+	void benchmarkFullTextSearch() {
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			QUERIES.forEach(this::search);
+		}
+		long[] latencies = new long[MEASURED_ROUNDS * QUERIES.size()];
+		int index = 0;
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			for (String query : QUERIES) {
+				long start = System.nanoTime();
+				search(query);
+				latencies[index++] = System.nanoTime() - start;
+			}
+		}
+		Arrays.sort(latencies);
+		double p50 = percentileMillis(latencies, 0.50);
+		double p95 = percentileMillis(latencies, 0.95);
+		double p99 = percentileMillis(latencies, 0.99);
+		log.info("全文檢索延遲 ({} 筆書本, {} 次查詢): {}", bookRepository.count(), latencies.length,
+			String.format("p50=%.2fms p95=%.2fms p99=%.2fms", p50, p95, p99));
+
+		double budget = Double.parseDouble(System.getProperty("benchmark.search.p95-ms", "10"));
+		assertThat(p95).as("全文檢索 p95 延遲 (ms)").isLessThan(budget);
+	}
+
+	/**
+	 * 與 BookService.searchBooksByText 相同的查詢，但略過結果快取
+	 */
+	private void search(String query) {
+		String tsquery = Arrays.stream(query.split("\\s+"))
+			.map(term -> "'" + term + "':*")
+			.reduce((a, b) -> a + " & " + b)
+			.orElseThrow();
+		bookRepository.searchByText(tsquery, query, "%" + query + "%", 21, 0);
+	}
+
+	private static double percentileMillis(long[] sorted, double percentile) {
+		int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(0, index)] / 1_000_000.0;
+	}
+}
@@ -0,0 +1,267 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.*;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.applications.BookExistenceFilter;
+import com.example.demo.config.CacheConfig;
+
+/**
+ * 端對端負載測試
+ * 以 Testcontainers 啟動 PostgreSQL 與 Redis，建立 N 筆書本後，以固定到達率 (open-loop) 送出讀寫混合的 REST 請求，
+ * 延遲以 HdrHistogram 記錄，並從「預定送出時間」起算，避免伺服器變慢時壓測端跟著放慢而低估延遲 (coordinated omission)
+ *
+ * GET /books/{id} 的 p99 高於基準值，或達成的吞吐量低於基準值時即失敗，容許誤差由 load.tolerance 設定
+ * 基準值記錄在 dev-resources/load-test/baseline.properties，調整快取、連線池或執行緒模型後可重新記錄：
+ * ./gradlew loadTest -Pload.update-baseline=true
+ * 基準值檔案標記為 placeholder=true 時 (尚未在 CI 硬體上量測)，只輸出結果不與基準值比較
+ *
+ * 執行方式：./gradlew loadTest -Pload.rate=1000 -Pload.read-ratio=0.95
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@Tag("load")
+@DisplayName("書本 API 負載測試")
+class BookLoadTests {
+
+	private static final Logger log = LoggerFactory.getLogger(BookLoadTests.class);
+
+	private static final String GET_BY_ID_P99_MS = "books.get-by-id.p99-ms";
+	private static final String THROUGHPUT_RPS = "throughput.rps";
+	private static final String PLACEHOLDER = "placeholder";
+
+	/**
+	 * 容許的錯誤請求比例 (非 2xx 或連線失敗)
+	 */
+	private static final double MAX_ERROR_RATIO = 0.001;
+
+	private static final String UPDATE_BODY = """
+		{"title":"Load Test %1$d","author":"Author %2$d","isbn":"%3$013d","publishYear":2024,"price":%4$d.99}
+		""";
+
+	private final long books = Long.getLong("load.books", 100_000);
+	private final int rate = Integer.getInteger("load.rate", 500);
+	private final double readRatio = Double.parseDouble(System.getProperty("load.read-ratio", "0.9"));
+	private final Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 10));
+	private final Duration duration = Duration.ofSeconds(Long.getLong("load.duration-seconds", 30));
+	private final double tolerance = Double.parseDouble(System.getProperty("load.tolerance", "0.1"));
+	private final Path baselineFile = Path.of(System.getProperty("load.baseline",
+		"dev-resources/load-test/baseline.properties"));
+	private final Path reportDir = Path.of(System.getProperty("load.report-dir", "build/reports/load-test"));
+
+	private final Recorder readLatency = new Recorder(3);
+	private final Recorder writeLatency = new Recorder(3);
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private BookExistenceFilter bookExistenceFilter;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	private HttpClient httpClient;
+
+	@BeforeAll
+	void seed() {
+		jdbcTemplate.execute("TRUNCATE book");
+		// 以明確的 ID 建立資料，壓測時才能直接推算出每筆書本的 ID 與 ISBN
+		jdbcTemplate.update("""
+			INSERT INTO book (id, title, author, isbn, publish_year, price)
+			SELECT g, 'Book ' || g, 'Author ' || (g % 5000), lpad(g::text, 13, '0'), 1950 + g % 75, (g % 1000) + 0.99
+			FROM generate_series(1, ?) AS g
+			""", books);
+		jdbcTemplate.queryForObject("SELECT setval('book_id_seq', ?)", Long.class, books);
+		jdbcTemplate.execute("VACUUM ANALYZE book");
+		// 直接寫入資料庫的書本不在 Bloom filter 與快取中，需重新建立
+		bookExistenceFilter.rebuild();
+		cacheManager.getCache(CacheConfig.BOOKS_CACHE).clear();
+		httpClient = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(5))
+			.executor(Executors.newVirtualThreadPerTaskExecutor())
+			.build();
+	}
+
+	@AfterAll
+	void cleanUp() {
+		httpClient.close();
+		jdbcTemplate.execute("TRUNCATE book");
+	}
+
+	@Test
+	@DisplayName("讀寫混合負載下 GET /books/{id} 的 p99 延遲與吞吐量不可低於基準值")
+	void testMixedWorkloadAgainstBaseline() throws Exception {
+		long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+		long start = System.nanoTime();
+		long measureStart = start + warmup.toNanos();
+		long measureEnd = measureStart + duration.toNanos();
+		long gcCountBefore = gcCount();
+
+		// 依預定時間送出請求，不等待前一個請求完成，每個請求使用一條虛擬執行緒
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (long i = 0;; i++) {
+				long intendedStart = start + i * intervalNanos;
+				if (intendedStart >= measureEnd) {
+					break;
+				}
+				LockSupport.parkNanos(intendedStart - System.nanoTime());
+				boolean read = ThreadLocalRandom.current().nextDouble() < readRatio;
+				long bookId = ThreadLocalRandom.current().nextLong(1, books + 1);
+				executor.execute(() -> send(read, bookId, intendedStart, measureStart, measureEnd));
+			}
+		}
+
+		Histogram reads = readLatency.getIntervalHistogram();
+		Histogram writes = writeLatency.getIntervalHistogram();
+		// 應用程式與負載產生器在同一個 JVM，GC 次數包含暖機期間，只用於比較不同版本的趨勢
+		long gcCount = gcCount() - gcCountBefore;
+		log.info("GC 次數：{} ({}/s，含暖機)", gcCount,
+			String.format("%.2f", gcCount / ((System.nanoTime() - start) / 1e9)));
+		double seconds = duration.toNanos() / 1e9;
+		double throughput = completed.sum() / seconds;
+		double getP99Millis = reads.getValueAtPercentile(99) / 1000.0;
+		long total = reads.getTotalCount() + writes.getTotalCount() + errors.sum();
+		writeReport(reads, writes, throughput);
+
+		assertThat(total).as("量測期間應有送出請求").isPositive();
+		assertThat((double) errors.sum() / total).as("錯誤請求比例").isLessThanOrEqualTo(MAX_ERROR_RATIO);
+
+		if (Boolean.getBoolean("load.update-baseline")) {
+			Properties baseline = new Properties();
+			baseline.setProperty(GET_BY_ID_P99_MS, String.format("%.2f", getP99Millis));
+			baseline.setProperty(THROUGHPUT_RPS, String.format("%.1f", throughput));
+			Files.createDirectories(baselineFile.toAbsolutePath().getParent());
+			try (Writer writer = Files.newBufferedWriter(baselineFile)) {
+				baseline.store(writer, "GET /books/{id} p99 (ms) and throughput (req/s) at rate=" + rate
+					+ ", read-ratio=" + readRatio + ", books=" + books);
+			}
+			return;
+		}
+
+		Properties baseline = new Properties();
+		try (Reader reader = Files.newBufferedReader(baselineFile)) {
+			baseline.load(reader);
+		}
+		assumeFalse(Boolean.parseBoolean(baseline.getProperty(PLACEHOLDER)),
+			"基準值尚未量測 (" + baselineFile + " 為預留值)，請以 -Pload.update-baseline=true 記錄後再比較");
+		double p99Limit = Double.parseDouble(baseline.getProperty(GET_BY_ID_P99_MS)) * (1 + tolerance);
+		double throughputFloor = Math.min(rate, Double.parseDouble(baseline.getProperty(THROUGHPUT_RPS)))
+			* (1 - tolerance);
+		assertThat(getP99Millis).as("GET /books/{id} p99 (ms)").isLessThanOrEqualTo(p99Limit);
+		assertThat(throughput).as("吞吐量 (req/s)").isGreaterThanOrEqualTo(throughputFloor);
+	}
+
+	private static String summary(Histogram histogram) {
+		return String.format("count=%d, p50=%.2fms, p99=%.2fms, max=%.2fms", histogram.getTotalCount(),
+			histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+			histogram.getMaxValue() / 1000.0);
+	}
+
+	private static long gcCount() {
+		return ManagementFactory.getGarbageCollectorMXBeans().stream()
+			.mapToLong(GarbageCollectorMXBean::getCollectionCount)
+			.filter(count -> count > 0)
+			.sum();
+	}
+
+	/**
+	 * 送出單一請求並記錄延遲，暖機期間的請求不記錄，只有在量測區間內完成的請求才計入吞吐量
+	 */
+	private void send(boolean read, long bookId, long intendedStart, long measureStart, long measureEnd) {
+		URI uri = URI.create("http://localhost:" + port + "/books/" + bookId);
+		HttpRequest request = read
+			? HttpRequest.newBuilder(uri).GET().build()
+			: HttpRequest.newBuilder(uri)
+				.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+				.PUT(HttpRequest.BodyPublishers.ofString(UPDATE_BODY.formatted(bookId, bookId % 5000, bookId,
+					ThreadLocalRandom.current().nextInt(1000))))
+				.build();
+		try {
+			HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+			long end = System.nanoTime();
+			if (intendedStart < measureStart) {
+				return;
+			}
+			if (response.statusCode() / 100 != 2) {
+				errors.increment();
+				return;
+			}
+			(read ? readLatency : writeLatency).recordValue(TimeUnit.NANOSECONDS.toMicros(end - intendedStart));
+			if (end <= measureEnd) {
+				completed.increment();
+			}
+		} catch (IOException ex) {
+			if (intendedStart >= measureStart) {
+				errors.increment();
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * 輸出摘要並將完整延遲分布 (微秒，以毫秒顯示) 寫入報告目錄，可用 HdrHistogram Plotter 繪圖比較
+	 */
+	private void writeReport(Histogram reads, Histogram writes, double throughput) throws IOException {
+		log.info("負載測試結果：rate={}/s, read-ratio={}, 吞吐量={}/s, 錯誤={}", rate, readRatio,
+			String.format("%.1f", throughput), errors.sum());
+		log.info("GET /books/{id}：{}", summary(reads));
+		log.info("PUT /books/{id}：{}", summary(writes));
+		Files.createDirectories(reportDir);
+		try (PrintStream out = new PrintStream(Files.newOutputStream(reportDir.resolve("get-by-id.hgrm")))) {
+			reads.outputPercentileDistribution(out, 1000.0);
+		}
+		try (PrintStream out = new PrintStream(Files.newOutputStream(reportDir.resolve("put-by-id.hgrm")))) {
+			writes.outputPercentileDistribution(out, 1000.0);
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+import org.testcontainers.utility.MountableFile;
+
+import com.example.demo.applications.BookCatalogVersion;
+import com.example.demo.infrastructure.repositories.BookRepository;
+import com.example.demo.interfaces.dto.BookDto;
+import com.example.demo.interfaces.dto.BookRequest;
+
+/**
+ * 唯讀副本路由測試
+ * 以第二個未設定複寫的 PostgreSQL 容器作為副本，兩邊的資料不同，藉此判斷查詢實際由哪個資料庫處理
+ * 路由以搜尋端點驗證；列表回應帶有目錄版本的 ETag，固定由主資料庫處理
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"app.read-replica.enabled=true",
+		"app.read-replica.health-check-interval=200ms",
+		"app.read-replica.sticky-window=5s" })
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@Testcontainers
+@DisplayName("唯讀副本路由測試")
+@Tag("integration")
+@Tag("replica")
+class BookReadReplicaTests {
+
+	private static final String BASE_URL = "/books";
+
+	private static final String SEARCH_URL = BASE_URL + "/search";
+
+	private static final ParameterizedTypeReference<List<BookDto>> BOOK_LIST = new ParameterizedTypeReference<>() {
+	};
+
+	@Container
+	static PostgreSQLContainer<?> replicaContainer = new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"))
+		.withCopyFileToContainer(MountableFile.forHostPath("dev-resources/schema.sql"),
+			"/docker-entrypoint-initdb.d/schema.sql");
+
+	@DynamicPropertySource
+	static void replicaProperties(DynamicPropertyRegistry registry) {
+		registry.add("app.read-replica.replicas[0].name", () -> "test-replica");
+		registry.add("app.read-replica.replicas[0].url", replicaContainer::getJdbcUrl);
+		registry.add("app.read-replica.replicas[0].username", replicaContainer::getUsername);
+		registry.add("app.read-replica.replicas[0].password", replicaContainer::getPassword);
+	}
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Autowired
+	private BookCatalogVersion bookCatalogVersion;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final JdbcTemplate replicaJdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+		replicaContainer.getJdbcUrl(), replicaContainer.getUsername(), replicaContainer.getPassword()));
+
+	@BeforeEach
+	void setUp() {
+		bookRepository.deleteAll();
+		replicaJdbcTemplate.update("DELETE FROM book");
+	}
+
+	@Test
+	@DisplayName("唯讀查詢由副本處理，寫入由主資料庫處理，寫入後的 cookie 讓查詢改用主資料庫")
+	void testReadOnlyQueriesAreRoutedToReplica() {
+		replicaJdbcTemplate.update("""
+			INSERT INTO book (id, title, author, isbn) VALUES (1, '只在副本的書', '副本作者', '9789863470001')
+			""");
+
+		// 等待第一次健康檢查通過
+		await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(listIsbns(null))
+			.containsExactly("9789863470001"));
+
+		BookRequest request = new BookRequest()
+			.title("寫入主資料庫的書")
+			.author("主資料庫作者")
+			.isbn("9789863470002")
+			.publishYear(2024)
+			.price(new BigDecimal("300.00"));
+		ResponseEntity<BookDto> created = restTemplate.postForEntity(BASE_URL, request, BookDto.class);
+		assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+		assertThat(bookRepository.existsByIsbn("9789863470002")).isTrue();
+
+		// 沒有 read-your-writes cookie：仍由副本處理，看不到剛寫入的書
+		assertThat(listIsbns(null)).containsExactly("9789863470001");
+
+		// 帶回寫入時取得的 cookie：改由主資料庫處理
+		String cookie = created.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+		assertThat(cookie).startsWith("db-primary-until=");
+		assertThat(listIsbns(cookie.split(";", 2)[0])).containsExactly("9789863470002");
+	}
+
+	@Test
+	@DisplayName("副本無法連線時唯讀查詢改由主資料庫處理，恢復後再回到副本")
+	void testFallsBackToPrimaryWhenReplicaIsUnavailable() {
+		replicaJdbcTemplate.update("""
+			INSERT INTO book (id, title, author, isbn) VALUES (1, '只在副本的書', '副本作者', '9789863470003')
+			""");
+		BookRequest request = new BookRequest()
+			.title("寫入主資料庫的書")
+			.author("主資料庫作者")
+			.isbn("9789863470004");
+		assertThat(restTemplate.postForEntity(BASE_URL, request, BookDto.class).getStatusCode())
+			.isEqualTo(HttpStatus.CREATED);
+		await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(listIsbns(null))
+			.containsExactly("9789863470003"));
+
+		// 拒絕新連線並中斷既有連線，模擬副本故障
+		JdbcTemplate admin = new JdbcTemplate(new DriverManagerDataSource("jdbc:postgresql://"
+			+ replicaContainer.getHost() + ":" + replicaContainer.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT)
+			+ "/postgres", replicaContainer.getUsername(), replicaContainer.getPassword()));
+		String database = replicaContainer.getDatabaseName();
+		admin.execute("ALTER DATABASE \"" + database + "\" ALLOW_CONNECTIONS false");
+		try {
+			admin.queryForList("SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE datname = ?", database);
+			await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(listIsbns(null))
+				.containsExactly("9789863470004"));
+		} finally {
+			admin.execute("ALTER DATABASE \"" + database + "\" ALLOW_CONNECTIONS true");
+		}
+
+		await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(listIsbns(null))
+			.containsExactly("9789863470003"));
+	}
+
+	@Test
+	@DisplayName("列表的目錄版本 ETag 只搭配主資料庫的資料，副本落後時不會以新版本送出舊資料")
+	void testCatalogEtagIsNotPairedWithReplicaRows() {
+		replicaJdbcTemplate.update("""
+			INSERT INTO book (id, title, author, isbn) VALUES (1, '只在副本的書', '副本作者', '9789863470005')
+			""");
+		await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(listIsbns(null))
+			.containsExactly("9789863470005"));
+
+		BookRequest request = new BookRequest()
+			.title("寫入主資料庫的書")
+			.author("主資料庫作者")
+			.isbn("9789863470006");
+		assertThat(restTemplate.postForEntity(BASE_URL, request, BookDto.class).getStatusCode())
+			.isEqualTo(HttpStatus.CREATED);
+		// outbox relay 發布事件時會再遞增一次目錄版本，等事件送出後再讀取版本
+		await().atMost(Duration.ofSeconds(5))
+			.until(() -> jdbcTemplate.queryForObject("SELECT count(*) FROM book_outbox", Long.class) == 0);
+		OptionalLong version = bookCatalogVersion.current();
+		assertThat(version).isPresent();
+
+		// 沒有 read-your-writes cookie：搜尋仍由落後的副本處理，列表則由主資料庫處理
+		assertThat(listIsbns(null)).containsExactly("9789863470005");
+		ResponseEntity<List<BookDto>> list = restTemplate.exchange(BASE_URL, HttpMethod.GET, null, BOOK_LIST);
+		assertThat(list.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(list.getBody()).extracting(BookDto::getIsbn).containsExactly("9789863470006");
+		assertThat(list.getHeaders().getETag()).isEqualTo("W/\"" + version.getAsLong() + "\"");
+
+		// 以該 ETag 發出的條件式請求回應 304，代表用戶端快取的是寫入後的資料
+		HttpHeaders headers = new HttpHeaders();
+		headers.setIfNoneMatch(list.getHeaders().getETag());
+		assertThat(restTemplate.exchange(BASE_URL, HttpMethod.GET, new HttpEntity<>(headers), BOOK_LIST)
+			.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+	}
+
+	private List<String> listIsbns(String cookie) {
+		HttpHeaders headers = new HttpHeaders();
+		if (cookie != null) {
+			headers.add(HttpHeaders.COOKIE, cookie);
+		}
+		ResponseEntity<List<BookDto>> response = restTemplate.exchange(SEARCH_URL, HttpMethod.GET,
+			new HttpEntity<>(headers), BOOK_LIST);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		return response.getBody().stream().map(BookDto::getIsbn).toList();
+	}
+}
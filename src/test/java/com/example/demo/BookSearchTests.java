@@ -0,0 +1,312 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.applications.BookSearchCriteria;
+import com.example.demo.applications.BookSearchPage;
+import com.example.demo.applications.BookService;
+import com.example.demo.infrastructure.repositories.BookSpecifications.SortField;
+import com.example.demo.interfaces.dto.BookDto;
+import com.example.demo.models.Book;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@DisplayName("書籍搜尋 API 整合測試")
+class BookSearchTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private BookService bookService;
+
+	@BeforeEach
+	void setUp() {
+		// 準備足夠的資料量讓查詢規劃器依實際成本選擇執行計畫，出版年份與價格各有一部分為空值
+		jdbcTemplate.execute("TRUNCATE book");
+		jdbcTemplate.execute("""
+			INSERT INTO book (title, author, isbn, publish_year, price)
+			SELECT 'Book ' || g,
+			       'Author ' || (g % 500),
+			       lpad(g::text, 13, '0'),
+			       CASE WHEN g % 10 = 0 THEN NULL ELSE 1900 + g % 125 END,
+			       CASE WHEN g % 7 = 0 THEN NULL ELSE (g % 1000) + 0.99 END
+			FROM generate_series(1, 20000) AS g
+			""");
+		jdbcTemplate.execute("ANALYZE book");
+	}
+
+	@AfterEach
+	void tearDown() {
+		jdbcTemplate.execute("TRUNCATE book");
+	}
+
+	/**
+	 * 搜尋時實際執行的 SQL，只記錄呼叫 {@link #captureSearchSql} 的執行緒
+	 */
+	private static final ThreadLocal<List<String>> CAPTURED_SQL = new ThreadLocal<>();
+
+	/**
+	 * 執行計畫中的排序節點，出現時代表索引沒有提供排序
+	 */
+	private static final Pattern TOP_LEVEL_SORT = Pattern.compile("^\\s*(->\\s+)?(Incremental )?Sort\\s+\\(");
+
+	/**
+	 * 記錄 Hibernate 產生的 SQL，並將查詢條件的值直接寫入 SQL，讓記錄下來的 SQL 可以直接 EXPLAIN
+	 */
+	@TestConfiguration
+	static class SqlCaptureConfig {
+
+		@Bean
+		HibernatePropertiesCustomizer sqlCaptureCustomizer() {
+			return properties -> {
+				properties.put(AvailableSettings.CRITERIA_VALUE_HANDLING_MODE, "inline");
+				properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+					List<String> captured = CAPTURED_SQL.get();
+					if (captured != null) {
+						captured.add(sql);
+					}
+					return sql;
+				});
+			};
+		}
+	}
+
+	/**
+	 * 搜尋案例：名稱、游標前進的筆數、搜尋條件、以 SQL 表示的預期排序、每個查詢應使用的索引，以及索引是否直接提供排序
+	 * 作者前綴只對應少數書本時，以 idx_book_author_pattern 取出符合前綴的書本後再排序，比沿著排序索引過濾更便宜
+	 */
+	static Stream<Arguments> searchCases() {
+		return Stream.of(
+			Arguments.of("價格範圍，依價格遞增", 3000,
+				criteria(null, null, null, new BigDecimal("10"), new BigDecimal("500"), SortField.PRICE, Direction.ASC),
+				"SELECT id FROM book WHERE price BETWEEN 10 AND 500 ORDER BY price, id",
+				"idx_book_price_id", true),
+			Arguments.of("依價格遞增，跨過非空值進入空值區段", 17120,
+				criteria(null, null, null, null, null, SortField.PRICE, Direction.ASC),
+				"SELECT id FROM book ORDER BY price, id",
+				"idx_book_price_id", true),
+			Arguments.of("出版年份下限，依出版年份遞減", 5000,
+				criteria(null, 1950, null, null, null, SortField.PUBLISH_YEAR, Direction.DESC),
+				"SELECT id FROM book WHERE publish_year >= 1950 ORDER BY publish_year DESC, id DESC",
+				"idx_book_publish_year_id", true),
+			Arguments.of("依出版年份遞減，跨過空值進入非空值區段", 1990,
+				criteria(null, null, null, null, null, SortField.PUBLISH_YEAR, Direction.DESC),
+				"SELECT id FROM book ORDER BY publish_year DESC, id DESC",
+				"idx_book_publish_year_id", true),
+			Arguments.of("依作者遞增", 5000,
+				criteria(null, null, null, null, null, SortField.AUTHOR, Direction.ASC),
+				"SELECT id FROM book ORDER BY author, id",
+				"idx_book_author_id", true),
+			Arguments.of("依 ID 遞減", 5000,
+				criteria(null, null, null, null, null, SortField.ID, Direction.DESC),
+				"SELECT id FROM book ORDER BY id DESC",
+				"book_pkey", true),
+			Arguments.of("作者前綴，依 ID 遞增", 20,
+				criteria("Author 499", null, null, null, null, SortField.ID, Direction.ASC),
+				"SELECT id FROM book WHERE author LIKE 'Author 499%' ORDER BY id",
+				"idx_book_author_pattern", false),
+			Arguments.of("作者前綴，依作者遞增", 20,
+				criteria("Author 499", null, null, null, null, SortField.AUTHOR, Direction.ASC),
+				"SELECT id FROM book WHERE author LIKE 'Author 499%' ORDER BY author, id",
+				"idx_book_author_pattern", false),
+			// 作者 490 到 499 的書本出版年份都在 2015 到 2024 之間 (g % 500 與 g % 125 同餘)
+			Arguments.of("作者前綴加上出版年份範圍，依 ID 遞增", 100,
+				criteria("Author 49", 2015, 2024, null, null, SortField.ID, Direction.ASC),
+				"SELECT id FROM book WHERE author LIKE 'Author 49%' AND publish_year BETWEEN 2015 AND 2024 ORDER BY id",
+				"idx_book_author_pattern", false),
+			// 出版年份下限幾乎不過濾任何書本，沿著價格索引掃描即可同時滿足範圍與排序
+			Arguments.of("出版年份範圍加上價格範圍，依價格遞增", 1000,
+				criteria(null, 1910, null, new BigDecimal("100"), new BigDecimal("300"), SortField.PRICE, Direction.ASC),
+				"SELECT id FROM book WHERE publish_year >= 1910 AND price BETWEEN 100 AND 300 ORDER BY price, id",
+				"idx_book_price_id", true)
+		);
+	}
+
+	@ParameterizedTest(name = "{0}")
+	@MethodSource("searchCases")
+	@DisplayName("測試深層游標分頁實際執行的 SQL 都以預期的索引範圍掃描取得資料，且結果與資料庫排序一致")
+	@Tag("integration")
+	@Tag("search")
+	void testSearchUsesIndex(String name, int skip, BookSearchCriteria first, String expectedOrderSql,
+		String expectedIndex, boolean indexOrdered) {
+		// 以較大的頁面前進到深層的游標位置，游標只需要與排序方式一致，每頁筆數可以不同
+		String cursor = null;
+		for (int skipped = 0; skipped < skip;) {
+			int limit = Math.min(BookService.MAX_PAGE_SIZE, skip - skipped);
+			BookSearchPage page = bookService.searchBooks(withPage(first, limit, cursor));
+			assertThat(page.nextCursor()).isNotNull();
+			cursor = page.nextCursor();
+			skipped += limit;
+		}
+
+		BookSearchCriteria deep = withPage(first, 50, cursor);
+		List<String> statements = captureSearchSql(() -> {
+			List<Integer> ids = bookService.searchBooks(deep).books().stream().map(Book::getId).toList();
+			List<Integer> expected = jdbcTemplate.queryForList(
+				expectedOrderSql + " OFFSET " + skip + " LIMIT 50", Integer.class);
+			assertThat(ids).isNotEmpty().containsExactlyElementsOf(expected);
+		});
+
+		assertThat(statements).isNotEmpty();
+		for (String sql : statements) {
+			if (first.authorPrefix() != null) {
+				// 前綴中的萬用字元已跳脫，必須帶著 ESCAPE 子句才能使用 varchar_pattern_ops 索引的範圍條件
+				assertThat(sql).containsIgnoringCase("like").containsIgnoringCase("escape");
+			}
+			// 每頁筆數仍以參數綁定，以本頁查詢的筆數上限代入，補齊下一個區段時實際的筆數只會更少
+			List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + sql.replace("?", "51"), String.class);
+			String text = String.join("\n", plan);
+			// 索引掃描可能是一般或 bitmap 形式，兩者的節點名稱都以 "Index Scan ... on 索引名稱" 表示
+			assertThat(text).as("SQL:\n%s\n執行計畫:\n%s", sql, text)
+				.containsPattern("Index (Only )?Scan( Backward)? (using|on) " + expectedIndex + "\\b")
+				.contains("Index Cond")
+				.doesNotContain("Seq Scan");
+			if (indexOrdered) {
+				assertThat(plan).as("SQL:\n%s\n執行計畫:\n%s", sql, text)
+					.noneMatch(line -> TOP_LEVEL_SORT.matcher(line).find());
+			}
+		}
+	}
+
+	private static BookSearchCriteria criteria(String authorPrefix, Integer publishYearFrom, Integer publishYearTo,
+		BigDecimal minPrice, BigDecimal maxPrice, SortField sort, Direction direction) {
+		return new BookSearchCriteria(authorPrefix, publishYearFrom, publishYearTo, minPrice, maxPrice, sort,
+			direction, 50, null);
+	}
+
+	private static BookSearchCriteria withPage(BookSearchCriteria criteria, int limit, String cursor) {
+		return new BookSearchCriteria(criteria.authorPrefix(), criteria.publishYearFrom(), criteria.publishYearTo(),
+			criteria.minPrice(), criteria.maxPrice(), criteria.sort(), criteria.direction(), limit, cursor);
+	}
+
+	/**
+	 * 執行搜尋並回傳期間查詢 book 資料表的 SQL
+	 */
+	private static List<String> captureSearchSql(Runnable search) {
+		List<String> captured = new ArrayList<>();
+		CAPTURED_SQL.set(captured);
+		try {
+			search.run();
+		} finally {
+			CAPTURED_SQL.remove();
+		}
+		return captured.stream().filter(sql -> sql.contains(" from book ")).toList();
+	}
+
+	@Test
+	@DisplayName("測試依價格遞減排序並以游標分頁，結果與資料庫排序一致且包含空值")
+	@Tag("integration")
+	@Tag("search")
+	void testSearchKeysetPaging() {
+		List<Integer> expected = jdbcTemplate.queryForList(
+			"SELECT id FROM book WHERE publish_year BETWEEN 2000 AND 2001 ORDER BY price DESC, id DESC",
+			Integer.class
+		);
+
+		List<Integer> actual = new ArrayList<>();
+		String url = "/books/search?publishYearFrom=2000&publishYearTo=2001&sort=price&direction=desc&limit=37";
+		int pages = 0;
+		while (url != null) {
+			ResponseEntity<List<BookDto>> response = restTemplate.exchange(
+				url,
+				HttpMethod.GET,
+				null,
+				new ParameterizedTypeReference<List<BookDto>>() {}
+			);
+			assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+			response.getBody().forEach(book -> actual.add(book.getId()));
+			String link = response.getHeaders().getFirst(HttpHeaders.LINK);
+			url = link == null ? null : link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+			pages++;
+		}
+
+		assertThat(expected).isNotEmpty();
+		assertThat(actual).containsExactlyElementsOf(expected);
+		assertThat(pages).isEqualTo((expected.size() + 36) / 37);
+	}
+
+	@Test
+	@DisplayName("測試游標與排序方式不一致時應返回 400 錯誤")
+	@Tag("integration")
+	@Tag("error-handling")
+	void testSearchWithMismatchedCursor() {
+		ResponseEntity<List<BookDto>> firstPage = restTemplate.exchange(
+			"/books/search?sort=author&limit=10",
+			HttpMethod.GET,
+			null,
+			new ParameterizedTypeReference<List<BookDto>>() {}
+		);
+		String link = firstPage.getHeaders().getFirst(HttpHeaders.LINK);
+		String cursor = link.substring(link.indexOf("cursor=") + "cursor=".length(), link.indexOf('>'));
+
+		ResponseEntity<String> response = restTemplate.getForEntity(
+			"/books/search?sort=price&limit=10&cursor=" + cursor,
+			String.class
+		);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	@DisplayName("測試全文檢索依相關程度排序，並容許拼字錯誤")
+	@Tag("integration")
+	@Tag("search")
+	void testFullTextSearch() {
+		ResponseEntity<List<BookDto>> exact = restTemplate.exchange(
+			"/books/search/text?q=Book 1234",
+			HttpMethod.GET,
+			null,
+			new ParameterizedTypeReference<List<BookDto>>() {}
+		);
+		assertThat(exact.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(exact.getBody()).isNotEmpty();
+		assertThat(exact.getBody().get(0).getTitle()).isEqualTo("Book 1234");
+
+		// 拼字錯誤時由三元組模糊比對找到
+		ResponseEntity<List<BookDto>> typo = restTemplate.exchange(
+			"/books/search/text?q=Bok 1234&size=5",
+			HttpMethod.GET,
+			null,
+			new ParameterizedTypeReference<List<BookDto>>() {}
+		);
+		assertThat(typo.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(typo.getBody()).extracting(BookDto::getTitle).contains("Book 1234");
+	}
+}
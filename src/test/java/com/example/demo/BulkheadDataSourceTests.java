@@ -0,0 +1,166 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.infrastructure.jdbc.BulkheadDataSource;
+import com.example.demo.infrastructure.jdbc.BulkheadFullException;
+import com.example.demo.interfaces.rest.BulkheadExceptionHandler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 資料庫連線 bulkhead 測試
+ * 以 mock 的連線池驗證許可的借出與歸還，以及拒絕時的 503 回應，不需要啟動容器
+ */
+@DisplayName("資料庫連線 bulkhead 測試")
+@Tag("unit")
+@Tag("bulkhead")
+class BulkheadDataSourceTests {
+
+	private static final Duration MAX_WAIT = Duration.ofMillis(50);
+
+	private static final Duration RETRY_AFTER = Duration.ofSeconds(2);
+
+	private DataSource pool;
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private BulkheadDataSource bulkhead;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		pool = mock(DataSource.class);
+		when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+		meterRegistry = new SimpleMeterRegistry();
+		bulkhead = new BulkheadDataSource(pool, 1, MAX_WAIT, RETRY_AFTER, meterRegistry);
+	}
+
+	@Test
+	@DisplayName("許可用完時等待逾時拋出 BulkheadFullException，連線 close() 後歸還許可")
+	void testPermitReleasedOnClose() throws SQLException {
+		Connection connection = bulkhead.getConnection();
+		assertThat(availablePermits()).isZero();
+
+		assertThatThrownBy(bulkhead::getConnection).isInstanceOf(BulkheadFullException.class);
+		assertThat(meterRegistry.get("db.bulkhead.rejected").counter().count()).isEqualTo(1);
+
+		connection.close();
+		assertThat(availablePermits()).isEqualTo(1);
+		bulkhead.getConnection().close();
+		assertThat(availablePermits()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("連線池取得連線失敗時立即歸還許可")
+	void testPermitReleasedWhenDelegateThrows() throws SQLException {
+		SQLException failure = new SQLException("連線池無法取得連線");
+		when(pool.getConnection()).thenThrow(failure).thenAnswer(invocation -> mock(Connection.class));
+
+		assertThatThrownBy(bulkhead::getConnection).isSameAs(failure);
+		assertThat(availablePermits()).isEqualTo(1);
+
+		Connection connection = bulkhead.getConnection();
+		assertThat(availablePermits()).isZero();
+		connection.close();
+	}
+
+	@Test
+	@DisplayName("重複 close() 只歸還一次許可，其他方法直接委派給原本的連線")
+	void testCloseIsIdempotent() throws SQLException {
+		Connection delegate = mock(Connection.class);
+		when(pool.getConnection()).thenReturn(delegate).thenAnswer(invocation -> mock(Connection.class));
+
+		Connection connection = bulkhead.getConnection();
+		connection.setAutoCommit(false);
+		verify(delegate).setAutoCommit(false);
+		connection.close();
+		connection.close();
+		verify(delegate, times(2)).close();
+		assertThat(availablePermits()).isEqualTo(1);
+
+		// 重複歸還會讓許可超過上限：借出一個連線後應該就沒有可用的許可
+		Connection first = bulkhead.getConnection();
+		assertThatThrownBy(bulkhead::getConnection).isInstanceOf(BulkheadFullException.class);
+		first.close();
+	}
+
+	@Test
+	@DisplayName("包裝了 BulkheadFullException 的連線失敗回應 503 與 Retry-After，其他資料存取錯誤不處理")
+	void testBulkheadFullMapsToServiceUnavailable() {
+		BulkheadExceptionHandler handler = new BulkheadExceptionHandler();
+		BulkheadFullException full = new BulkheadFullException(1, MAX_WAIT, RETRY_AFTER);
+
+		for (NestedRuntimeException ex : new NestedRuntimeException[] {
+				new CannotCreateTransactionException("無法開始交易", full),
+				new DataAccessResourceFailureException("無法取得連線", full),
+				new TransientDataAccessResourceException("無法取得連線", full) }) {
+			ResponseEntity<ProblemDetail> response = handler.handleDataAccessFailure(ex);
+			assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+			assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+		}
+
+		DataAccessResourceFailureException other = new DataAccessResourceFailureException("資料庫無法連線",
+			new SQLException("connection refused"));
+		assertThatThrownBy(() -> handler.handleDataAccessFailure(other)).isSameAs(other);
+	}
+
+	@Test
+	@DisplayName("經過 MVC 的請求在 bulkhead 已滿時回應 503 與 Retry-After，與 bulkhead 無關的錯誤不會變成 503")
+	void testBulkheadFullResponse() throws Exception {
+		MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new FailingController())
+			.setControllerAdvice(new BulkheadExceptionHandler())
+			.build();
+
+		mockMvc.perform(get("/bulkhead-full"))
+			.andExpect(status().isServiceUnavailable())
+			.andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+		assertThatThrownBy(() -> mockMvc.perform(get("/constraint-violation")))
+			.hasRootCauseInstanceOf(SQLException.class);
+	}
+
+	@RestController
+	static class FailingController {
+
+		@GetMapping("/bulkhead-full")
+		String bulkheadFull() {
+			throw new CannotCreateTransactionException("無法開始交易",
+				new BulkheadFullException(1, MAX_WAIT, RETRY_AFTER));
+		}
+
+		@GetMapping("/constraint-violation")
+		String constraintViolation() {
+			throw new DataIntegrityViolationException("違反唯一約束", new SQLException("duplicate key"));
+		}
+	}
+
+	private double availablePermits() {
+		return meterRegistry.get("db.bulkhead.available").gauge().value();
+	}
+}
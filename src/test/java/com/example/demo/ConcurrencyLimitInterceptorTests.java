@@ -0,0 +1,79 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 端點並發限制測試
+ * booksGet 的上限設為 0，每個請求都會被拒絕；booksStreamGet 的上限固定為 1，
+ * 串流結束後若沒有歸還許可，下一個請求就會被拒絕
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+		"app.concurrency-limit.retry-after=3s",
+		"app.concurrency-limit.endpoints.booksGet.initial-limit=0",
+		"app.concurrency-limit.endpoints.booksGet.min-limit=0",
+		"app.concurrency-limit.endpoints.booksGet.max-limit=0",
+		"app.concurrency-limit.endpoints.booksStreamGet.initial-limit=1",
+		"app.concurrency-limit.endpoints.booksStreamGet.min-limit=1",
+		"app.concurrency-limit.endpoints.booksStreamGet.max-limit=1" })
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@DisplayName("端點並發限制測試")
+@Tag("integration")
+@Tag("concurrency")
+class ConcurrencyLimitInterceptorTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	@DisplayName("超過並發上限時回應 503 與 Retry-After，並計入拒絕次數")
+	void testRejectionReturnsServiceUnavailable() {
+		ResponseEntity<String> response = restTemplate.getForEntity("/books", String.class);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+		assertThat(meterRegistry.get("http.server.concurrency.dropped")
+			.tag("endpoint", "booksGet")
+			.functionCounter()
+			.count()).isGreaterThanOrEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("StreamingResponseBody 端點在非同步派送結束後歸還許可")
+	void testStreamingEndpointReleasesPermit() {
+		for (int i = 0; i < 5; i++) {
+			ResponseEntity<String> response = restTemplate.getForEntity("/books/stream", String.class);
+			assertThat(response.getStatusCode()).as("第 %d 個請求", i + 1).isEqualTo(HttpStatus.OK);
+
+			// 用戶端收到完整回應時，非同步派送的 afterCompletion 可能尚未執行
+			await().atMost(Duration.ofSeconds(5)).until(() -> meterRegistry.get("http.server.concurrency.inflight")
+				.tag("endpoint", "booksStreamGet")
+				.gauge()
+				.value() == 0);
+		}
+		assertThat(meterRegistry.get("http.server.concurrency.dropped")
+			.tag("endpoint", "booksStreamGet")
+			.functionCounter()
+			.count()).isZero();
+	}
+}
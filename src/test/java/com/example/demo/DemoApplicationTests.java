@@ -1,9 +1,16 @@
 package com.example.demo;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,15 +21,37 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.context.annotation.Import;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 
+import com.example.demo.applications.BookCatalogVersion;
 import com.example.demo.infrastructure.repositories.BookRepository;
+import com.example.demo.interfaces.dto.BookBatchGetResult;
+import com.example.demo.interfaces.dto.BookBatchItemResult;
+import com.example.demo.interfaces.dto.BookBatchItemResult.StatusEnum;
+import com.example.demo.interfaces.dto.BookBatchResult;
+import com.example.demo.interfaces.dto.BookChangeDto;
+import com.example.demo.interfaces.dto.BookChangeResult;
 import com.example.demo.interfaces.dto.BookDto;
+import com.example.demo.interfaces.dto.BookImportJob;
 import com.example.demo.interfaces.dto.BookRequest;
+import com.example.demo.interfaces.dto.BookStatsGroup;
+import com.example.demo.interfaces.dto.BookStatsResult;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.UnknownFieldSet;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @Import(TestcontainersConfiguration.class)
@@ -36,6 +65,18 @@ class DemoApplicationTests {
 	@Autowired
 	private BookRepository bookRepository;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private StringRedisTemplate stringRedisTemplate;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private BookCatalogVersion bookCatalogVersion;
+
 	private static final String BASE_URL = "/books";
 
 	@BeforeEach
@@ -177,4 +218,515 @@ class DemoApplicationTests {
 		);
 		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
 	}
+
+	@Test
+	@DisplayName("測試以 keyset 游標分頁獲取書本，並透過 Link 標頭取得下一頁")
+	@Tag("integration")
+	@Tag("pagination")
+	void testKeysetPagination() {
+		for (int i = 0; i < 3; i++) {
+			BookRequest bookRequest = new BookRequest()
+				.title("分頁測試書本 " + i)
+				.author("作者")
+				.isbn("978986347943" + i)
+				.publishYear(2024)
+				.price(new BigDecimal("100.00"));
+			restTemplate.postForEntity(BASE_URL, bookRequest, BookDto.class);
+		}
+
+		// 第一頁：2 筆，並帶有下一頁連結
+		ResponseEntity<List<BookDto>> firstPage = restTemplate.exchange(
+			BASE_URL + "?limit=2",
+			HttpMethod.GET,
+			null,
+			new ParameterizedTypeReference<List<BookDto>>() {}
+		);
+		assertThat(firstPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(firstPage.getBody()).hasSize(2);
+		String link = firstPage.getHeaders().getFirst(HttpHeaders.LINK);
+		assertThat(link).isNotNull().endsWith("; rel=\"next\"");
+
+		// 第二頁：剩下 1 筆，沒有下一頁
+		String nextUrl = link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+		ResponseEntity<List<BookDto>> secondPage = restTemplate.exchange(
+			nextUrl,
+			HttpMethod.GET,
+			null,
+			new ParameterizedTypeReference<List<BookDto>>() {}
+		);
+		assertThat(secondPage.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(secondPage.getBody()).hasSize(1);
+		assertThat(secondPage.getBody().get(0).getId()).isGreaterThan(firstPage.getBody().get(1).getId());
+		assertThat(secondPage.getHeaders().containsKey(HttpHeaders.LINK)).isFalse();
+	}
+
+	@Test
+	@DisplayName("測試列表與串流直接由資料列寫出的 JSON 與單筆查詢 (BookDto 反射序列化) 的格式相同")
+	@Tag("integration")
+	@Tag("serialization")
+	void testListJsonMatchesBookDto() throws Exception {
+		BookRequest withNulls = new BookRequest()
+			.title("序列化測試 \"引號\" 與 \\ 反斜線")
+			.author("作者")
+			.isbn("9789863479510");
+		BookRequest complete = new BookRequest()
+			.title("序列化測試")
+			.author("作者")
+			.isbn("9789863479511")
+			.publishYear(2024)
+			.price(new BigDecimal("123.40"));
+		List<Integer> ids = List.of(restTemplate.postForEntity(BASE_URL, withNulls, BookDto.class).getBody().getId(),
+			restTemplate.postForEntity(BASE_URL, complete, BookDto.class).getBody().getId());
+
+		JsonNode list = objectMapper.readTree(restTemplate.getForEntity(BASE_URL, String.class).getBody());
+		String[] lines = restTemplate.getForEntity(BASE_URL + "/stream", String.class).getBody().split("\n");
+		assertThat(list).hasSize(2);
+		assertThat(lines).hasSize(2);
+		for (int i = 0; i < ids.size(); i++) {
+			JsonNode expected = objectMapper.readTree(
+				restTemplate.getForEntity(BASE_URL + "/" + ids.get(i), String.class).getBody());
+			assertThat(list.get(i)).isEqualTo(expected);
+			assertThat(objectMapper.readTree(lines[i])).isEqualTo(expected);
+		}
+	}
+
+	@Test
+	@DisplayName("測試依 Accept 回應 CBOR、Smile 與 Protobuf，內容與 JSON 回應相同")
+	@Tag("integration")
+	@Tag("serialization")
+	void testBinaryFormats() throws Exception {
+		BookRequest request = new BookRequest()
+			.title("二進位格式測試")
+			.author("作者")
+			.isbn("9789863479520")
+			.publishYear(2024)
+			.price(new BigDecimal("450.50"));
+		Integer id = restTemplate.postForEntity(BASE_URL, request, BookDto.class).getBody().getId();
+		BookDto expected = objectMapper.readValue(
+			restTemplate.getForEntity(BASE_URL + "/" + id, String.class).getBody(), BookDto.class);
+
+		ResponseEntity<byte[]> cbor = getWithAccept(BASE_URL + "/" + id, MediaType.APPLICATION_CBOR);
+		assertThat(cbor.getHeaders().getVary()).contains(HttpHeaders.ACCEPT);
+		assertThat(Jackson2ObjectMapperBuilder.cbor().build().readValue(cbor.getBody(), BookDto.class))
+			.isEqualTo(expected);
+
+		ResponseEntity<byte[]> smile = getWithAccept(BASE_URL, MediaType.parseMediaType("application/x-jackson-smile"));
+		assertThat(Jackson2ObjectMapperBuilder.smile().build().readValue(smile.getBody(),
+			new TypeReference<List<BookDto>>() {})).containsExactly(expected);
+
+		// Protobuf 不依賴產生的類別，以 UnknownFieldSet 依欄位編號解析 BookList
+		ResponseEntity<byte[]> protobuf = getWithAccept(BASE_URL, MediaType.parseMediaType("application/x-protobuf"));
+		assertThat(protobuf.getHeaders().getFirst("X-Protobuf-Message")).isEqualTo("demo.books.v1.BookList");
+		List<ByteString> books = UnknownFieldSet.parseFrom(protobuf.getBody()).getField(1).getLengthDelimitedList();
+		assertThat(books).hasSize(1);
+		UnknownFieldSet book = UnknownFieldSet.parseFrom(books.get(0));
+		assertThat(book.getField(1).getVarintList()).containsExactly(id.longValue());
+		assertThat(book.getField(2).getLengthDelimitedList().get(0).toStringUtf8()).isEqualTo("二進位格式測試");
+		assertThat(book.getField(5).getVarintList()).containsExactly(2024L);
+		assertThat(book.getField(6).getLengthDelimitedList().get(0).toStringUtf8()).isEqualTo("450.50");
+		UnknownFieldSet createdAt = UnknownFieldSet.parseFrom(book.getField(7).getLengthDelimitedList().get(0));
+		assertThat(createdAt.getField(1).getVarintList()).containsExactly(expected.getCreatedAt().toEpochSecond());
+	}
+
+	@Test
+	@DisplayName("測試批次寫入書本：新增、重複 ISBN、既有 ISBN 衝突與 upsert")
+	@Tag("integration")
+	@Tag("batch")
+	void testBatchCreateBooks() {
+		BookRequest existing = new BookRequest()
+			.title("既有書本")
+			.author("作者")
+			.isbn("9789863479400")
+			.publishYear(2020)
+			.price(new BigDecimal("100.00"));
+		restTemplate.postForEntity(BASE_URL, existing, BookDto.class);
+
+		List<BookRequest> requests = List.of(
+			new BookRequest().title("批次書本 1").author("作者").isbn("9789863479401").price(new BigDecimal("200.00")),
+			new BookRequest().title("批次書本 1 重複").author("作者").isbn("9789863479401"),
+			new BookRequest().title("既有書本 新版").author("作者").isbn("9789863479400").publishYear(2024)
+		);
+
+		// 未指定 upsert：既有 ISBN 回報 CONFLICT
+		ResponseEntity<BookBatchResult> response = restTemplate.postForEntity(
+			BASE_URL + ":batch",
+			requests,
+			BookBatchResult.class
+		);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getBody()).isNotNull();
+		assertThat(response.getBody().getCreated()).isEqualTo(1);
+		assertThat(response.getBody().getUpdated()).isZero();
+		assertThat(response.getBody().getSkipped()).isEqualTo(2);
+		assertThat(response.getBody().getItems())
+			.extracting(BookBatchItemResult::getStatus)
+			.containsExactly(StatusEnum.CREATED, StatusEnum.DUPLICATE, StatusEnum.CONFLICT);
+		Integer createdId = response.getBody().getItems().get(0).getId();
+		assertThat(restTemplate.getForEntity(BASE_URL + "/" + createdId, BookDto.class).getStatusCode())
+			.isEqualTo(HttpStatus.OK);
+
+		// upsert=true：既有 ISBN 被更新
+		ResponseEntity<BookBatchResult> upsertResponse = restTemplate.postForEntity(
+			BASE_URL + ":batch?upsert=true",
+			List.of(requests.get(2)),
+			BookBatchResult.class
+		);
+		assertThat(upsertResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(upsertResponse.getBody().getUpdated()).isEqualTo(1);
+		Integer updatedId = upsertResponse.getBody().getItems().get(0).getId();
+		ResponseEntity<BookDto> updatedBook = restTemplate.getForEntity(BASE_URL + "/" + updatedId, BookDto.class);
+		assertThat(updatedBook.getBody().getTitle()).isEqualTo("既有書本 新版");
+		assertThat(updatedBook.getBody().getPublishYear()).isEqualTo(2024);
+	}
+
+	@Test
+	@DisplayName("測試以 CSV 大量匯入書本：新增、更新既有 ISBN 並可查詢匯入進度，異動事件經由 outbox 發布")
+	@Tag("integration")
+	@Tag("import")
+	@Tag("outbox")
+	void testCsvImport() throws InterruptedException {
+		BookRequest existing = new BookRequest()
+			.title("既有書本")
+			.author("作者")
+			.isbn("9789863479500")
+			.price(new BigDecimal("100.00"));
+		restTemplate.postForEntity(BASE_URL, existing, BookDto.class);
+
+		String csv = """
+			title,author,isbn,publish_year,price
+			匯入書本 1,作者 A,9789863479501,2023,150.00
+			"匯入書本, 2",作者 B,9789863479502,,
+			既有書本 新版,作者,9789863479500,2024,120.00
+			""";
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType("text/csv"));
+		ResponseEntity<BookImportJob> accepted = restTemplate.postForEntity(
+			BASE_URL + "/imports",
+			new HttpEntity<>(csv, headers),
+			BookImportJob.class
+		);
+		assertThat(accepted.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+		assertThat(accepted.getHeaders().getLocation()).isNotNull();
+
+		// 等待背景匯入完成
+		BookImportJob job = accepted.getBody();
+		for (int i = 0; i < 50 && job.getStatus() != BookImportJob.StatusEnum.COMPLETED
+				&& job.getStatus() != BookImportJob.StatusEnum.FAILED; i++) {
+			Thread.sleep(200);
+			job = restTemplate.getForObject(accepted.getHeaders().getLocation(), BookImportJob.class);
+		}
+		assertThat(job.getStatus()).isEqualTo(BookImportJob.StatusEnum.COMPLETED);
+		assertThat(job.getRowsStaged()).isEqualTo(3L);
+		assertThat(job.getRowsMerged()).isEqualTo(3L);
+
+		assertThat(bookRepository.count()).isEqualTo(3);
+		assertThat(bookRepository.findByIsbnIn(List.of("9789863479500")))
+			.singleElement()
+			.satisfies(book -> assertThat(book.getTitle()).isEqualTo("既有書本 新版"));
+		assertThat(bookRepository.findByIsbnIn(List.of("9789863479502")))
+			.singleElement()
+			.satisfies(book -> assertThat(book.getTitle()).isEqualTo("匯入書本, 2"));
+
+		// 匯入與一般寫入一樣經由 outbox 發布新增與更新事件
+		await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+			List<MapRecord<String, Object, Object>> events = stringRedisTemplate.opsForStream()
+				.range("demo:books:changes", Range.unbounded());
+			assertThat(events).anyMatch(event -> isEventOf(event, "CREATED", "9789863479501"))
+				.anyMatch(event -> isEventOf(event, "CREATED", "9789863479502"))
+				.anyMatch(event -> isEventOf(event, "UPDATED", "9789863479500"));
+		});
+	}
+
+	@Test
+	@DisplayName("測試以 COPY 匯出書本為 NDJSON 與 gzip 壓縮的 CSV")
+	@Tag("integration")
+	@Tag("export")
+	void testExportBooks() throws IOException {
+		for (int i = 0; i < 2; i++) {
+			BookRequest bookRequest = new BookRequest()
+				.title("匯出測試書本 \"" + i + "\"")
+				.author("作者")
+				.isbn("978986347960" + i)
+				.price(new BigDecimal("100.00"));
+			restTemplate.postForEntity(BASE_URL, bookRequest, BookDto.class);
+		}
+
+		ResponseEntity<String> ndjson = restTemplate.getForEntity(BASE_URL + "/export?format=ndjson", String.class);
+		assertThat(ndjson.getStatusCode()).isEqualTo(HttpStatus.OK);
+		List<BookDto> exported = ndjson.getBody().lines()
+			.map(line -> {
+				try {
+					return objectMapper.readValue(line, BookDto.class);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			})
+			.toList();
+		assertThat(exported).extracting(BookDto::getTitle)
+			.containsExactlyInAnyOrder("匯出測試書本 \"0\"", "匯出測試書本 \"1\"");
+
+		ResponseEntity<byte[]> gzipCsv = restTemplate.getForEntity(BASE_URL + "/export?format=csv&gzip=true", byte[].class);
+		assertThat(gzipCsv.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(gzipCsv.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(gzipCsv.getBody()))) {
+			String csv = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+			assertThat(csv).startsWith("id,title,author,isbn");
+			assertThat(csv.lines()).hasSize(3);
+		}
+	}
+
+	@Test
+	@DisplayName("測試刪除書本：不存在時回應 404，刪除事件經由 outbox 發布到 Redis stream")
+	@Tag("integration")
+	@Tag("outbox")
+	void testDeleteBookPublishesChangeEvent() throws InterruptedException {
+		ResponseEntity<Void> notFound = restTemplate.exchange(BASE_URL + "/999999", HttpMethod.DELETE, null, Void.class);
+		assertThat(notFound.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+		BookRequest bookRequest = new BookRequest()
+			.title("刪除事件測試")
+			.author("作者")
+			.isbn("9789863479700")
+			.price(new BigDecimal("100.00"));
+		Integer bookId = restTemplate.postForEntity(BASE_URL, bookRequest, BookDto.class).getBody().getId();
+		ResponseEntity<Void> deleteResponse = restTemplate.exchange(BASE_URL + "/" + bookId, HttpMethod.DELETE, null,
+			Void.class);
+		assertThat(deleteResponse.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+		assertThat(bookRepository.existsById(bookId)).isFalse();
+
+		// 等待 relay 發送事件
+		List<MapRecord<String, Object, Object>> events = List.of();
+		for (int i = 0; i < 50 && events.stream().noneMatch(event -> isDeleteOf(event, bookId)); i++) {
+			Thread.sleep(100);
+			events = stringRedisTemplate.opsForStream().range("demo:books:changes", Range.unbounded());
+		}
+		assertThat(events).anyMatch(event -> isDeleteOf(event, bookId));
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM book_outbox", Long.class)).isZero();
+	}
+
+	@Test
+	@DisplayName("測試目錄版本：交易提交後的遞增遺失時，仍由 outbox relay 遞增")
+	@Tag("integration")
+	@Tag("outbox")
+	void testOutboxRelayIncrementsCatalogVersion() {
+		long before = bookCatalogVersion.current().orElseThrow();
+
+		// 模擬已提交、但提交後遞增 Redis 失敗的寫入：只留下 outbox 事件
+		jdbcTemplate.update("INSERT INTO book_outbox (event_type, book_id, isbn) VALUES ('UPDATED', 999998, '9789863479701')");
+
+		await().atMost(Duration.ofSeconds(5))
+			.until(() -> bookCatalogVersion.current().orElseThrow() > before);
+		assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM book_outbox", Long.class)).isZero();
+	}
+
+	@Test
+	@DisplayName("測試批次取得書本：依請求順序回傳，重複的 ID 只回傳一次，不存在的 ID 列於 missingIds")
+	@Tag("integration")
+	@Tag("batch")
+	void testBatchGetBooks() {
+		Integer firstId = restTemplate.postForEntity(BASE_URL,
+				new BookRequest().title("批次取得 1").author("作者").isbn("9789863479950"), BookDto.class)
+			.getBody()
+			.getId();
+		Integer secondId = restTemplate.postForEntity(BASE_URL,
+				new BookRequest().title("批次取得 2").author("作者").isbn("9789863479951"), BookDto.class)
+			.getBody()
+			.getId();
+		List<Integer> ids = List.of(secondId, 999999, firstId, secondId);
+
+		// 第一次從資料庫載入，第二次從快取取得，結果相同
+		for (int round = 0; round < 2; round++) {
+			ResponseEntity<BookBatchGetResult> response = restTemplate.postForEntity(BASE_URL + ":batchGet", ids,
+					BookBatchGetResult.class);
+			assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+			assertThat(response.getBody().getBooks()).extracting(BookDto::getId).containsExactly(secondId, firstId);
+			assertThat(response.getBody().getBooks()).extracting(BookDto::getTitle)
+				.containsExactly("批次取得 2", "批次取得 1");
+			assertThat(response.getBody().getMissingIds()).containsExactly(999999);
+		}
+	}
+
+	@Test
+	@DisplayName("測試增量同步：只回傳游標之後異動的書本，多次修改只出現一次，刪除的書本以 tombstone 回傳")
+	@Tag("integration")
+	@Tag("change-feed")
+	void testChangeFeed() {
+		// 完整同步一次，取得目前的游標
+		String cursor = null;
+		BookChangeResult page;
+		do {
+			page = restTemplate.getForEntity(BASE_URL + "/changes?limit=1000" + (cursor == null ? "" : "&since=" + cursor),
+					BookChangeResult.class)
+				.getBody();
+			cursor = page.getNextCursor();
+		} while (page.getHasMore());
+
+		Integer keptId = restTemplate.postForEntity(BASE_URL,
+				new BookRequest().title("增量同步").author("作者").isbn("9789863479960"), BookDto.class)
+			.getBody()
+			.getId();
+		restTemplate.put(BASE_URL + "/" + keptId,
+				new BookRequest().title("增量同步 (修訂)").author("作者").isbn("9789863479960"));
+		Integer deletedId = restTemplate.postForEntity(BASE_URL,
+				new BookRequest().title("增量同步刪除").author("作者").isbn("9789863479961"), BookDto.class)
+			.getBody()
+			.getId();
+		restTemplate.delete(BASE_URL + "/" + deletedId);
+
+		String since = cursor;
+		await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+			BookChangeResult changes = restTemplate
+				.getForEntity(BASE_URL + "/changes?since=" + since, BookChangeResult.class)
+				.getBody();
+			assertThat(changes.getHasMore()).isFalse();
+			assertThat(changes.getChanges()).extracting(BookChangeDto::getId).containsExactly(keptId, deletedId);
+			BookChangeDto kept = changes.getChanges().get(0);
+			assertThat(kept.getDeleted()).isFalse();
+			assertThat(kept.getBook().getTitle()).isEqualTo("增量同步 (修訂)");
+			BookChangeDto deleted = changes.getChanges().get(1);
+			assertThat(deleted.getDeleted()).isTrue();
+			assertThat(deleted.getBook()).isNull();
+
+			// 以最後的游標再次同步不會重複取得
+			BookChangeResult next = restTemplate
+				.getForEntity(BASE_URL + "/changes?since=" + changes.getNextCursor(), BookChangeResult.class)
+				.getBody();
+			assertThat(next.getChanges()).isEmpty();
+			assertThat(next.getNextCursor()).isEqualTo(changes.getNextCursor());
+		});
+
+		assertThat(restTemplate.getForEntity(BASE_URL + "/changes?since=not-a-cursor", String.class).getStatusCode())
+			.isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	@DisplayName("測試書本統計：寫入後依作者與出版年份的統計隨之更新，目錄未變動時回應 304")
+	@Tag("integration")
+	@Tag("stats")
+	void testBookStats() {
+		Integer cheapId = restTemplate.postForEntity(BASE_URL, new BookRequest().title("統計 1").author("統計作者")
+			.isbn("9789863479970").publishYear(2001).price(new BigDecimal("100.00")), BookDto.class).getBody().getId();
+		Integer expensiveId = restTemplate.postForEntity(BASE_URL, new BookRequest().title("統計 2").author("統計作者")
+			.isbn("9789863479971").publishYear(2001).price(new BigDecimal("300.00")), BookDto.class).getBody().getId();
+		restTemplate.postForEntity(BASE_URL, new BookRequest().title("統計 3").author("其他作者")
+			.isbn("9789863479972"), BookDto.class);
+
+		ResponseEntity<BookStatsResult> response = restTemplate.getForEntity(BASE_URL + "/stats", BookStatsResult.class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		BookStatsResult stats = response.getBody();
+		assertThat(stats.getGroupBy()).isEqualTo("author");
+		assertThat(stats.getGroups()).extracting(BookStatsGroup::getKey).containsExactly("統計作者", "其他作者");
+		assertStats(stats.getGroups().get(0), 2, "100.00", "200.00", "300.00");
+		assertThat(stats.getGroups().get(1).getBookCount()).isEqualTo(1);
+		assertThat(stats.getGroups().get(1).getPricedCount()).isZero();
+		assertThat(stats.getGroups().get(1).getAvgPrice()).isNull();
+		assertStats(stats.getTotals(), 3, "100.00", "200.00", "300.00");
+		assertThat(getWithIfNoneMatch(BASE_URL + "/stats", response.getHeaders().getETag()).getStatusCode())
+			.isEqualTo(HttpStatus.NOT_MODIFIED);
+
+		// 移除最高價格後重新計算最大值
+		restTemplate.put(BASE_URL + "/" + expensiveId, new BookRequest().title("統計 2").author("統計作者")
+			.isbn("9789863479971").publishYear(2001).price(new BigDecimal("150.00")));
+		restTemplate.delete(BASE_URL + "/" + cheapId);
+
+		BookStatsResult byYear = restTemplate.getForEntity(BASE_URL + "/stats?groupBy=publishYear", BookStatsResult.class)
+			.getBody();
+		assertThat(byYear.getVersion()).isNotEqualTo(stats.getVersion());
+		assertThat(byYear.getGroups()).extracting(BookStatsGroup::getKey).containsExactly("2001", null);
+		assertStats(byYear.getGroups().get(0), 1, "150.00", "150.00", "150.00");
+		assertThat(byYear.getGroups().get(1).getBookCount()).isEqualTo(1);
+		assertStats(byYear.getTotals(), 2, "150.00", "150.00", "150.00");
+
+		assertThat(restTemplate.getForEntity(BASE_URL + "/stats?groupBy=isbn", String.class).getStatusCode())
+			.isEqualTo(HttpStatus.BAD_REQUEST);
+	}
+
+	@Test
+	@DisplayName("測試條件式請求：ETag 未變時回應 304，If-Match 不符時回應 412")
+	@Tag("integration")
+	@Tag("conditional")
+	void testConditionalRequests() {
+		BookRequest bookRequest = new BookRequest()
+			.title("條件式請求測試")
+			.author("作者")
+			.isbn("9789863479800")
+			.price(new BigDecimal("100.00"));
+		Integer bookId = restTemplate.postForEntity(BASE_URL, bookRequest, BookDto.class).getBody().getId();
+
+		ResponseEntity<BookDto> book = restTemplate.getForEntity(BASE_URL + "/" + bookId, BookDto.class);
+		String bookEtag = book.getHeaders().getETag();
+		assertThat(bookEtag).isNotNull().doesNotStartWith("W/");
+		assertThat(book.getHeaders().getLastModified()).isPositive();
+		assertThat(getWithIfNoneMatch(BASE_URL + "/" + bookId, bookEtag).getStatusCode())
+			.isEqualTo(HttpStatus.NOT_MODIFIED);
+
+		// 不同格式的內容不同，強 ETag 也不同：JSON 的 ETag 不能讓 CBOR 的請求回應 304
+		String cborEtag = getWithAccept(BASE_URL + "/" + bookId, MediaType.APPLICATION_CBOR).getHeaders().getETag();
+		assertThat(cborEtag).isNotNull().doesNotStartWith("W/").isNotEqualTo(bookEtag);
+		HttpHeaders cborHeaders = new HttpHeaders();
+		cborHeaders.setAccept(List.of(MediaType.APPLICATION_CBOR));
+		cborHeaders.setIfNoneMatch(bookEtag);
+		assertThat(restTemplate.exchange(BASE_URL + "/" + bookId, HttpMethod.GET, new HttpEntity<>(cborHeaders),
+			byte[].class).getStatusCode()).isEqualTo(HttpStatus.OK);
+		cborHeaders.setIfNoneMatch(cborEtag);
+		assertThat(restTemplate.exchange(BASE_URL + "/" + bookId, HttpMethod.GET, new HttpEntity<>(cborHeaders),
+			byte[].class).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+		ResponseEntity<String> list = restTemplate.getForEntity(BASE_URL, String.class);
+		String listEtag = list.getHeaders().getETag();
+		assertThat(listEtag).startsWith("W/");
+		assertThat(getWithIfNoneMatch(BASE_URL, listEtag).getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+		// If-Match 不符時不更新
+		HttpHeaders staleHeaders = new HttpHeaders();
+		staleHeaders.setIfMatch("\"42\"");
+		ResponseEntity<BookDto> conflict = restTemplate.exchange(BASE_URL + "/" + bookId, HttpMethod.PUT,
+			new HttpEntity<>(bookRequest.title("不應寫入"), staleHeaders), BookDto.class);
+		assertThat(conflict.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+		// 以任何格式取得的 ETag 都代表同一個版本，If-Match 不受格式影響
+		HttpHeaders headers = new HttpHeaders();
+		headers.setIfMatch(cborEtag);
+		ResponseEntity<BookDto> updated = restTemplate.exchange(BASE_URL + "/" + bookId, HttpMethod.PUT,
+			new HttpEntity<>(bookRequest.title("條件式請求測試 新版"), headers), BookDto.class);
+		assertThat(updated.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(updated.getHeaders().getETag()).isNotEqualTo(bookEtag);
+
+		// 書本與目錄都已變動，舊的 ETag 不再符合
+		assertThat(getWithIfNoneMatch(BASE_URL + "/" + bookId, bookEtag).getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(getWithIfNoneMatch(BASE_URL, listEtag).getStatusCode()).isEqualTo(HttpStatus.OK);
+	}
+
+	private static void assertStats(BookStatsGroup group, long bookCount, String minPrice, String avgPrice,
+			String maxPrice) {
+		assertThat(group.getBookCount()).isEqualTo(bookCount);
+		assertThat(group.getMinPrice()).isEqualByComparingTo(minPrice);
+		assertThat(group.getAvgPrice()).isEqualByComparingTo(avgPrice);
+		assertThat(group.getMaxPrice()).isEqualByComparingTo(maxPrice);
+	}
+
+	private ResponseEntity<String> getWithIfNoneMatch(String url, String etag) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setIfNoneMatch(etag);
+		return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+	}
+
+	private ResponseEntity<byte[]> getWithAccept(String url, MediaType accept) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setAccept(List.of(accept));
+		ResponseEntity<byte[]> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers),
+			byte[].class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getHeaders().getContentType().isCompatibleWith(accept)).isTrue();
+		return response;
+	}
+
+	private static boolean isEventOf(MapRecord<String, Object, Object> event, String type, String isbn) {
+		return type.equals(event.getValue().get("type")) && isbn.equals(event.getValue().get("isbn"));
+	}
+
+	private static boolean isDeleteOf(MapRecord<String, Object, Object> event, Integer bookId) {
+		return "DELETED".equals(event.getValue().get("type"))
+			&& String.valueOf(bookId).equals(event.getValue().get("bookId"));
+	}
 }
@@ -0,0 +1,99 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.infrastructure.observation.FastPathObservation;
+
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * 熱門路徑觀測測試
+ * 以與 ObservabilityConfig 相同的名稱與標籤建立 FastPathObservation，交替執行取樣與未取樣的路徑，
+ * 驗證兩條路徑寫入同一組 Timer，不會因為標籤不一致而各自產生一組時間序列
+ */
+@DisplayName("熱門路徑觀測測試")
+@Tag("unit")
+@Tag("observability")
+class FastPathObservationTests {
+
+	private static final String NAME = "book.details.view";
+
+	private static final KeyValues KEY_VALUES = KeyValues.of("operation", "get_by_id", "cache_enabled", "true",
+		"class", "com.example.demo.applications.BookService", "method", "getBookById");
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private final AtomicBoolean sampled = new AtomicBoolean();
+
+	private FastPathObservation observation;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		ObservationRegistry observationRegistry = ObservationRegistry.create();
+		observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+		observation = new FastPathObservation(NAME, "書本詳情查看", KEY_VALUES, observationRegistry, meterRegistry,
+			sampled::get, true);
+	}
+
+	@Test
+	@DisplayName("取樣與未取樣的請求，不論成功或失敗，每個 error 值都只有一個 Timer")
+	void testSampledAndUnsampledPathsShareTimers() {
+		for (boolean isSampled : List.of(true, false, true, false)) {
+			sampled.set(isSampled);
+			assertThat(observation.isSampled()).isEqualTo(isSampled);
+			assertThat(observation.observe(() -> "ok")).isEqualTo("ok");
+			assertThatThrownBy(() -> observation.observe(() -> {
+				throw new IllegalStateException("查詢失敗");
+			})).isInstanceOf(IllegalStateException.class);
+		}
+
+		List<Timer> timers = List.copyOf(meterRegistry.find(NAME).timers());
+		Map<String, List<Meter.Id>> idsByError = timers.stream()
+			.map(Timer::getId)
+			.collect(Collectors.groupingBy(id -> id.getTag("error")));
+		assertThat(idsByError).containsOnlyKeys("none", "IllegalStateException");
+		assertThat(idsByError.values()).allSatisfy(ids -> assertThat(ids).hasSize(1));
+
+		// 兩條路徑的 Timer 除了 error 之外有相同的標籤，且各自累計了兩條路徑的呼叫次數
+		assertThat(timers).allSatisfy(timer -> {
+			assertThat(timer.count()).isEqualTo(4);
+			assertThat(timer.getId().getTags()).hasSize((int) KEY_VALUES.stream().count() + 1);
+			KEY_VALUES.forEach(keyValue -> assertThat(timer.getId().getTag(keyValue.getKey()))
+				.isEqualTo(keyValue.getValue()));
+		});
+	}
+
+	@Test
+	@DisplayName("停用快速路徑時，不論是否取樣都建立完整的 Observation")
+	void testDisabledFastPathAlwaysObserves() {
+		ObservationRegistry observationRegistry = ObservationRegistry.create();
+		observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+		FastPathObservation disabled = new FastPathObservation(NAME, "書本詳情查看", KEY_VALUES, observationRegistry,
+			meterRegistry, sampled::get, false);
+		sampled.set(false);
+
+		assertThat(disabled.isSampled()).isTrue();
+		disabled.observe(() -> "ok");
+
+		assertThat(meterRegistry.find(NAME).tag("error", "none").timers()).singleElement()
+			.satisfies(timer -> assertThat(timer.count()).isEqualTo(1));
+		// 只有完整的 Observation 會產生執行中的 LongTaskTimer
+		assertThat(meterRegistry.find(NAME + ".active").longTaskTimer()).isNotNull();
+	}
+}
@@ -0,0 +1,124 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.infrastructure.concurrency.GradientConcurrencyLimiter;
+
+/**
+ * 自適應並發限制器測試
+ * 時間窗設為 0 且每個時間窗只需要一個樣本，每次 release 都會結束一個時間窗；smoothing 設為 1 讓每次調整直接套用新上限，
+ * 一批請求中只有第一個 release 看得到該批的最高並發，其餘 release 只更新長期延遲
+ */
+@DisplayName("自適應並發限制器測試")
+@Tag("unit")
+@Tag("concurrency")
+class GradientConcurrencyLimiterTests {
+
+	private static final long STABLE_RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+	@Test
+	@DisplayName("延遲穩定且並發達到上限時，上限每次成長約 √上限")
+	void testLimitGrowsBySquareRootWhenRttIsStable() {
+		GradientConcurrencyLimiter limiter = limiter(100, 1, 1000);
+
+		burst(limiter, 100, STABLE_RTT);
+		assertThat(limiter.getLimit()).isEqualTo(110);
+
+		burst(limiter, 110, STABLE_RTT);
+		assertThat(limiter.getLimit()).isEqualTo((int) (110 + Math.sqrt(110)));
+	}
+
+	@Test
+	@DisplayName("短期延遲上升時上限下降，梯度最低為 0.5")
+	void testLimitShrinksWhenShortRttRises() {
+		GradientConcurrencyLimiter limiter = limiter(100, 1, 1000);
+		burst(limiter, 100, STABLE_RTT);
+		assertThat(limiter.getLimit()).isEqualTo(110);
+
+		// 長期延遲 = 10 + (40 - 10) / 10 = 13ms，梯度 13 / 40 低於下限而取 0.5
+		burst(limiter, 110, STABLE_RTT * 4);
+		assertThat(limiter.getLimit()).isEqualTo((int) (110 * 0.5 + Math.sqrt(110)));
+
+		// 延遲小幅上升時梯度介於 0.5 與 1 之間
+		GradientConcurrencyLimiter mild = limiter(100, 1, 1000);
+		warmUp(mild, STABLE_RTT);
+		burst(mild, 100, STABLE_RTT * 12 / 10);
+		assertThat(mild.getLimit()).isLessThan(100).isGreaterThan(50);
+	}
+
+	@Test
+	@DisplayName("上限限制在最小值與最大值之間")
+	void testLimitIsClamped() {
+		assertThat(limiter(2000, 1, 1000).getLimit()).isEqualTo(1000);
+		assertThat(limiter(0, 5, 1000).getLimit()).isEqualTo(5);
+
+		GradientConcurrencyLimiter capped = limiter(100, 1, 105);
+		burst(capped, 100, STABLE_RTT);
+		assertThat(capped.getLimit()).isEqualTo(105);
+
+		// 20 × 0.5 + √20 ≈ 14.5，低於最小值 15
+		GradientConcurrencyLimiter floored = limiter(20, 15, 1000);
+		warmUp(floored, STABLE_RTT);
+		burst(floored, 20, STABLE_RTT * 10);
+		assertThat(floored.getLimit()).isEqualTo(15);
+	}
+
+	@Test
+	@DisplayName("時間窗內最高並發不到上限一半時不調整上限")
+	void testNoGrowthWhenPeakInflightIsBelowHalfTheLimit() {
+		GradientConcurrencyLimiter limiter = limiter(100, 1, 1000);
+		for (int i = 0; i < 10; i++) {
+			burst(limiter, 49, STABLE_RTT);
+		}
+		assertThat(limiter.getLimit()).isEqualTo(100);
+
+		burst(limiter, 50, STABLE_RTT);
+		assertThat(limiter.getLimit()).isEqualTo(110);
+	}
+
+	@Test
+	@DisplayName("達到上限時拒絕並計入拒絕次數，歸還後可再取得")
+	void testRejectsAtLimit() {
+		GradientConcurrencyLimiter limiter = limiter(2, 1, 10);
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isFalse();
+		assertThat(limiter.getDropped()).isEqualTo(1);
+		assertThat(limiter.getInflight()).isEqualTo(2);
+
+		limiter.release(STABLE_RTT);
+		assertThat(limiter.getInflight()).isEqualTo(1);
+		assertThat(limiter.tryAcquire()).isTrue();
+	}
+
+	private static GradientConcurrencyLimiter limiter(int initialLimit, int minLimit, int maxLimit) {
+		return new GradientConcurrencyLimiter(initialLimit, minLimit, maxLimit, 1.0, 1.0, 0, 1, 10);
+	}
+
+	/**
+	 * 同時取得指定數量的許可後全部歸還
+	 */
+	private static void burst(GradientConcurrencyLimiter limiter, int inflight, long rttNanos) {
+		for (int i = 0; i < inflight; i++) {
+			assertThat(limiter.tryAcquire()).as("第 %d 個許可", i + 1).isTrue();
+		}
+		for (int i = 0; i < inflight; i++) {
+			limiter.release(rttNanos);
+		}
+	}
+
+	/**
+	 * 以單一請求建立長期延遲，並發遠低於上限一半，不會改變上限
+	 */
+	private static void warmUp(GradientConcurrencyLimiter limiter, long rttNanos) {
+		int limit = limiter.getLimit();
+		burst(limiter, 1, rttNanos);
+		assertThat(limiter.getLimit()).isEqualTo(limit);
+	}
+}
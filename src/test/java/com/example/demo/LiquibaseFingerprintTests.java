@@ -0,0 +1,235 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseDataSource;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import com.example.demo.config.StartupConfig;
+
+import liquibase.integration.spring.SpringLiquibase;
+
+/**
+ * Liquibase 指紋測試
+ * 只載入 Liquibase 自動配置與 StartupConfig，對同一個資料庫重複啟動，changelog 放在暫存目錄以便在兩次啟動之間修改
+ *
+ * Liquibase 使用的 DataSource 會計算取得連線的次數：跳過 Liquibase 時只有讀取指紋的一次，
+ * Liquibase 執行時至少再多一次 (執行 Liquibase 與寫入指紋)
+ */
+@Testcontainers
+@DisplayName("Liquibase 指紋測試")
+@Tag("integration")
+@Tag("startup")
+class LiquibaseFingerprintTests {
+
+	private static final String TAG_PREFIX = "changelog-sha256:";
+
+	@Container
+	static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"));
+
+	@TempDir
+	Path changeLogDir;
+
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		jdbcTemplate = new JdbcTemplate(dataSource());
+		jdbcTemplate.execute("DROP SCHEMA public CASCADE");
+		jdbcTemplate.execute("CREATE SCHEMA public");
+
+		Files.createDirectories(changeLogDir.resolve("history"));
+		writeChangeSet("001", "fingerprint_one");
+		Files.writeString(changeLogDir.resolve("db.changelog-master.yaml"), """
+			databaseChangeLog:
+			  - include:
+			      file: history/001.yaml
+			      relativeToChangelogFile: true
+			""");
+	}
+
+	@Test
+	@DisplayName("changelog 未變動時第二次啟動跳過 Liquibase，只讀取一次指紋")
+	void testSecondStartSkipsLiquibase() {
+		String tag = start(true);
+		assertThat(tag).startsWith(TAG_PREFIX);
+		assertThat(tableExists("fingerprint_one")).isTrue();
+
+		assertThat(start(false)).isEqualTo(tag);
+	}
+
+	@Test
+	@DisplayName("修改或新增 changelog 檔案時再次執行 Liquibase，並將新的指紋寫入最後一筆 changeSet")
+	void testChangedChangeLogRunsLiquibase() throws IOException {
+		String first = start(true);
+
+		// 註解不影響 changeSet 的 checksum，Liquibase 驗證通過但指紋不同
+		Files.writeString(changeLogDir.resolve("history/001.yaml"), "# 補充說明\n", StandardOpenOption.APPEND);
+		String edited = start(true);
+		assertThat(edited).startsWith(TAG_PREFIX).isNotEqualTo(first);
+
+		writeChangeSet("002", "fingerprint_two");
+		Files.writeString(changeLogDir.resolve("db.changelog-master.yaml"), """
+			  - include:
+			      file: history/002.yaml
+			      relativeToChangelogFile: true
+			""", StandardOpenOption.APPEND);
+		String added = start(true);
+		assertThat(tableExists("fingerprint_two")).isTrue();
+		assertThat(added).startsWith(TAG_PREFIX).isNotEqualTo(edited);
+		assertThat(jdbcTemplate.queryForObject("SELECT id FROM databasechangelog WHERE tag = ?", String.class, added))
+			.isEqualTo("002");
+
+		assertThat(start(false)).isEqualTo(added);
+	}
+
+	@Test
+	@DisplayName("最後一筆 changeSet 已有手動建立的 tag 時照常執行 Liquibase，且不覆寫該 tag")
+	void testManualTagIsPreserved() {
+		start(true);
+		jdbcTemplate.update("UPDATE databasechangelog SET tag = 'release-1.0'"
+			+ " WHERE orderexecuted = (SELECT max(orderexecuted) FROM databasechangelog)");
+
+		assertThat(start(true)).isEqualTo("release-1.0");
+		assertThat(start(true)).isEqualTo("release-1.0");
+	}
+
+	@Test
+	@DisplayName("spring.liquibase.enabled=false 時不連線資料庫讀取指紋")
+	void testDisabledLiquibaseNeverQueries() {
+		// 自動配置不會建立 SpringLiquibase，另外定義一個不執行的 SpringLiquibase，確認指紋檢查也不會連線
+		contextRunner().withUserConfiguration(IdleLiquibaseConfiguration.class)
+			.withPropertyValues("spring.liquibase.enabled=false")
+			.run(context -> {
+				assertThat(context).hasNotFailed().hasSingleBean(SpringLiquibase.class);
+				assertThat(context.getBean(CountingDataSource.class).connections.get()).isZero();
+			});
+		assertThat(tableExists("databasechangelog")).isFalse();
+	}
+
+	/**
+	 * 啟動並關閉一次 context，回傳最後一筆 changeSet 的 tag
+	 *
+	 * @param expectRun 預期 Liquibase 是否執行
+	 */
+	private String start(boolean expectRun) {
+		contextRunner().run(context -> {
+			assertThat(context).hasNotFailed().hasSingleBean(SpringLiquibase.class);
+			int connections = context.getBean(CountingDataSource.class).connections.get();
+			if (expectRun) {
+				assertThat(connections).as("Liquibase 應執行").isGreaterThan(1);
+			} else {
+				assertThat(connections).as("Liquibase 應跳過，只讀取指紋").isEqualTo(1);
+			}
+		});
+		return jdbcTemplate.queryForObject("SELECT tag FROM databasechangelog ORDER BY orderexecuted DESC LIMIT 1",
+			String.class);
+	}
+
+	private ApplicationContextRunner contextRunner() {
+		return new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(LiquibaseAutoConfiguration.class))
+			.withUserConfiguration(StartupConfig.class, CountingDataSourceConfiguration.class)
+			.withPropertyValues("spring.liquibase.change-log=file:"
+				+ changeLogDir.resolve("db.changelog-master.yaml").toAbsolutePath());
+	}
+
+	private void writeChangeSet(String id, String table) throws IOException {
+		Files.writeString(changeLogDir.resolve("history/" + id + ".yaml"), """
+			databaseChangeLog:
+			  - changeSet:
+			      id: "%s"
+			      author: test
+			      changes:
+			        - createTable:
+			            tableName: %s
+			            columns:
+			              - column:
+			                  name: id
+			                  type: int
+			""".formatted(id, table));
+	}
+
+	private boolean tableExists(String table) {
+		return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+			"public." + table));
+	}
+
+	private static DataSource dataSource() {
+		return new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	static class CountingDataSourceConfiguration {
+
+		@Bean
+		@LiquibaseDataSource
+		CountingDataSource liquibaseDataSource() {
+			return new CountingDataSource(dataSource());
+		}
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	static class IdleLiquibaseConfiguration {
+
+		@Bean
+		SpringLiquibase liquibase(CountingDataSource dataSource, Environment environment) {
+			SpringLiquibase liquibase = new SpringLiquibase();
+			liquibase.setDataSource(dataSource);
+			liquibase.setChangeLog(environment.getProperty("spring.liquibase.change-log"));
+			liquibase.setShouldRun(false);
+			return liquibase;
+		}
+	}
+
+	/**
+	 * 計算取得連線次數的 DataSource
+	 */
+	static class CountingDataSource extends DelegatingDataSource {
+
+		private final AtomicInteger connections = new AtomicInteger();
+
+		CountingDataSource(DataSource target) {
+			super(target);
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			connections.incrementAndGet();
+			return super.getConnection();
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			connections.incrementAndGet();
+			return super.getConnection(username, password);
+		}
+	}
+}
@@ -0,0 +1,144 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.infrastructure.jdbc.ReplicaRoutingDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 唯讀副本延遲檢查測試
+ * 以 mock 的副本回傳指定的複寫延遲，驗證延遲超過上限時唯讀連線改用主資料庫，延遲回到上限內後再次使用副本，不需要啟動容器
+ * 健康檢查間隔設得很長，除了建立時的第一次檢查之外都由測試直接呼叫 checkReplicas
+ */
+@DisplayName("唯讀副本延遲檢查測試")
+@Tag("unit")
+@Tag("replica")
+class ReplicaRoutingDataSourceTests {
+
+	private static final String REPLICA = "replica-0";
+
+	private static final Duration MAX_LAG = Duration.ofSeconds(5);
+
+	/**
+	 * 副本健康檢查查詢回傳的複寫延遲 (秒)
+	 */
+	private final AtomicReference<Double> lagSeconds = new AtomicReference<>(0.0);
+
+	private SimpleMeterRegistry meterRegistry;
+
+	private ReplicaRoutingDataSource routing;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		DataSource primary = mock(DataSource.class);
+		when(primary.getConnection()).thenAnswer(invocation -> connection(mock(ResultSet.class)));
+
+		ResultSet lag = mock(ResultSet.class);
+		when(lag.next()).thenReturn(true);
+		when(lag.getDouble(1)).thenAnswer(invocation -> lagSeconds.get());
+		DataSource replica = mock(DataSource.class);
+		when(replica.getConnection()).thenAnswer(invocation -> connection(lag));
+
+		meterRegistry = new SimpleMeterRegistry();
+		routing = new ReplicaRoutingDataSource(primary, List.of(new ReplicaRoutingDataSource.Replica(REPLICA, replica)),
+			MAX_LAG, Duration.ofHours(1), meterRegistry);
+		// 等待建立時排程的第一次檢查
+		await().atMost(Duration.ofSeconds(5)).until(() -> healthy() == 1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		routing.close();
+	}
+
+	@Test
+	@DisplayName("複寫延遲超過上限時唯讀連線改用主資料庫，延遲回到上限內後再次使用副本")
+	void testLaggingReplicaFallsBackToPrimary() throws SQLException {
+		readOnlyQuery();
+		assertThat(routedToReplica()).isEqualTo(1);
+		assertThat(routedToPrimary()).isZero();
+
+		lagSeconds.set(MAX_LAG.toSeconds() + 1.5);
+		routing.checkReplicas();
+		assertThat(healthy()).isZero();
+		assertThat(routing.hasHealthyReplica()).isFalse();
+		assertThat(meterRegistry.get("db.replica.lag").tag("replica", REPLICA).gauge().value())
+			.isEqualTo(MAX_LAG.toSeconds() + 1.5);
+
+		readOnlyQuery();
+		assertThat(routedToReplica()).isEqualTo(1);
+		assertThat(routedToPrimary()).isEqualTo(1);
+
+		lagSeconds.set(MAX_LAG.toSeconds() - 0.5);
+		routing.checkReplicas();
+		assertThat(healthy()).isEqualTo(1);
+
+		readOnlyQuery();
+		assertThat(routedToReplica()).isEqualTo(2);
+		assertThat(routedToPrimary()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("寫入連線一律使用主資料庫，不經過副本")
+	void testWritableConnectionUsesPrimary() throws SQLException {
+		try (Connection connection = routing.getConnection(); Statement statement = connection.createStatement()) {
+			assertThat(statement).isNotNull();
+		}
+		assertThat(routedToReplica()).isZero();
+		assertThat(routedToPrimary()).isZero();
+	}
+
+	/**
+	 * 以唯讀連線執行一次查詢，第一個 SQL 執行時才會選擇實際的資料庫
+	 */
+	private void readOnlyQuery() throws SQLException {
+		try (Connection connection = routing.getConnection()) {
+			connection.setReadOnly(true);
+			try (Statement statement = connection.createStatement()) {
+				assertThat(statement).isNotNull();
+			}
+		}
+	}
+
+	private static Connection connection(ResultSet resultSet) throws SQLException {
+		Statement statement = mock(Statement.class);
+		when(statement.executeQuery(anyString())).thenReturn(resultSet);
+		Connection connection = mock(Connection.class);
+		when(connection.createStatement()).thenReturn(statement);
+		return connection;
+	}
+
+	private double healthy() {
+		return meterRegistry.get("db.replica.healthy").tag("replica", REPLICA).gauge().value();
+	}
+
+	private double routedToReplica() {
+		return meterRegistry.get("db.replica.routed").tags("target", REPLICA, "reason", "replica").counter().count();
+	}
+
+	private double routedToPrimary() {
+		return meterRegistry.get("db.replica.routed")
+			.tags("target", "primary", "reason", "no-healthy-replica")
+			.counter()
+			.count();
+	}
+}
@@ -0,0 +1,203 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * 啟動時間測試
+ * 以 Testcontainers 提供 PostgreSQL 與 Redis，以獨立的 JVM 啟動打包好的 jar，
+ * 量測從程序啟動到 /actuator/health/readiness 回應 200 的時間，以及當下的常駐記憶體 (RSS)
+ *
+ * - default：java -jar 直接啟動
+ * - optimized：以 -Pstartup 建置時額外量測，從解開後的 jar 啟動並啟用 AOT、CDS 封存檔與 lazy-init
+ *
+ * 每種設定啟動 startup.runs 次取中位數；第一次啟動會執行 Liquibase，之後的啟動會因指紋相同而跳過
+ * 結果寫入 build/reports/startup-test，設定 startup.max-ready-ms 或 startup.max-rss-mb 時超過即失敗
+ *
+ * 執行方式：./gradlew startupTest -Pstartup
+ */
+@Testcontainers
+@Tag("startup")
+@DisplayName("應用程式啟動時間測試")
+class StartupTimeTests {
+
+	private static final Logger log = LoggerFactory.getLogger(StartupTimeTests.class);
+
+	private static final Duration READY_TIMEOUT = Duration.ofMinutes(2);
+	private static final long POLL_INTERVAL_MILLIS = 50;
+
+	@Container
+	static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:latest"));
+
+	@Container
+	static final GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:latest"))
+		.withExposedPorts(6379);
+
+	private final Path jar = Path.of(System.getProperty("startup.jar", "build/libs/demo-0.0.1.jar"));
+	private final Path startupDir = Path.of(System.getProperty("startup.dir", "build/startup"));
+	private final boolean optimized = Boolean.getBoolean("startup.optimized");
+	private final String java = System.getProperty("startup.java", "java");
+	private final int runs = Integer.getInteger("startup.runs", 3);
+	private final long maxReadyMillis = Long.getLong("startup.max-ready-ms", 0);
+	private final long maxRssMegabytes = Long.getLong("startup.max-rss-mb", 0);
+	private final Path reportDir = Path.of(System.getProperty("startup.report-dir", "build/reports/startup-test"));
+
+	private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+	/**
+	 * 單次啟動的結果
+	 */
+	private record Measurement(long readyMillis, long rssMegabytes) {
+	}
+
+	@Test
+	@DisplayName("啟動到 readiness 為 UP 的時間與 RSS 不可超過設定的上限")
+	void testTimeToReady() throws Exception {
+		Files.createDirectories(reportDir);
+		Properties report = new Properties();
+
+		List<String> defaultCommand = List.of(java, "-jar", jar.toAbsolutePath().toString());
+		measure("default", defaultCommand, Path.of("."), report);
+
+		if (optimized) {
+			List<String> optimizedCommand = List.of(java, "-XX:SharedArchiveFile=application.jsa",
+				"-Dspring.aot.enabled=true", "-Dspring.main.lazy-initialization=true", "-jar",
+				"application/" + jar.getFileName());
+			measure("optimized", optimizedCommand, startupDir, report);
+		}
+
+		try (Writer writer = Files.newBufferedWriter(reportDir.resolve("startup.properties"))) {
+			report.store(writer, "time-to-ready (ms) and RSS (MB), median of " + runs + " runs");
+		}
+	}
+
+	private void measure(String variant, List<String> command, Path workingDir, Properties report) throws Exception {
+		List<Measurement> measurements = new ArrayList<>();
+		for (int run = 1; run <= runs; run++) {
+			Measurement measurement = start(command, workingDir, reportDir.resolve(variant + "-" + run + ".log"));
+			log.info("啟動時間 [{} #{}]：ready={}ms, RSS={}MB", variant, run, measurement.readyMillis(),
+				measurement.rssMegabytes());
+			measurements.add(measurement);
+		}
+		long readyMillis = median(measurements.stream().mapToLong(Measurement::readyMillis).toArray());
+		long rssMegabytes = median(measurements.stream().mapToLong(Measurement::rssMegabytes).toArray());
+		log.info("啟動時間 [{}] 中位數：ready={}ms, RSS={}MB", variant, readyMillis, rssMegabytes);
+		report.setProperty(variant + ".ready-ms", String.valueOf(readyMillis));
+		report.setProperty(variant + ".rss-mb", String.valueOf(rssMegabytes));
+
+		if (maxReadyMillis > 0) {
+			assertThat(readyMillis).as("[%s] time-to-ready (ms)", variant).isLessThanOrEqualTo(maxReadyMillis);
+		}
+		if (maxRssMegabytes > 0) {
+			assertThat(rssMegabytes).as("[%s] RSS (MB)", variant).isLessThanOrEqualTo(maxRssMegabytes);
+		}
+	}
+
+	/**
+	 * 啟動應用程式並等待 readiness 回應 200，記錄 RSS 後結束程序
+	 */
+	private Measurement start(List<String> command, Path workingDir, Path log) throws Exception {
+		int port = freePort();
+		List<String> arguments = new ArrayList<>(command);
+		arguments.addAll(List.of(
+			"--server.port=" + port,
+			"--db.url=" + postgres.getJdbcUrl(),
+			"--db.username=" + postgres.getUsername(),
+			"--db.password=" + postgres.getPassword(),
+			"--redis.host=" + redis.getHost(),
+			"--spring.data.redis.port=" + redis.getMappedPort(6379),
+			"--management.otlp.metrics.export.enabled=false",
+			"--management.otlp.tracing.export.enabled=false",
+			"--management.otlp.logging.export.enabled=false"));
+		long started = System.nanoTime();
+		Process process = new ProcessBuilder(arguments)
+			.directory(workingDir.toFile())
+			.redirectErrorStream(true)
+			.redirectOutput(log.toFile())
+			.start();
+		try {
+			URI readiness = URI.create("http://localhost:" + port + "/actuator/health/readiness");
+			long deadline = started + READY_TIMEOUT.toNanos();
+			while (!isReady(readiness)) {
+				assertThat(process.isAlive()).as("應用程式提前結束，請見 %s", log).isTrue();
+				assertThat(System.nanoTime()).as("等待 readiness 逾時，請見 %s", log).isLessThan(deadline);
+				Thread.sleep(POLL_INTERVAL_MILLIS);
+			}
+			long readyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+			return new Measurement(readyMillis, rssMegabytes(process.pid()));
+		} finally {
+			process.destroy();
+			if (!process.waitFor(30, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+			}
+		}
+	}
+
+	private boolean isReady(URI readiness) throws InterruptedException {
+		try {
+			HttpRequest request = HttpRequest.newBuilder(readiness).timeout(Duration.ofSeconds(1)).GET().build();
+			return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+		} catch (IOException ex) {
+			// 尚未開始監聽連接埠
+			return false;
+		}
+	}
+
+	/**
+	 * Linux 從 /proc/{pid}/status 的 VmRSS 讀取，其他平台以 ps 查詢
+	 */
+	private static long rssMegabytes(long pid) throws IOException, InterruptedException {
+		Path status = Path.of("/proc", String.valueOf(pid), "status");
+		String kilobytes;
+		if (Files.exists(status)) {
+			kilobytes = Files.readAllLines(status).stream()
+				.filter(line -> line.startsWith("VmRSS:"))
+				.map(line -> line.replaceAll("\\D", ""))
+				.findFirst()
+				.orElseThrow();
+		} else {
+			Process ps = new ProcessBuilder("ps", "-o", "rss=", "-p", String.valueOf(pid)).start();
+			kilobytes = new String(ps.getInputStream().readAllBytes()).trim();
+			ps.waitFor();
+		}
+		return Long.parseLong(kilobytes) / 1024;
+	}
+
+	private static long median(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+}
@@ -0,0 +1,353 @@
+package com.example.demo;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.*;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.config.TwoLevelCacheProperties;
+import com.example.demo.infrastructure.cache.TwoLevelCache;
+import com.example.demo.infrastructure.cache.TwoLevelCacheManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * 兩層快取測試
+ * 以兩個共用同一個 Redis 的 {@link TwoLevelCacheManager} 模擬兩個節點，
+ * 每次測試使用獨立的鍵值前綴與失效通知頻道，不影響應用程式本身的快取
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(TestcontainersConfiguration.class)
+@ActiveProfiles("test")
+@DisplayName("兩層快取測試")
+@Tag("integration")
+@Tag("cache")
+class TwoLevelCacheTests {
+
+	private static final String CACHE_NAME = "test";
+
+	/**
+	 * 啟用 stale-while-revalidate 的快取
+	 */
+	private static final String SWR_CACHE_NAME = "test-swr";
+
+	private static final Duration SOFT_TTL = Duration.ofMillis(200);
+
+	private static final int THREADS = 16;
+
+	@Autowired
+	private RedisTemplate<String, Object> cacheRedisTemplate;
+
+	@Autowired
+	private StringRedisTemplate stringRedisTemplate;
+
+	@Autowired
+	private RedisConnectionFactory connectionFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final List<RedisMessageListenerContainer> listenerContainers = new ArrayList<>();
+
+	private TwoLevelCacheProperties properties;
+
+	private Node nodeA;
+
+	private Node nodeB;
+
+	/**
+	 * 一個節點：快取管理器與其指標
+	 */
+	private record Node(TwoLevelCacheManager cacheManager, MeterRegistry meterRegistry) {
+
+		TwoLevelCache cache() {
+			return cacheManager.getTwoLevelCache(CACHE_NAME);
+		}
+
+		/**
+		 * L1 是否有此鍵值，不經過 L2
+		 */
+		boolean hasLocal(Object key) {
+			@SuppressWarnings("unchecked")
+			var localCache = (com.github.benmanes.caffeine.cache.Cache<Object, Object>) cache().getNativeCache();
+			return localCache.getIfPresent(key) != null;
+		}
+
+		double remoteHits() {
+			return meterRegistry.get("cache.gets").tags("cache", CACHE_NAME, "tier", "remote", "result", "hit")
+				.counter()
+				.count();
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		String testId = UUID.randomUUID().toString();
+		properties = new TwoLevelCacheProperties();
+		properties.setKeyPrefix("test:cache:" + testId + ":");
+		properties.setInvalidationChannel("test:cache:invalidation:" + testId);
+		TwoLevelCacheProperties.Spec swrSpec = new TwoLevelCacheProperties.Spec();
+		swrSpec.setSoftTtl(SOFT_TTL);
+		properties.getCaches().put(SWR_CACHE_NAME, swrSpec);
+		nodeA = startNode();
+		nodeB = startNode();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		for (RedisMessageListenerContainer container : listenerContainers) {
+			container.destroy();
+		}
+		nodeA.cache().clear();
+		nodeA.cacheManager().getTwoLevelCache(SWR_CACHE_NAME).clear();
+	}
+
+	@Test
+	@DisplayName("L1 命中時不查詢 Redis，L2 命中時回填 L1")
+	void testLocalAndRemoteHits() {
+		nodeA.cache().put("key", "value");
+		assertThat(nodeA.hasLocal("key")).isTrue();
+
+		// 節點 A 由 L1 回應
+		assertThat(nodeA.cache().get("key", String.class)).isEqualTo("value");
+		assertThat(nodeA.remoteHits()).isZero();
+
+		// 節點 B 的 L1 沒有此鍵值，由 L2 回應並回填 L1
+		assertThat(nodeB.hasLocal("key")).isFalse();
+		assertThat(nodeB.cache().get("key", String.class)).isEqualTo("value");
+		assertThat(nodeB.remoteHits()).isEqualTo(1);
+		assertThat(nodeB.hasLocal("key")).isTrue();
+
+		// 回填後再次讀取由 L1 回應；直接刪除 Redis 的內容也不影響 L1
+		cacheRedisTemplate.delete(properties.getKeyPrefix() + CACHE_NAME + "::key");
+		assertThat(nodeB.cache().get("key", String.class)).isEqualTo("value");
+		assertThat(nodeB.remoteHits()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("清除單筆與清除全部會透過 pub/sub 清除其他節點的 L1")
+	void testEvictAndClearReachOtherNodes() {
+		nodeA.cache().put("key1", "value1");
+		nodeA.cache().put("key2", "value2");
+		assertThat(nodeB.cache().get("key1", String.class)).isEqualTo("value1");
+		assertThat(nodeB.cache().get("key2", String.class)).isEqualTo("value2");
+
+		nodeA.cache().evict("key1");
+		assertThat(nodeA.hasLocal("key1")).isFalse();
+		await().atMost(Duration.ofSeconds(5)).until(() -> !nodeB.hasLocal("key1"));
+		assertThat(nodeB.hasLocal("key2")).isTrue();
+		assertThat(nodeB.cache().get("key1")).isNull();
+
+		nodeA.cache().clear();
+		await().atMost(Duration.ofSeconds(5)).until(() -> !nodeB.hasLocal("key2"));
+		assertThat(nodeB.cache().get("key2")).isNull();
+	}
+
+	@Test
+	@DisplayName("節點忽略自己發出的失效通知，不會清除發出通知後才寫入的 L1")
+	void testNodeIgnoresItsOwnMessages() {
+		nodeA.cache().put("key", "old");
+		assertThat(nodeB.cache().get("key", String.class)).isEqualTo("old");
+
+		// 發出通知後立即寫入新值，通知晚於寫入送達時不應清除新值
+		nodeA.cache().evict("key");
+		nodeA.cache().put("key", "new");
+		await().atMost(Duration.ofSeconds(5)).until(() -> !nodeB.hasLocal("key"));
+
+		// 通知依序處理：節點 A 處理完節點 B 之後發出的通知，代表自己先前的通知也已處理過
+		nodeA.cache().put("sentinel", "value");
+		nodeB.cache().evict("sentinel");
+		await().atMost(Duration.ofSeconds(5)).until(() -> !nodeA.hasLocal("sentinel"));
+
+		assertThat(nodeA.hasLocal("key")).isTrue();
+		assertThat(nodeA.cache().get("key", String.class)).isEqualTo("new");
+	}
+
+	@Test
+	@DisplayName("交易中的清除延後到交易提交後才執行，回滾時不清除")
+	void testTransactionAwareEvictionAfterCommit() {
+		Cache transactional = nodeA.cacheManager().getCache(CACHE_NAME);
+		nodeA.cache().put("key", "value");
+		assertThat(nodeB.cache().get("key", String.class)).isEqualTo("value");
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			transactional.evict("key");
+			status.setRollbackOnly();
+		});
+		assertThat(nodeA.hasLocal("key")).isTrue();
+		assertThat(nodeB.cache().get("key", String.class)).isEqualTo("value");
+
+		transactionTemplate.executeWithoutResult(status -> {
+			transactional.evict("key");
+			// 提交前兩個節點與 Redis 都還保有舊值
+			assertThat(nodeA.hasLocal("key")).isTrue();
+			assertThat(cacheRedisTemplate.hasKey(properties.getKeyPrefix() + CACHE_NAME + "::key")).isTrue();
+		});
+		assertThat(nodeA.hasLocal("key")).isFalse();
+		assertThat(cacheRedisTemplate.hasKey(properties.getKeyPrefix() + CACHE_NAME + "::key")).isFalse();
+		await().atMost(Duration.ofSeconds(5)).until(() -> !nodeB.hasLocal("key"));
+	}
+
+	@Test
+	@DisplayName("同一鍵值同時未命中時只呼叫一次載入函式，所有呼叫端取得同一個結果")
+	void testConcurrentMissesLoadOnce() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch ready = new CountDownLatch(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<String>> results = new ArrayList<>();
+		try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+			for (int i = 0; i < THREADS; i++) {
+				results.add(executor.submit(() -> {
+					ready.countDown();
+					start.await();
+					return nodeA.cache().get("key", () -> {
+						loads.incrementAndGet();
+						Thread.sleep(200);
+						return "loaded";
+					});
+				}));
+			}
+			ready.await();
+			start.countDown();
+		}
+
+		for (Future<String> result : results) {
+			assertThat(result.get()).isEqualTo("loaded");
+		}
+		assertThat(loads).hasValue(1);
+		assertThat(nodeB.cache().get("key", String.class)).isEqualTo("loaded");
+	}
+
+	@Test
+	@DisplayName("超過 soft TTL 的項目立即回傳舊值，背景只有一個重新載入作業")
+	void testStaleEntryIsServedWhileOneRefreshRuns() throws Exception {
+		TwoLevelCache cache = nodeA.cacheManager().getTwoLevelCache(SWR_CACHE_NAME);
+		cache.put("key", "old");
+		Thread.sleep(SOFT_TTL.toMillis() + 100);
+
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		Callable<String> loader = () -> {
+			loads.incrementAndGet();
+			release.await();
+			return "new";
+		};
+
+		// 重新載入被擋住時，每次讀取都不等待而是直接回傳舊值
+		assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+			for (int i = 0; i < THREADS; i++) {
+				assertThat(cache.get("key", loader)).isEqualTo("old");
+			}
+		});
+		await().atMost(Duration.ofSeconds(5)).until(() -> loads.get() == 1);
+
+		release.countDown();
+		await().atMost(Duration.ofSeconds(5)).until(() -> "new".equals(cache.get("key", String.class)));
+		assertThat(loads).hasValue(1);
+		assertThat(nodeA.meterRegistry().get("cache.refreshes").tags("cache", SWR_CACHE_NAME, "result", "success")
+			.counter()
+			.count()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("載入失敗時等待中的呼叫端取得相同的錯誤，之後的讀取會重新載入而不是沿用失敗的結果")
+	void testLoaderFailureDoesNotLeaveInFlightLoad() throws Exception {
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch failure = new CountDownLatch(1);
+		Callable<String> failing = () -> {
+			loading.countDown();
+			failure.await();
+			throw new IllegalStateException("載入失敗");
+		};
+		try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+			Future<String> first = executor.submit(() -> nodeA.cache().get("key", failing));
+			loading.await();
+			Future<String> waiting = executor.submit(() -> nodeA.cache().get("key", () -> "不應呼叫"));
+			Thread.sleep(100);
+			failure.countDown();
+			assertThatThrownBy(first::get).hasRootCauseInstanceOf(IllegalStateException.class);
+			assertThatThrownBy(waiting::get).hasRootCauseInstanceOf(IllegalStateException.class);
+		}
+
+		AtomicInteger loads = new AtomicInteger();
+		assertThat(nodeA.cache().get("key", () -> {
+			loads.incrementAndGet();
+			return "loaded";
+		})).isEqualTo("loaded");
+		assertThat(loads).hasValue(1);
+
+		// 背景重新載入失敗時保留舊值，下一次讀取會再次嘗試
+		TwoLevelCache cache = nodeA.cacheManager().getTwoLevelCache(SWR_CACHE_NAME);
+		cache.put("key", "old");
+		Thread.sleep(SOFT_TTL.toMillis() + 100);
+		AtomicInteger refreshes = new AtomicInteger();
+		assertThat(cache.get("key", () -> {
+			refreshes.incrementAndGet();
+			throw new IllegalStateException("重新載入失敗");
+		})).isEqualTo("old");
+		await().atMost(Duration.ofSeconds(5)).until(() -> nodeA.meterRegistry().get("cache.refreshes")
+			.tags("cache", SWR_CACHE_NAME, "result", "failure")
+			.counter()
+			.count() == 1);
+		await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+			assertThat(cache.get("key", () -> {
+				refreshes.incrementAndGet();
+				return "new";
+			})).isIn("old", "new");
+			assertThat(cache.get("key", String.class)).isEqualTo("new");
+		});
+		assertThat(refreshes).hasValue(2);
+	}
+
+	/**
+	 * 建立一個節點並訂閱失效通知
+	 * 以同步執行器依序處理通知，讓測試可以用後發出的通知確認先前的通知已處理完畢
+	 */
+	private Node startNode() {
+		MeterRegistry meterRegistry = new SimpleMeterRegistry();
+		TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(cacheRedisTemplate, stringRedisTemplate,
+			properties, meterRegistry);
+		cacheManager.setTransactionAware(true);
+		cacheManager.afterPropertiesSet();
+
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+		container.setTaskExecutor(new SyncTaskExecutor());
+		container.addMessageListener(cacheManager, new ChannelTopic(properties.getInvalidationChannel()));
+		container.afterPropertiesSet();
+		container.start();
+		listenerContainers.add(container);
+		return new Node(cacheManager, meterRegistry);
+	}
+}